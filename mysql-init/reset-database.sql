@@ -7,6 +7,9 @@ USE flowpay;
 SET FOREIGN_KEY_CHECKS = 0;
 
 -- Drop existing tables if they exist
+DROP TABLE IF EXISTS payroll_checkpoint;
+DROP TABLE IF EXISTS payroll_run;
+DROP TABLE IF EXISTS paiement_monthly_summary;
 DROP TABLE IF EXISTS paiement;
 DROP TABLE IF EXISTS bonus;
 DROP TABLE IF EXISTS indemnite;
@@ -71,6 +74,60 @@ CREATE TABLE paiement (
     CHECK (montant >= 0)
 );
 
+-- Indexes backing the statistics queries (per agent / per type, filtered by date range)
+CREATE INDEX idx_paiement_agent_date ON paiement (agent_id, date_paiement);
+CREATE INDEX idx_paiement_type_date ON paiement (type, date_paiement);
+CREATE INDEX idx_paiement_date ON paiement (date_paiement);
+-- Implicitly (type, id) in InnoDB, serves the paged listing by type
+CREATE INDEX idx_paiement_type ON paiement (type);
+-- Serves the incremental refresh of the in-memory statistics snapshot
+CREATE INDEX idx_paiement_updated ON paiement (updated_at);
+
+-- Monthly rollup of paiement per (agent, type, month), kept in sync by PaiementDAO on every write.
+-- The department is resolved through agent at read time, so moving an agent needs no rewrite.
+CREATE TABLE paiement_monthly_summary (
+    agent_id INT NOT NULL,
+    type ENUM('SALAIRE', 'PRIME', 'BONUS', 'INDEMNITE') NOT NULL,
+    annee SMALLINT NOT NULL,
+    mois TINYINT NOT NULL,
+    nb INT NOT NULL,
+    total DECIMAL(16,2) NOT NULL,
+    max_montant DECIMAL(10,2) NOT NULL,
+    PRIMARY KEY (agent_id, type, annee, mois),
+    FOREIGN KEY (agent_id) REFERENCES agent(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_summary_periode ON paiement_monthly_summary (annee, mois);
+CREATE INDEX idx_summary_type ON paiement_monthly_summary (type, annee, mois);
+
+-- One payroll run per month. Each run splits the agents into id ranges processed in parallel;
+-- a checkpoint row per range is advanced in the same transaction as the payments it covers,
+-- so an interrupted run resumes after the last committed agent of each range.
+CREATE TABLE payroll_run (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    annee SMALLINT NOT NULL,
+    mois TINYINT NOT NULL,
+    status ENUM('EN_COURS', 'TERMINE', 'ECHEC') NOT NULL,
+    nb_paiements INT NOT NULL DEFAULT 0,
+    total DECIMAL(16,2) NOT NULL DEFAULT 0,
+    started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP NULL,
+    UNIQUE KEY uk_payroll_periode (annee, mois)
+);
+
+CREATE TABLE payroll_checkpoint (
+    run_id INT NOT NULL,
+    partition_no INT NOT NULL,
+    from_agent_id INT NOT NULL,
+    to_agent_id INT NOT NULL,
+    last_agent_id INT NOT NULL DEFAULT 0,
+    nb INT NOT NULL DEFAULT 0,
+    total DECIMAL(16,2) NOT NULL DEFAULT 0,
+    termine BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (run_id, partition_no),
+    FOREIGN KEY (run_id) REFERENCES payroll_run(id) ON DELETE CASCADE
+);
+
 -- Insert default departments
 INSERT INTO departement (nom) VALUES
 ('Ressources Humaines'),
@@ -101,4 +158,10 @@ INSERT INTO paiement (type, montant, motif, agent_id, condition_validee) VALUES
 ('BONUS', 1000.00, 'Bonus annuel', 1, TRUE),
 ('INDEMNITE', 200.00, 'Indemnité transport', 1, TRUE);
 
+-- Build the rollup for the sample payments
+INSERT INTO paiement_monthly_summary (agent_id, type, annee, mois, nb, total, max_montant)
+SELECT agent_id, type, YEAR(date_paiement), MONTH(date_paiement), COUNT(*), SUM(montant), MAX(montant)
+FROM paiement
+GROUP BY agent_id, type, YEAR(date_paiement), MONTH(date_paiement);
+
 COMMIT;
\ No newline at end of file
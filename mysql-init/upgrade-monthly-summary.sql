@@ -0,0 +1,27 @@
+-- FlowPay upgrade: monthly payment rollup
+-- Adds paiement_monthly_summary to a database created before it existed and fills it from paiement.
+-- Safe to run more than once: the table is only created when missing and every cell is recomputed.
+
+USE flowpay;
+
+CREATE TABLE IF NOT EXISTS paiement_monthly_summary (
+    agent_id INT NOT NULL,
+    type ENUM('SALAIRE', 'PRIME', 'BONUS', 'INDEMNITE') NOT NULL,
+    annee SMALLINT NOT NULL,
+    mois TINYINT NOT NULL,
+    nb INT NOT NULL,
+    total DECIMAL(16,2) NOT NULL,
+    max_montant DECIMAL(10,2) NOT NULL,
+    PRIMARY KEY (agent_id, type, annee, mois),
+    -- Declared with the table so that a second run does not try to add them again
+    INDEX idx_summary_periode (annee, mois),
+    INDEX idx_summary_type (type, annee, mois),
+    FOREIGN KEY (agent_id) REFERENCES agent(id) ON DELETE CASCADE
+);
+
+-- Backfill, overwriting any cell that is already there with the count from paiement
+INSERT INTO paiement_monthly_summary (agent_id, type, annee, mois, nb, total, max_montant)
+SELECT agent_id, type, YEAR(date_paiement), MONTH(date_paiement), COUNT(*), SUM(montant), MAX(montant)
+FROM paiement
+GROUP BY agent_id, type, YEAR(date_paiement), MONTH(date_paiement)
+ON DUPLICATE KEY UPDATE nb = VALUES(nb), total = VALUES(total), max_montant = VALUES(max_montant);
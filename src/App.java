@@ -1,19 +1,45 @@
 package src;
 
+import src.api.ApiRoutes;
+import src.api.ApiServer;
+import src.api.RequestMetrics;
+import src.config.ConfigDBConn;
 import src.controllers.AgentController;
 import src.controllers.AuthController;
 import src.controllers.DepartementController;
 import src.controllers.PaiementController;
+import src.controllers.PayrollController;
 import src.controllers.StatisticsController;
 import src.dao.AgentDAO;
 import src.dao.DepartementDAO;
 import src.dao.PaiementDAO;
+import src.dao.PayrollDAO;
+import src.dao.cache.CachedAgentDAO;
+import src.dao.cache.CachedDepartementDAO;
+import src.dao.interfaces.IAgent;
+import src.dao.interfaces.IDepartement;
+import src.models.TypeAgent;
 import src.services.AgentService;
+import src.services.AsyncExecutor;
+import src.services.AsyncStatisticsService;
 import src.services.AuthService;
+import src.services.CachingStatisticsService;
+import src.services.DataChangeNotifier;
 import src.services.DepartementService;
 import src.services.PaiementService;
+import src.services.PayrollService;
+import src.services.LoginThrottle;
+import src.services.SessionRegistry;
 import src.services.SessionService;
+import src.services.ColumnarStatisticsService;
+import src.services.PaiementSnapshot;
+import src.services.PaymentAnomalyDetector;
+import src.services.PaymentCube;
+import src.services.PaymentSketches;
+import src.services.ParallelPaiementScanner;
+import src.services.RunningAggregates;
 import src.services.StatisticsService;
+import src.services.interfaces.IStatisticsService;
 import src.views.AgentMenuView;
 import src.views.AuthView;
 import src.views.DepartementMenuView;
@@ -21,40 +47,172 @@ import src.views.MainMenuView;
 import src.views.PaiementMenuView;
 import src.views.StatisticsMenuView;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
 
 public class App {
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
 
-        AgentDAO agentDAO = new AgentDAO();
-        DepartementDAO departementDAO = new DepartementDAO();
+        IAgent agentDAO = new AgentDAO();
+        IDepartement departementDAO = new DepartementDAO();
+        if (Boolean.parseBoolean(ConfigDBConn.getProperty("cache.enabled", "false"))) {
+            int maxSize = ConfigDBConn.getIntProperty("cache.maxSize", 1000);
+            long ttlSeconds = ConfigDBConn.getLongProperty("cache.ttlSeconds", 300);
+            CachedAgentDAO cachedAgentDAO = new CachedAgentDAO(agentDAO, maxSize, ttlSeconds);
+            agentDAO = cachedAgentDAO;
+            departementDAO = new CachedDepartementDAO(departementDAO, maxSize, ttlSeconds, cachedAgentDAO::invalidateDepartement);
+        }
         PaiementDAO paiementDAO = new PaiementDAO();
 
-        SessionService sessionService = new SessionService();
-        AuthService authService = new AuthService(agentDAO, sessionService);
-        AgentService agentService = new AgentService(agentDAO, departementDAO, paiementDAO);
-        DepartementService departementService = new DepartementService(departementDAO, agentDAO, paiementDAO);
-        PaiementService paiementService = new PaiementService(paiementDAO, agentDAO);
-        StatisticsService statisticsService = new StatisticsService(paiementDAO, agentDAO, departementDAO);
+        DataChangeNotifier notifier = new DataChangeNotifier();
+        SessionRegistry sessionRegistry = new SessionRegistry(
+                ConfigDBConn.getLongProperty("session.idleTimeoutMs", 1800000),
+                ConfigDBConn.getLongProperty("session.absoluteTimeoutMs", 43200000),
+                ConfigDBConn.getIntProperty("session.maxPerAgent", 5),
+                ConfigDBConn.getLongProperty("session.sweepTickMs", 1000),
+                ConfigDBConn.getIntProperty("session.wheelSlots", 512));
+        sessionRegistry.start();
+        SessionService sessionService = new SessionService(sessionRegistry);
+        notifier.subscribe(sessionService);
+        LoginThrottle loginThrottle = new LoginThrottle(
+                ConfigDBConn.getIntProperty("auth.throttle.email.burst", 5),
+                ConfigDBConn.getLongProperty("auth.throttle.email.refillMs", 60000),
+                ConfigDBConn.getIntProperty("auth.throttle.source.burst", 30),
+                ConfigDBConn.getLongProperty("auth.throttle.source.refillMs", 2000),
+                ConfigDBConn.getLongProperty("auth.throttle.unknownEmailTtlMs", 30000),
+                ConfigDBConn.getIntProperty("auth.throttle.maxEntries", 100000));
+        notifier.subscribe(loginThrottle);
+        AuthService authService = new AuthService(agentDAO, sessionService, loginThrottle);
+        AgentService agentService = new AgentService(agentDAO, departementDAO, paiementDAO, notifier);
+        DepartementService departementService = new DepartementService(departementDAO, agentDAO, paiementDAO, notifier);
+        PaiementService paiementService = new PaiementService(paiementDAO, agentDAO, notifier);
+        Map<TypeAgent, Double> salaires = new EnumMap<>(TypeAgent.class);
+        Map<TypeAgent, Double> indemnites = new EnumMap<>(TypeAgent.class);
+        for (TypeAgent typeAgent : TypeAgent.values()) {
+            salaires.put(typeAgent, Double.parseDouble(ConfigDBConn.getProperty("payroll.salaire." + typeAgent, "0")));
+            indemnites.put(typeAgent, Double.parseDouble(ConfigDBConn.getProperty("payroll.indemnite." + typeAgent, "0")));
+        }
+        PayrollService payrollService = new PayrollService(new PayrollDAO(paiementDAO), agentDAO, paiementDAO, notifier,
+                salaires, indemnites,
+                ConfigDBConn.getIntProperty("payroll.partitions", 4),
+                ConfigDBConn.getIntProperty("payroll.chunkSize", 500));
+
+        RunningAggregates runningAggregates = null;
+        if (Boolean.parseBoolean(ConfigDBConn.getProperty("statistics.running.enabled", "false"))) {
+            runningAggregates = new RunningAggregates(paiementDAO, agentDAO, departementDAO);
+            notifier.subscribe(runningAggregates);
+            runningAggregates.start(ConfigDBConn.getLongProperty("statistics.running.reconcileIntervalMs", 300000));
+        }
+        ParallelPaiementScanner parallelScanner = null;
+        if (Boolean.parseBoolean(ConfigDBConn.getProperty("statistics.parallel.enabled", "false"))) {
+            int parallelism = ConfigDBConn.getIntProperty("statistics.parallel.parallelism", 0);
+            //each chunk holds a pooled connection while it streams, more workers would only wait for one
+            parallelism = Math.min(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                    ConfigDBConn.getIntProperty("db.pool.maxSize", 10));
+            parallelScanner = new ParallelPaiementScanner(paiementDAO, parallelism,
+                    ConfigDBConn.getIntProperty("statistics.parallel.chunkSize", 50000));
+        }
+        PaymentAnomalyDetector anomalyDetector = new PaymentAnomalyDetector(paiementDAO,
+                Double.parseDouble(ConfigDBConn.getProperty("statistics.anomaly.sigmas", "3")),
+                ConfigDBConn.getIntProperty("statistics.anomaly.minSamples", 5),
+                ConfigDBConn.getIntProperty("statistics.anomaly.recentLimit", 500));
+        notifier.subscribe(anomalyDetector);
+        anomalyDetector.start();
+        PaymentSketches paymentSketches = new PaymentSketches(paiementDAO, agentDAO,
+                ConfigDBConn.getIntProperty("statistics.sketch.quantileK", 200),
+                ConfigDBConn.getIntProperty("statistics.sketch.distinctPrecision", 12));
+        notifier.subscribe(paymentSketches);
+        PaymentCube paymentCube = new PaymentCube(paiementDAO, agentDAO, notifier,
+                ConfigDBConn.getLongProperty("statistics.cube.maxAgeMs", 60000));
+        notifier.subscribe(paymentCube);
+        IStatisticsService statisticsService = new StatisticsService(paiementDAO, agentDAO, departementDAO,
+                runningAggregates, parallelScanner, anomalyDetector, paymentSketches, paymentCube);
+        if ("columnar".equals(ConfigDBConn.getProperty("statistics.engine", "sql"))) {
+            PaiementSnapshot snapshot = new PaiementSnapshot(paiementDAO, agentDAO,
+                    ConfigDBConn.getLongProperty("statistics.snapshot.refreshIntervalMs", 30000),
+                    ConfigDBConn.getIntProperty("statistics.snapshot.pageSize", 10000),
+                    ConfigDBConn.getLongProperty("statistics.snapshot.overlapSeconds", 60),
+                    ConfigDBConn.getLongProperty("statistics.snapshot.verifyIntervalMs", 300000));
+            notifier.subscribe(snapshot);
+            statisticsService = new ColumnarStatisticsService(snapshot, paiementDAO, agentDAO, departementDAO,
+                    anomalyDetector, paymentSketches, paymentCube);
+        }
+        if (Boolean.parseBoolean(ConfigDBConn.getProperty("statistics.cache.enabled", "true"))) {
+            statisticsService = new CachingStatisticsService(statisticsService, notifier,
+                    ConfigDBConn.getIntProperty("statistics.cache.maxEntries", 500),
+                    ConfigDBConn.getLongProperty("statistics.cache.ttlMs", 60000));
+        }
+
+        AsyncExecutor asyncExecutor = new AsyncExecutor(ConfigDBConn.getIntProperty("async.fallbackThreads", 16));
 
         //init controllers
         AuthController authController = new AuthController(authService);
         AgentController agentController = new AgentController(agentService);
         DepartementController departementController = new DepartementController(departementService);
         PaiementController paiementController = new PaiementController(paiementService);
-        StatisticsController statisticsController = new StatisticsController(statisticsService);
-
-        //setup views
-        AuthView authView = new AuthView(authController, scanner);
-        AgentMenuView agentMenuView = new AgentMenuView(scanner, agentController, departementController);
-        DepartementMenuView departementMenuView = new DepartementMenuView(scanner, departementController);
-        PaiementMenuView paiementMenuView = new PaiementMenuView(scanner, paiementController, agentController);
-        StatisticsMenuView statisticsMenuView = new StatisticsMenuView(scanner, statisticsController);
-        MainMenuView mainMenuView = new MainMenuView(scanner, authController, agentMenuView, departementMenuView, paiementMenuView, statisticsMenuView);
-
-        if (authView.showLogin().isPresent()) {
-            mainMenuView.start();
+        PayrollController payrollController = new PayrollController(payrollService);
+        StatisticsController statisticsController = new StatisticsController(statisticsService,
+                new AsyncStatisticsService(statisticsService, asyncExecutor));
+
+        if (Arrays.asList(args).contains("--server")) {
+            //requests get their own executor: handlers block on futures of asyncExecutor and must not starve it
+            AsyncExecutor requestExecutor = new AsyncExecutor(ConfigDBConn.getIntProperty("server.fallbackThreads", 32));
+            runServer(requestExecutor, authController, agentController, departementController, paiementController, statisticsController);
+            requestExecutor.close();
+        } else {
+            //setup views
+            AuthView authView = new AuthView(authController, scanner);
+            AgentMenuView agentMenuView = new AgentMenuView(scanner, agentController, departementController);
+            DepartementMenuView departementMenuView = new DepartementMenuView(scanner, departementController);
+            PaiementMenuView paiementMenuView = new PaiementMenuView(scanner, paiementController, agentController, payrollController);
+            StatisticsMenuView statisticsMenuView = new StatisticsMenuView(scanner, statisticsController);
+            MainMenuView mainMenuView = new MainMenuView(scanner, authController, agentMenuView, departementMenuView, paiementMenuView, statisticsMenuView);
+
+            if (authView.showLogin().isPresent()) {
+                mainMenuView.start();
+            }
+        }
+        if (runningAggregates != null) {
+            runningAggregates.close();
+        }
+        if (parallelScanner != null) {
+            parallelScanner.close();
+        }
+        asyncExecutor.close();
+        sessionRegistry.close();
+        ConfigDBConn.shutdown();
+    }
+
+    //headless mode: serves the JSON API until the process is stopped
+    private static void runServer(AsyncExecutor executor, AuthController authController, AgentController agentController,
+                                  DepartementController departementController, PaiementController paiementController,
+                                  StatisticsController statisticsController) {
+        ApiServer server;
+        try {
+            server = new ApiServer(ConfigDBConn.getProperty("server.host", "127.0.0.1"),
+                    ConfigDBConn.getIntProperty("server.port", 8081), executor, authController,
+                    new RequestMetrics(ConfigDBConn.getIntProperty("server.metrics.quantileK", 200)),
+                    ConfigDBConn.getIntProperty("server.maxBodyBytes", 1048576));
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossible de démarrer le serveur HTTP", e);
+        }
+        new ApiRoutes(authController, agentController, departementController, paiementController, statisticsController,
+                ConfigDBConn.getIntProperty("server.pageSize", 500)).register(server);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(2);
+            stopped.countDown();
+        }));
+        server.start();
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 }
@@ -0,0 +1,268 @@
+package src.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import src.exceptions.ApiException;
+import src.models.Agent;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+//one HTTP request as seen by the API handlers: path and query parameters, the JSON body and the
+//authenticated agent, plus the ways to answer it
+public class ApiExchange {
+    private final HttpExchange exchange;
+    private final Map<String, String> pathParameters;
+    private final int maxBodyBytes;
+    private Map<String, String> query;
+    private Map<String, Object> body;
+    private Agent agent;
+    private String token;
+    private int status;
+
+    ApiExchange(HttpExchange exchange, Map<String, String> pathParameters, int maxBodyBytes) {
+        this.exchange = exchange;
+        this.pathParameters = pathParameters;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    public Agent getAgent() {
+        return agent;
+    }
+
+    void setAgent(Agent agent) {
+        this.agent = agent;
+    }
+
+    //the session token the request was authenticated with, null for Basic authentication
+    public String getToken() {
+        return token;
+    }
+
+    void setToken(String token) {
+        this.token = token;
+    }
+
+    //the client address, what login throttling counts attempts against
+    public String remoteAddress() {
+        return exchange.getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    HttpExchange getHttpExchange() {
+        return exchange;
+    }
+
+    public int pathInt(String name) throws ApiException {
+        return parseInt(name, pathParameters.get(name));
+    }
+
+    public String query(String name) {
+        if (query == null) {
+            query = parseQuery(exchange.getRequestURI().getRawQuery());
+        }
+        String value = query.get(name);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    public Integer queryInt(String name, Integer defaultValue) throws ApiException {
+        String value = query(name);
+        return value == null ? defaultValue : parseInt(name, value);
+    }
+
+    public LocalDate queryDate(String name) throws ApiException {
+        String value = query(name);
+        return value == null ? null : parseDate(name, value);
+    }
+
+    public <E extends Enum<E>> E queryEnum(String name, Class<E> type) throws ApiException {
+        String value = query(name);
+        return value == null ? null : parseEnum(name, value, type);
+    }
+
+    public String bodyString(String name, boolean required) throws ApiException {
+        Object value = body().get(name);
+        if (value == null) {
+            if (required) {
+                throw new ApiException(400, "Champ obligatoire : " + name);
+            }
+            return null;
+        }
+        if (!(value instanceof String)) {
+            throw new ApiException(400, "Le champ " + name + " doit être une chaîne");
+        }
+        return (String) value;
+    }
+
+    public Integer bodyInt(String name, boolean required) throws ApiException {
+        Object value = body().get(name);
+        if (value == null) {
+            if (required) {
+                throw new ApiException(400, "Champ obligatoire : " + name);
+            }
+            return null;
+        }
+        if (!(value instanceof Long) || (Long) value != ((Long) value).intValue()) {
+            throw new ApiException(400, "Le champ " + name + " doit être un entier");
+        }
+        return ((Long) value).intValue();
+    }
+
+    public double bodyDouble(String name) throws ApiException {
+        Object value = body().get(name);
+        if (!(value instanceof Number)) {
+            throw new ApiException(400, value == null ? "Champ obligatoire : " + name : "Le champ " + name + " doit être un nombre");
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    public boolean bodyBoolean(String name, boolean defaultValue) throws ApiException {
+        Object value = body().get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Boolean)) {
+            throw new ApiException(400, "Le champ " + name + " doit être un booléen");
+        }
+        return (Boolean) value;
+    }
+
+    public LocalDate bodyDate(String name, LocalDate defaultValue) throws ApiException {
+        String value = bodyString(name, false);
+        return value == null ? defaultValue : parseDate(name, value);
+    }
+
+    public <E extends Enum<E>> E bodyEnum(String name, Class<E> type) throws ApiException {
+        return parseEnum(name, bodyString(name, true), type);
+    }
+
+    //the whole JSON document is built in memory and sent with its length
+    public void send(int status, Body body) throws IOException {
+        StringWriter buffer = new StringWriter();
+        JsonWriter json = new JsonWriter(buffer);
+        body.write(json);
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        this.status = status;
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    //chunked transfer: the body is written as it is produced, for lists too large to hold at once.
+    //the status is committed before the first byte, a failure midway can only cut the response short
+    public void stream(Body body) throws IOException {
+        status = 200;
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            JsonWriter json = new JsonWriter(out);
+            body.write(json);
+            json.flush();
+        }
+    }
+
+    public void noContent() throws IOException {
+        status = 204;
+        exchange.sendResponseHeaders(204, -1);
+        exchange.close();
+    }
+
+    boolean isCommitted() {
+        return status != 0;
+    }
+
+    private Map<String, Object> body() throws ApiException {
+        if (body != null) {
+            return body;
+        }
+        String text;
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                if (bytes.size() + read > maxBodyBytes) {
+                    throw new ApiException(413, "Corps de requête trop volumineux");
+                }
+                bytes.write(buffer, 0, read);
+            }
+            text = bytes.toString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ApiException(400, "Lecture du corps de requête impossible");
+        }
+        if (text.isBlank()) {
+            throw new ApiException(400, "Corps JSON attendu");
+        }
+        Object parsed;
+        try {
+            parsed = JsonReader.parse(text);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, e.getMessage());
+        }
+        if (!(parsed instanceof Map)) {
+            throw new ApiException(400, "Un objet JSON est attendu");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> object = (Map<String, Object>) parsed;
+        body = object;
+        return body;
+    }
+
+    private static int parseInt(String name, String value) throws ApiException {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Entier attendu pour " + name + " : " + value);
+        }
+    }
+
+    private static LocalDate parseDate(String name, String value) throws ApiException {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, "Date attendue (AAAA-MM-JJ) pour " + name + " : " + value);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(String name, String value, Class<E> type) throws ApiException {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Valeur inconnue pour " + name + " : " + value);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.putIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    public interface Body {
+        void write(JsonWriter json) throws IOException;
+    }
+}
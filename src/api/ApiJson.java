@@ -0,0 +1,96 @@
+package src.api;
+
+import src.models.Agent;
+import src.models.AgentTotal;
+import src.models.Departement;
+import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaymentAnomaly;
+
+import java.io.IOException;
+
+//JSON shape of the models exposed by the API; passwords are never written
+final class ApiJson {
+    private ApiJson() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    static void agent(JsonWriter json, Agent agent) throws IOException {
+        json.beginObject()
+                .name("id").value(agent.getIdAgent())
+                .name("nom").value(agent.getNom())
+                .name("prenom").value(agent.getPrenom())
+                .name("email").value(agent.getEmail())
+                .name("typeAgent").value(agent.getTypeAgent());
+        json.name("departement");
+        Departement departement = agent.getDepartement();
+        if (departement == null) {
+            json.nullValue();
+        } else {
+            json.beginObject()
+                    .name("id").value(departement.getIdDepartement())
+                    .name("nom").value(departement.getNom())
+                    .endObject();
+        }
+        json.endObject();
+    }
+
+    static void departement(JsonWriter json, Departement departement) throws IOException {
+        json.beginObject()
+                .name("id").value(departement.getIdDepartement())
+                .name("nom").value(departement.getNom());
+        json.name("responsable");
+        Agent responsable = departement.getResponsable();
+        if (responsable == null) {
+            json.nullValue();
+        } else {
+            json.beginObject()
+                    .name("id").value(responsable.getIdAgent())
+                    .name("nomComplet").value(responsable.getNomComplet())
+                    .endObject();
+        }
+        json.endObject();
+    }
+
+    static void paiement(JsonWriter json, Paiement paiement) throws IOException {
+        json.beginObject()
+                .name("id").value(paiement.getIdPaiement())
+                .name("agentId").value(paiement.getAgentId())
+                .name("type").value(paiement.getType())
+                .name("montant").value(paiement.getMontant())
+                .name("date").value(paiement.getDate() == null ? null : paiement.getDate().toString())
+                .name("motif").value(paiement.getMotif())
+                .name("conditionValidee").value(paiement.isConditionValidee())
+                .endObject();
+    }
+
+    static void agentTotal(JsonWriter json, AgentTotal agentTotal) throws IOException {
+        json.beginObject().name("agent");
+        agent(json, agentTotal.getAgent());
+        json.name("total").value(agentTotal.getTotal()).endObject();
+    }
+
+    static void aggregate(JsonWriter json, PaiementAggregate aggregate) throws IOException {
+        json.beginObject()
+                .name("agentId").value(aggregate.getAgentId())
+                .name("departementId").value(aggregate.getDepartementId())
+                .name("agentType").value(aggregate.getAgentType())
+                .name("type").value(aggregate.getType())
+                .name("year").value(aggregate.getYear())
+                .name("month").value(aggregate.getMonth())
+                .name("count").value(aggregate.getCount())
+                .name("total").value(aggregate.getTotal())
+                .name("average").value(aggregate.getAverage())
+                .name("maximum").value(aggregate.getMaximum())
+                .endObject();
+    }
+
+    static void anomaly(JsonWriter json, PaymentAnomaly anomaly) throws IOException {
+        json.beginObject().name("paiement");
+        paiement(json, anomaly.getPaiement());
+        json.name("expectedAmount").value(anomaly.getExpectedAmount())
+                .name("standardDeviation").value(anomaly.getStandardDeviation())
+                .name("score").value(anomaly.getScore())
+                .endObject();
+    }
+}
@@ -0,0 +1,281 @@
+package src.api;
+
+import src.controllers.AgentController;
+import src.controllers.AuthController;
+import src.controllers.DepartementController;
+import src.controllers.PaiementController;
+import src.controllers.StatisticsController;
+import src.models.Agent;
+import src.models.AgentTotal;
+import src.models.Departement;
+import src.models.Paiement;
+import src.models.PaymentAnomaly;
+import src.models.Session;
+import src.models.TypeAgent;
+import src.models.TypePaiement;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+//the API endpoints, each one a thin mapping from JSON to an existing controller call
+public class ApiRoutes {
+    private final AuthController authController;
+    private final AgentController agentController;
+    private final DepartementController departementController;
+    private final PaiementController paiementController;
+    private final StatisticsController statisticsController;
+    private final int pageSize;
+
+    public ApiRoutes(AuthController authController, AgentController agentController, DepartementController departementController,
+                     PaiementController paiementController, StatisticsController statisticsController, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("page size must be positive");
+        }
+        this.authController = authController;
+        this.agentController = agentController;
+        this.departementController = departementController;
+        this.paiementController = paiementController;
+        this.statisticsController = statisticsController;
+        this.pageSize = pageSize;
+    }
+
+    public void register(ApiServer server) {
+        server.publicRoute("GET", "/metrics", exchange -> exchange.send(200, server.getMetrics()::write));
+        server.publicRoute("POST", "/api/auth/login", exchange -> {
+            Session session = authController.openSession(exchange.bodyString("email", true),
+                    exchange.bodyString("motDePasse", true), exchange.remoteAddress());
+            exchange.send(201, json -> {
+                json.beginObject().name("token").value(session.getToken()).name("agent");
+                ApiJson.agent(json, session.getAgent());
+                json.endObject();
+            });
+        });
+        server.route("POST", "/api/auth/logout", exchange -> {
+            if (exchange.getToken() != null) {
+                authController.closeSession(exchange.getToken());
+            }
+            exchange.noContent();
+        });
+        server.route("GET", "/api/me", exchange -> exchange.send(200, json -> ApiJson.agent(json, exchange.getAgent())));
+
+        server.route("GET", "/api/agents", exchange -> exchange.stream(json ->
+                writePages(json, agentController::listAgentsPage, Agent::getIdAgent, ApiJson::agent)));
+        server.route("GET", "/api/agents/{id}", exchange -> {
+            Agent agent = agentController.getAgent(exchange.pathInt("id"));
+            exchange.send(200, json -> ApiJson.agent(json, agent));
+        });
+        server.route("POST", "/api/agents", exchange -> {
+            Agent agent = agentController.createAgent(exchange.bodyString("nom", true), exchange.bodyString("prenom", true),
+                    exchange.bodyString("email", true), exchange.bodyString("motDePasse", true),
+                    exchange.bodyEnum("typeAgent", TypeAgent.class), exchange.bodyInt("departementId", false));
+            exchange.send(201, json -> ApiJson.agent(json, agent));
+        });
+        server.route("PUT", "/api/agents/{id}", exchange -> {
+            Agent agent = agentController.updateAgent(exchange.pathInt("id"), exchange.bodyString("nom", true),
+                    exchange.bodyString("prenom", true), exchange.bodyString("email", true),
+                    exchange.bodyString("motDePasse", true), exchange.bodyEnum("typeAgent", TypeAgent.class),
+                    exchange.bodyInt("departementId", false));
+            exchange.send(200, json -> ApiJson.agent(json, agent));
+        });
+        server.route("DELETE", "/api/agents/{id}", exchange -> {
+            agentController.deleteAgent(exchange.pathInt("id"));
+            exchange.noContent();
+        });
+        server.route("GET", "/api/agents/{id}/paiements", exchange -> {
+            List<Paiement> paiements = agentController.listPaymentsForAgent(exchange.pathInt("id"));
+            exchange.send(200, json -> writeList(json, paiements, ApiJson::paiement));
+        });
+
+        server.route("GET", "/api/departements", exchange ->
+                exchange.send(200, json -> writeList(json, departementController.listDepartements(), ApiJson::departement)));
+        server.route("GET", "/api/departements/{id}", exchange -> {
+            Departement departement = departementController.getDepartement(exchange.pathInt("id"));
+            exchange.send(200, json -> ApiJson.departement(json, departement));
+        });
+        server.route("POST", "/api/departements", exchange -> {
+            Departement departement = departementController.createDepartement(exchange.bodyString("nom", true),
+                    exchange.bodyInt("responsableId", false));
+            exchange.send(201, json -> ApiJson.departement(json, departement));
+        });
+        server.route("PUT", "/api/departements/{id}", exchange -> {
+            Departement departement = departementController.updateDepartement(exchange.pathInt("id"),
+                    exchange.bodyString("nom", true), exchange.bodyInt("responsableId", false));
+            exchange.send(200, json -> ApiJson.departement(json, departement));
+        });
+        server.route("DELETE", "/api/departements/{id}", exchange -> {
+            Integer reassignTo = exchange.queryInt("reassignTo", null);
+            if (reassignTo == null) {
+                departementController.deleteDepartement(exchange.pathInt("id"));
+            } else {
+                departementController.deleteDepartement(exchange.pathInt("id"), reassignTo);
+            }
+            exchange.noContent();
+        });
+        server.route("GET", "/api/departements/{id}/agents", exchange -> {
+            List<Agent> agents = departementController.listAgents(exchange.pathInt("id"));
+            exchange.send(200, json -> writeList(json, agents, ApiJson::agent));
+        });
+        server.route("GET", "/api/departements/{id}/paiements", exchange -> {
+            List<Paiement> paiements = departementController.listPayments(exchange.pathInt("id"));
+            exchange.send(200, json -> writeList(json, paiements, ApiJson::paiement));
+        });
+
+        server.route("GET", "/api/paiements", this::listPaiements);
+        server.route("GET", "/api/paiements/{id}", exchange -> {
+            Paiement paiement = paiementController.getPaiement(exchange.pathInt("id"));
+            exchange.send(200, json -> ApiJson.paiement(json, paiement));
+        });
+        server.route("POST", "/api/paiements", exchange -> {
+            Paiement paiement = paiementController.createPaiement(exchange.bodyInt("agentId", true),
+                    exchange.bodyEnum("type", TypePaiement.class), exchange.bodyDouble("montant"),
+                    exchange.bodyString("motif", false), exchange.bodyBoolean("conditionValidee", false),
+                    exchange.bodyDate("date", LocalDate.now()));
+            exchange.send(201, json -> ApiJson.paiement(json, paiement));
+        });
+        server.route("PUT", "/api/paiements/{id}", exchange -> {
+            Paiement paiement = paiementController.updatePaiement(exchange.pathInt("id"),
+                    exchange.bodyEnum("type", TypePaiement.class), exchange.bodyDouble("montant"),
+                    exchange.bodyString("motif", false), exchange.bodyBoolean("conditionValidee", false),
+                    //no date keeps the stored one
+                    exchange.bodyDate("date", null));
+            exchange.send(200, json -> ApiJson.paiement(json, paiement));
+        });
+        server.route("DELETE", "/api/paiements/{id}", exchange -> {
+            paiementController.deletePaiement(exchange.pathInt("id"));
+            exchange.noContent();
+        });
+
+        server.route("GET", "/api/statistics/overview", this::overview);
+        server.route("GET", "/api/statistics/distribution", exchange -> {
+            Map<TypePaiement, Long> distribution = statisticsController.paymentDistribution();
+            exchange.send(200, json -> writeDistribution(json, distribution));
+        });
+        server.route("GET", "/api/statistics/ranking", exchange -> {
+            List<AgentTotal> ranking = statisticsController.rankAgentsByTotalPayments(
+                    exchange.queryInt("page", 0), exchange.queryInt("size", 20));
+            exchange.send(200, json -> writeList(json, ranking, ApiJson::agentTotal));
+        });
+        server.route("GET", "/api/statistics/agents/{id}", exchange -> {
+            int agentId = exchange.pathInt("id");
+            int year = exchange.queryInt("year", LocalDate.now().getYear());
+            double annualTotal = statisticsController.getAnnualTotalForAgent(agentId, year);
+            Optional<Paiement> highest = statisticsController.highestPaymentForAgent(agentId);
+            exchange.send(200, json -> {
+                json.beginObject()
+                        .name("agentId").value(agentId)
+                        .name("year").value(year)
+                        .name("annualTotal").value(annualTotal)
+                        .name("highestPayment");
+                if (highest.isPresent()) {
+                    ApiJson.paiement(json, highest.get());
+                } else {
+                    json.nullValue();
+                }
+                json.endObject();
+            });
+        });
+        server.route("GET", "/api/statistics/departements/{id}", exchange -> {
+            int departementId = exchange.pathInt("id");
+            double total = statisticsController.departmentTotal(departementId);
+            double average = statisticsController.departmentAverageSalary(departementId);
+            double median = statisticsController.departmentMedianSalary(departementId);
+            exchange.send(200, json -> json.beginObject()
+                    .name("departementId").value(departementId)
+                    .name("total").value(total)
+                    .name("averageSalary").value(average)
+                    .name("medianSalary").value(median)
+                    .endObject());
+        });
+        server.route("GET", "/api/statistics/anomalies", exchange -> {
+            List<PaymentAnomaly> anomalies = statisticsController.recentAnomalies();
+            exchange.send(200, json -> writeList(json, anomalies, ApiJson::anomaly));
+        });
+    }
+
+    //?type=SALAIRE or ?start=2024-01-01&end=2024-12-31, otherwise every payment
+    private void listPaiements(ApiExchange exchange) throws Exception {
+        TypePaiement type = exchange.queryEnum("type", TypePaiement.class);
+        LocalDate start = exchange.queryDate("start");
+        LocalDate end = exchange.queryDate("end");
+        Page<Paiement> page;
+        if (type != null) {
+            page = (afterId, limit) -> paiementController.listPaiementsPageByType(type, afterId, limit);
+        } else if (start != null || end != null) {
+            if (start == null || end == null || end.isBefore(start)) {
+                throw new IllegalArgumentException("start et end sont requis ensemble, start <= end");
+            }
+            page = (afterId, limit) -> paiementController.listPaiementsPageByDateRange(start, end, afterId, limit);
+        } else {
+            page = paiementController::listPaiementsPage;
+        }
+        exchange.stream(json -> writePages(json, page, Paiement::getIdPaiement, ApiJson::paiement));
+    }
+
+    //the four figures are independent, they are computed concurrently
+    private void overview(ApiExchange exchange) throws IOException {
+        CompletableFuture<Double> total = statisticsController.globalPaymentsTotalAsync();
+        CompletableFuture<Long> agents = statisticsController.totalAgentsAsync();
+        CompletableFuture<Long> departements = statisticsController.totalDepartementsAsync();
+        CompletableFuture<Map<TypePaiement, Long>> distribution = statisticsController.paymentDistributionAsync();
+        CompletableFuture.allOf(total, agents, departements, distribution).join();
+        exchange.send(200, json -> {
+            json.beginObject()
+                    .name("globalTotal").value(total.join())
+                    .name("agents").value(agents.join())
+                    .name("departements").value(departements.join())
+                    .name("distribution");
+            writeDistribution(json, distribution.join());
+            json.endObject();
+        });
+    }
+
+    //keyset pages of pageSize rows, each written before the next one is loaded
+    private <T> void writePages(JsonWriter json, Page<T> page, IdOf<T> idOf, ItemWriter<T> writer) throws IOException {
+        json.beginArray();
+        int afterId = 0;
+        while (true) {
+            List<T> items = page.load(afterId, pageSize);
+            for (T item : items) {
+                writer.write(json, item);
+            }
+            if (items.size() < pageSize) {
+                break;
+            }
+            afterId = idOf.id(items.get(items.size() - 1));
+            json.flush();
+        }
+        json.endArray();
+    }
+
+    private static <T> void writeList(JsonWriter json, List<T> items, ItemWriter<T> writer) throws IOException {
+        json.beginArray();
+        for (T item : items) {
+            writer.write(json, item);
+        }
+        json.endArray();
+    }
+
+    private static void writeDistribution(JsonWriter json, Map<TypePaiement, Long> distribution) throws IOException {
+        json.beginObject();
+        for (Map.Entry<TypePaiement, Long> entry : distribution.entrySet()) {
+            json.name(entry.getKey().name()).value(entry.getValue());
+        }
+        json.endObject();
+    }
+
+    private interface Page<T> {
+        List<T> load(int afterId, int limit);
+    }
+
+    private interface IdOf<T> {
+        int id(T item);
+    }
+
+    private interface ItemWriter<T> {
+        void write(JsonWriter json, T item) throws IOException;
+    }
+}
@@ -0,0 +1,220 @@
+package src.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import src.controllers.AuthController;
+import src.exceptions.AgentNotFoundException;
+import src.exceptions.ApiException;
+import src.exceptions.AuthenticationException;
+import src.exceptions.DepartementNotFoundException;
+import src.exceptions.InvalidPaymentConditionException;
+import src.exceptions.NegativeAmountException;
+import src.exceptions.PaiementNotFoundException;
+import src.exceptions.TooManyAttemptsException;
+import src.models.Agent;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+//JSON API on the JDK's built-in HTTP server. requests run on the given executor (a virtual thread each when
+//available), are routed on method and path, authenticated with a session token or HTTP Basic and timed per route
+public class ApiServer {
+    private static final Logger logger = Logger.getLogger(ApiServer.class.getName());
+
+    private final HttpServer server;
+    private final AuthController authController;
+    private final RequestMetrics metrics;
+    private final int maxBodyBytes;
+    private final List<Route> routes = new ArrayList<>();
+
+    public ApiServer(String host, int port, Executor executor, AuthController authController,
+                     RequestMetrics metrics, int maxBodyBytes) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.authController = authController;
+        this.metrics = metrics;
+        this.maxBodyBytes = maxBodyBytes;
+        server.setExecutor(executor);
+        server.createContext("/", this::dispatch);
+    }
+
+    //pattern segments in braces are path parameters, e.g. /api/agents/{id}
+    public void route(String method, String pattern, Handler handler) {
+        routes.add(new Route(method, pattern, handler, true));
+    }
+
+    public void publicRoute(String method, String pattern, Handler handler) {
+        routes.add(new Route(method, pattern, handler, false));
+    }
+
+    public void start() {
+        server.start();
+        logger.info("API listening on " + server.getAddress());
+    }
+
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+    }
+
+    public RequestMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void dispatch(HttpExchange httpExchange) {
+        long start = System.nanoTime();
+        String[] segments = split(httpExchange.getRequestURI().getPath());
+        String method = httpExchange.getRequestMethod();
+        Route matched = null;
+        Map<String, String> parameters = null;
+        boolean pathKnown = false;
+        for (Route route : routes) {
+            Map<String, String> candidate = route.match(segments);
+            if (candidate != null) {
+                pathKnown = true;
+                if (route.method.equals(method)) {
+                    matched = route;
+                    parameters = candidate;
+                    break;
+                }
+            }
+        }
+        ApiExchange exchange = new ApiExchange(httpExchange, parameters == null ? Map.of() : parameters, maxBodyBytes);
+        String routeName = matched == null ? "unmatched" : matched.name;
+        try {
+            if (matched == null) {
+                throw new ApiException(pathKnown ? 405 : 404, pathKnown ? "Méthode non autorisée" : "Ressource inconnue");
+            }
+            if (matched.authenticated) {
+                exchange.setAgent(authenticate(exchange));
+            }
+            matched.handler.handle(exchange);
+        } catch (Exception e) {
+            fail(exchange, e);
+        } finally {
+            httpExchange.close();
+            metrics.record(routeName, exchange.getStatus(), System.nanoTime() - start);
+        }
+    }
+
+    //a session token from /api/auth/login (Bearer) is one map lookup, Basic checks the credentials every time
+    private Agent authenticate(ApiExchange exchange) throws AuthenticationException {
+        String header = exchange.getHttpExchange().getRequestHeaders().getFirst("Authorization");
+        if (header != null && header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            String token = header.substring(7).trim();
+            Agent agent = authController.authenticateToken(token);
+            exchange.setToken(token);
+            return agent;
+        }
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            throw new AuthenticationException("Authentification requise");
+        }
+        String credentials;
+        try {
+            credentials = new String(Base64.getDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new AuthenticationException("En-tête Authorization invalide");
+        }
+        int separator = credentials.indexOf(':');
+        if (separator < 0) {
+            throw new AuthenticationException("En-tête Authorization invalide");
+        }
+        return authController.authenticate(credentials.substring(0, separator), credentials.substring(separator + 1),
+                exchange.remoteAddress());
+    }
+
+    private void fail(ApiExchange exchange, Exception e) {
+        int status = statusOf(e);
+        if (status == 500) {
+            logger.log(Level.SEVERE, "Request failed: " + exchange.getHttpExchange().getRequestURI(), e);
+        }
+        if (exchange.isCommitted()) {
+            //a streamed body already went out with its status, the client sees it cut short
+            return;
+        }
+        if (e instanceof TooManyAttemptsException) {
+            exchange.getHttpExchange().getResponseHeaders().set("Retry-After",
+                    String.valueOf(((TooManyAttemptsException) e).getRetryAfterSeconds()));
+        }
+        if (status == 401) {
+            exchange.getHttpExchange().getResponseHeaders().add("WWW-Authenticate", "Bearer realm=\"FlowPay\"");
+            exchange.getHttpExchange().getResponseHeaders().add("WWW-Authenticate", "Basic realm=\"FlowPay\"");
+        }
+        String message = status == 500 ? "Erreur interne" : e.getMessage();
+        try {
+            exchange.send(status, json -> json.beginObject().name("error").value(message).endObject());
+        } catch (IOException io) {
+            logger.log(Level.FINE, "Could not send error response", io);
+        }
+    }
+
+    private static int statusOf(Exception e) {
+        if (e instanceof ApiException) {
+            return ((ApiException) e).getStatus();
+        }
+        if (e instanceof AgentNotFoundException || e instanceof DepartementNotFoundException
+                || e instanceof PaiementNotFoundException) {
+            return 404;
+        }
+        if (e instanceof TooManyAttemptsException) {
+            return 429;
+        }
+        if (e instanceof AuthenticationException) {
+            return 401;
+        }
+        if (e instanceof IllegalArgumentException || e instanceof NegativeAmountException
+                || e instanceof InvalidPaymentConditionException) {
+            return 400;
+        }
+        return 500;
+    }
+
+    private static String[] split(String path) {
+        String trimmed = path.replaceAll("^/+|/+$", "");
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("/+");
+    }
+
+    public interface Handler {
+        void handle(ApiExchange exchange) throws Exception;
+    }
+
+    private static final class Route {
+        private final String method;
+        private final String name;
+        private final String[] segments;
+        private final Handler handler;
+        private final boolean authenticated;
+
+        private Route(String method, String pattern, Handler handler, boolean authenticated) {
+            this.method = method;
+            this.name = method + " " + pattern;
+            this.segments = split(pattern);
+            this.handler = handler;
+            this.authenticated = authenticated;
+        }
+
+        //path parameters by name, null when the path does not fit the pattern
+        private Map<String, String> match(String[] path) {
+            if (path.length != segments.length) {
+                return null;
+            }
+            Map<String, String> parameters = new HashMap<>();
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    parameters.put(segment.substring(1, segment.length() - 1), path[i]);
+                } else if (!segment.equals(path[i])) {
+                    return null;
+                }
+            }
+            return parameters;
+        }
+    }
+}
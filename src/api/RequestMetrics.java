@@ -0,0 +1,71 @@
+package src.api;
+
+import src.services.sketch.QuantileSketch;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//request count, errors and latency quantiles per route since the server started
+public class RequestMetrics {
+    private final int sketchK;
+    private final ConcurrentHashMap<String, Route> routes = new ConcurrentHashMap<>();
+
+    public RequestMetrics(int sketchK) {
+        this.sketchK = sketchK;
+    }
+
+    public void record(String route, int status, long nanos) {
+        Route metrics = routes.computeIfAbsent(route, name -> new Route(new QuantileSketch(sketchK)));
+        metrics.count.increment();
+        if (status >= 500) {
+            metrics.serverErrors.increment();
+        } else if (status >= 400) {
+            metrics.clientErrors.increment();
+        }
+        synchronized (metrics.latencies) {
+            metrics.latencies.add(nanos / 1_000_000.0);
+        }
+    }
+
+    //latencies in milliseconds, routes in name order
+    public void write(JsonWriter json) throws IOException {
+        json.beginObject();
+        for (Map.Entry<String, Route> entry : new TreeMap<>(routes).entrySet()) {
+            Route metrics = entry.getValue();
+            double p50;
+            double p90;
+            double p99;
+            double max;
+            synchronized (metrics.latencies) {
+                p50 = metrics.latencies.quantile(0.5);
+                p90 = metrics.latencies.quantile(0.9);
+                p99 = metrics.latencies.quantile(0.99);
+                max = metrics.latencies.quantile(1);
+            }
+            json.name(entry.getKey()).beginObject()
+                    .name("count").value(metrics.count.sum())
+                    .name("clientErrors").value(metrics.clientErrors.sum())
+                    .name("serverErrors").value(metrics.serverErrors.sum())
+                    .name("p50Ms").value(p50)
+                    .name("p90Ms").value(p90)
+                    .name("p99Ms").value(p99)
+                    .name("maxMs").value(max)
+                    .endObject();
+        }
+        json.endObject();
+    }
+
+    private static final class Route {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+        private final QuantileSketch latencies;
+
+        private Route(QuantileSketch latencies) {
+            this.latencies = latencies;
+        }
+    }
+}
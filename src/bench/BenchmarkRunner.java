@@ -0,0 +1,203 @@
+package src.bench;
+
+import src.api.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+//a small stand-in for JMH: timed warmup and measurement iterations of one operation in a loop, its results fed to a
+//blackhole, reported as average time per operation with a 99.9% confidence interval, and written in the JSON
+//layout of JMH's -rf json so the usual tooling can compare two runs.
+//everything runs in this JVM (forks = 0): results are comparable between runs of the same suite, less so between
+//benchmarks of one run, whose profiles share the JIT
+public final class BenchmarkRunner {
+    //two-sided 99.9% Student t quantiles for 1..30 degrees of freedom, as JMH reports its score error
+    private static final double[] T_999 = {
+            636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+            4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+            3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646};
+    private static final double[] PERCENTILES = {0.0, 50.0, 90.0, 95.0, 99.0, 99.9, 99.99, 99.9999, 100.0};
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationMs;
+    private final Blackhole blackhole = new Blackhole();
+    private final List<Result> results = new ArrayList<>();
+
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMs) {
+        if (warmupIterations < 0 || measurementIterations <= 0 || iterationMs <= 0) {
+            throw new IllegalArgumentException("iterations and iteration time must be positive");
+        }
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationMs = iterationMs;
+    }
+
+    public Result run(String name, Map<String, String> params, Operation operation) throws Exception {
+        System.gc();
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(operation);
+        }
+        double[] scores = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            scores[i] = iteration(operation);
+        }
+        Result result = new Result(name, params, scores);
+        results.add(result);
+        System.err.printf(Locale.ROOT, "%-60s %s %14.3f ± %.3f us/op%n", name, params, result.score(), result.error());
+        return result;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    //microseconds per operation over one iteration; the loop stops on a flag raised by a timer thread,
+    //so the clock is read twice per iteration instead of once per operation
+    private double iteration(Operation operation) throws Exception {
+        Deadline deadline = new Deadline(iterationMs);
+        long operations = 0;
+        long start = System.nanoTime();
+        deadline.start();
+        do {
+            blackhole.consume(operation.run());
+            operations++;
+        } while (!deadline.reached);
+        long elapsed = System.nanoTime() - start;
+        deadline.join();
+        return elapsed / 1000.0 / operations;
+    }
+
+    public void writeJson(Writer out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.beginArray();
+        for (Result result : results) {
+            json.beginObject()
+                    .name("benchmark").value(result.name)
+                    .name("mode").value("avgt")
+                    .name("threads").value(1)
+                    .name("forks").value(0)
+                    .name("jvm").value(System.getProperty("java.home"))
+                    .name("jdkVersion").value(System.getProperty("java.version"))
+                    .name("vmName").value(System.getProperty("java.vm.name"))
+                    .name("vmVersion").value(System.getProperty("java.vm.version"))
+                    .name("warmupIterations").value(warmupIterations)
+                    .name("warmupTime").value(iterationMs + " ms")
+                    .name("measurementIterations").value(measurementIterations)
+                    .name("measurementTime").value(iterationMs + " ms")
+                    .name("params").beginObject();
+            for (Map.Entry<String, String> param : result.params.entrySet()) {
+                json.name(param.getKey()).value(param.getValue());
+            }
+            json.endObject()
+                    .name("primaryMetric").beginObject()
+                    .name("score").value(result.score())
+                    .name("scoreError").value(result.error())
+                    .name("scoreConfidence").beginArray()
+                    .value(result.score() - result.error())
+                    .value(result.score() + result.error())
+                    .endArray()
+                    .name("scorePercentiles").beginObject();
+            for (double percentile : PERCENTILES) {
+                json.name(String.valueOf(percentile)).value(result.percentile(percentile));
+            }
+            json.endObject()
+                    .name("scoreUnit").value("us/op")
+                    .name("rawData").beginArray().beginArray();
+            for (double score : result.scores) {
+                json.value(score);
+            }
+            json.endArray().endArray()
+                    .endObject()
+                    .name("secondaryMetrics").beginObject().endObject()
+                    .endObject();
+        }
+        json.endArray();
+        json.flush();
+    }
+
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    public static final class Result {
+        private final String name;
+        private final Map<String, String> params;
+        private final double[] scores;
+
+        private Result(String name, Map<String, String> params, double[] scores) {
+            this.name = name;
+            this.params = new LinkedHashMap<>(params);
+            this.scores = scores;
+        }
+
+        public double score() {
+            return Arrays.stream(scores).average().orElse(Double.NaN);
+        }
+
+        //half-width of the 99.9% confidence interval, NaN with a single iteration
+        public double error() {
+            int n = scores.length;
+            if (n < 2) {
+                return Double.NaN;
+            }
+            double mean = score();
+            double squares = 0;
+            for (double score : scores) {
+                squares += (score - mean) * (score - mean);
+            }
+            double t = n - 1 <= T_999.length ? T_999[n - 2] : 3.291;
+            return t * Math.sqrt(squares / (n - 1)) / Math.sqrt(n);
+        }
+
+        private double percentile(double percentile) {
+            double[] sorted = scores.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    //keeps the JIT from dropping work whose result is unused: results are mixed into a field that is only
+    //published now and then, at the cost of a multiply-add per operation (JMH's Blackhole.consume(Object))
+    static final class Blackhole {
+        private int random = (int) System.nanoTime();
+        private int mask = 1;
+        private volatile Object sink;
+
+        void consume(Object value) {
+            random = random * 1664525 + 1013904223;
+            if ((random & mask) == 0) {
+                sink = value;
+                mask = (mask << 1) + 1;
+            }
+        }
+    }
+
+    private static final class Deadline extends Thread {
+        private final long millis;
+        private volatile boolean reached;
+
+        private Deadline(long millis) {
+            super("flowpay-bench-timer");
+            setDaemon(true);
+            this.millis = millis;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            reached = true;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package src.bench;
+
+import src.models.Agent;
+import src.models.Departement;
+import src.models.Paiement;
+import src.models.TypeAgent;
+import src.models.TypePaiement;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+//a reproducible company: departements, agents and payments spread over the last two years, generated from a
+//seed into the in-memory DAOs. one agent per 100 payments and one departement per 50 agents, so the shape of
+//the data stays the same from 10k to 10M payments
+public final class Dataset {
+    private static final int DAYS = 730;
+    private static final String[] MOTIFS = {"Salaire mensuel", "Prime trimestrielle", "Bonus annuel", "Indemnité de déplacement"};
+
+    private final InMemoryDepartementDAO departementDAO = new InMemoryDepartementDAO();
+    private final InMemoryAgentDAO agentDAO = new InMemoryAgentDAO();
+    private final InMemoryPaiementDAO paiementDAO = new InMemoryPaiementDAO(agentDAO);
+    private final int payments;
+    private final LocalDate firstDay;
+
+    private Dataset(int payments, LocalDate firstDay) {
+        this.payments = payments;
+        this.firstDay = firstDay;
+    }
+
+    public static Dataset generate(int payments, long seed) {
+        if (payments <= 0) {
+            throw new IllegalArgumentException("payments must be positive");
+        }
+        Dataset dataset = new Dataset(payments, LocalDate.now().minusDays(DAYS));
+        dataset.fill(new SplittableRandom(seed));
+        return dataset;
+    }
+
+    private void fill(SplittableRandom random) {
+        int agentCount = Math.max(10, payments / 100);
+        int departementCount = Math.max(2, agentCount / 50);
+        Departement[] departements = new Departement[departementCount];
+        for (int i = 0; i < departementCount; i++) {
+            departements[i] = departementDAO.save(new Departement("Département " + (i + 1)));
+        }
+        for (int i = 0; i < agentCount; i++) {
+            Agent agent = new Agent("Nom" + i, "Prénom" + i, "agent" + i + "@flowpay.com", "password", agentType(random));
+            //one agent in twenty has no departement, as in a real table
+            if (random.nextInt(20) != 0) {
+                agent.setDepartement(departements[random.nextInt(departementCount)]);
+            }
+            agentDAO.save(agent);
+        }
+        //LocalDate instances shared between payments, the heap holds 10M rows more easily
+        LocalDate[] days = new LocalDate[DAYS];
+        for (int i = 0; i < DAYS; i++) {
+            days[i] = firstDay.plusDays(i);
+        }
+        for (int i = 0; i < payments; i++) {
+            TypePaiement type = paymentType(random);
+            Paiement paiement = new Paiement(type, montant(type, random), MOTIFS[type.ordinal()], null);
+            paiement.setAgentId(1 + random.nextInt(agentCount));
+            paiement.setDate(days[random.nextInt(DAYS)]);
+            paiement.setConditionValidee(type == TypePaiement.BONUS || type == TypePaiement.INDEMNITE);
+            paiementDAO.save(paiement);
+        }
+    }
+
+    public InMemoryDepartementDAO getDepartementDAO() {
+        return departementDAO;
+    }
+
+    public InMemoryAgentDAO getAgentDAO() {
+        return agentDAO;
+    }
+
+    public InMemoryPaiementDAO getPaiementDAO() {
+        return paiementDAO;
+    }
+
+    public int getPayments() {
+        return payments;
+    }
+
+    public int getAgents() {
+        return (int) agentDAO.count();
+    }
+
+    public int getDepartements() {
+        return (int) departementDAO.count();
+    }
+
+    public LocalDate getFirstDay() {
+        return firstDay;
+    }
+
+    private static TypeAgent agentType(SplittableRandom random) {
+        int draw = random.nextInt(100);
+        if (draw < 70) {
+            return TypeAgent.OUVRIER;
+        }
+        if (draw < 82) {
+            return TypeAgent.RESPONSABLE_DEPARTEMENT;
+        }
+        if (draw < 85) {
+            return TypeAgent.DIRECTEUR;
+        }
+        return TypeAgent.STAGIAIRE;
+    }
+
+    private static TypePaiement paymentType(SplittableRandom random) {
+        int draw = random.nextInt(100);
+        if (draw < 70) {
+            return TypePaiement.SALAIRE;
+        }
+        if (draw < 85) {
+            return TypePaiement.PRIME;
+        }
+        if (draw < 95) {
+            return TypePaiement.BONUS;
+        }
+        return TypePaiement.INDEMNITE;
+    }
+
+    //amounts in cents, as stored in DECIMAL(10,2)
+    private static double montant(TypePaiement type, SplittableRandom random) {
+        long cents = switch (type) {
+            case SALAIRE -> 80000 + random.nextLong(520000);
+            case PRIME -> 5000 + random.nextLong(95000);
+            case BONUS -> 10000 + random.nextLong(190000);
+            case INDEMNITE -> 2000 + random.nextLong(48000);
+        };
+        return cents / 100.0;
+    }
+}
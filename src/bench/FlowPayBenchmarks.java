@@ -0,0 +1,290 @@
+package src.bench;
+
+import src.config.ConfigDBConn;
+import src.dao.AgentDAO;
+import src.dao.PaiementDAO;
+import src.exceptions.NegativeAmountException;
+import src.models.AggregateDimension;
+import src.models.Agent;
+import src.models.Paiement;
+import src.models.PaiementCriteria;
+import src.models.TypePaiement;
+import src.services.DataChangeNotifier;
+import src.services.PaiementService;
+import src.services.PaymentAnomalyDetector;
+import src.services.PaymentCube;
+import src.services.PaymentSketches;
+import src.services.StatisticsService;
+
+import java.io.FileWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+//benchmark suite: the DAOs' row mapping, every StatisticsService method and the PaiementService.createPaiement
+//validation path, on generated in-memory datasets. run after compiling the sources as for the application:
+//
+//    java -Xmx8g -cp ".:lib/mysql-connector-j-8.0.33.jar" src.bench.FlowPayBenchmarks \
+//        -p payments=10000,1000000,10000000 -wi 3 -i 5 -r 1000 -rff results.json [regex]
+//
+//-p payments: dataset sizes, -wi / -i: warmup and measurement iterations, -r: milliseconds per iteration,
+//-rff: JSON results file (stdout otherwise), regex: only the benchmarks whose name it matches
+public final class FlowPayBenchmarks {
+    private static final long SEED = 42;
+    private static final int SAMPLE = 1024;
+    private static final String[] PAIEMENT_COLUMNS = {"id", "type", "montant", "date_paiement", "motif", "agent_id", "condition_validee"};
+    private static final String[] AGENT_COLUMNS = {"id", "nom", "prenom", "email", "mot_de_passe", "type_agent", "departement_id", "departement_nom"};
+    //the DAOs' private mappers, constant handles so that the JIT inlines them like a direct call
+    private static final MethodHandle MAP_PAIEMENT = mapper(PaiementDAO.class, "mapResultSetToPaiement", Paiement.class);
+    private static final MethodHandle MAP_AGENT = mapper(AgentDAO.class, "mapResultSetToAgent", Agent.class);
+
+    private FlowPayBenchmarks() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> sizes = List.of(10000);
+        int warmupIterations = 3;
+        int measurementIterations = 5;
+        long iterationMs = 1000;
+        String resultFile = null;
+        Pattern include = Pattern.compile(".*");
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-p" -> sizes = parseSizes(args[++i]);
+                case "-wi" -> warmupIterations = Integer.parseInt(args[++i]);
+                case "-i" -> measurementIterations = Integer.parseInt(args[++i]);
+                case "-r" -> iterationMs = Long.parseLong(args[++i]);
+                case "-rff" -> resultFile = args[++i];
+                default -> include = Pattern.compile(args[i]);
+            }
+        }
+
+        //services open their transaction through the pool whatever DAOs they use: give it connections that do nothing
+        System.setProperty("db.driver", NoopDriver.class.getName());
+        System.setProperty("db.url", NoopDriver.URL);
+        System.setProperty("db.pool.minSize", "1");
+        System.setProperty("db.tx.isolation", "");
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmupIterations, measurementIterations, iterationMs);
+        try {
+            Dataset sample = Dataset.generate(SAMPLE * 10, SEED);
+            runMapping(runner, include, sample);
+            for (int size : sizes) {
+                System.err.println("# generating " + size + " payments");
+                Dataset dataset = Dataset.generate(size, SEED);
+                Map<String, String> params = Map.of("payments", String.valueOf(size));
+                runStatistics(runner, include, params, dataset);
+                runPaiementService(runner, include, params, dataset);
+            }
+        } finally {
+            ConfigDBConn.shutdown();
+        }
+
+        try (Writer out = resultFile != null
+                ? new FileWriter(resultFile, StandardCharsets.UTF_8)
+                : new OutputStreamWriter(System.out, StandardCharsets.UTF_8)) {
+            runner.writeJson(out);
+            out.write(System.lineSeparator());
+        }
+    }
+
+    private static void runMapping(BenchmarkRunner runner, Pattern include, Dataset dataset) throws Exception {
+        List<Object[]> paiementRows = new ArrayList<>();
+        for (Paiement paiement : dataset.getPaiementDAO().findPage(0, SAMPLE)) {
+            paiementRows.add(new Object[]{paiement.getIdPaiement(), paiement.getType().name(), paiement.getMontant(),
+                    Date.valueOf(paiement.getDate()), paiement.getMotif(), paiement.getAgentId(), paiement.isConditionValidee()});
+        }
+        List<Object[]> agentRows = new ArrayList<>();
+        for (Agent agent : dataset.getAgentDAO().findPage(0, SAMPLE)) {
+            agentRows.add(new Object[]{agent.getIdAgent(), agent.getNom(), agent.getPrenom(), agent.getEmail(),
+                    agent.getMotDePasse(), agent.getTypeAgent().name(),
+                    agent.getDepartement() == null ? null : agent.getDepartement().getIdDepartement(),
+                    agent.getDepartement() == null ? null : agent.getDepartement().getNom()});
+        }
+        PaiementDAO paiementDAO = new PaiementDAO();
+        AgentDAO agentDAO = new AgentDAO();
+        ResultSet paiements = RowResultSet.over(PAIEMENT_COLUMNS, paiementRows);
+        ResultSet agents = RowResultSet.over(AGENT_COLUMNS, agentRows);
+        Map<String, String> params = Map.of();
+        bench(runner, include, "dao.PaiementDAO.mapResultSetToPaiement", params, () -> {
+            paiements.next();
+            return mapPaiement(paiementDAO, paiements);
+        });
+        bench(runner, include, "dao.AgentDAO.mapResultSetToAgent", params, () -> {
+            agents.next();
+            return mapAgent(agentDAO, agents);
+        });
+    }
+
+    private static void runStatistics(BenchmarkRunner runner, Pattern include, Map<String, String> params, Dataset dataset)
+            throws Exception {
+        //wired as in App, the listeners subscribed to the notifier the services would publish to
+        DataChangeNotifier notifier = new DataChangeNotifier();
+        PaymentAnomalyDetector anomalyDetector = new PaymentAnomalyDetector(dataset.getPaiementDAO(),
+                Double.parseDouble(ConfigDBConn.getProperty("statistics.anomaly.sigmas", "3")),
+                ConfigDBConn.getIntProperty("statistics.anomaly.minSamples", 5),
+                ConfigDBConn.getIntProperty("statistics.anomaly.recentLimit", 500));
+        notifier.subscribe(anomalyDetector);
+        PaymentSketches paymentSketches = new PaymentSketches(dataset.getPaiementDAO(), dataset.getAgentDAO(),
+                ConfigDBConn.getIntProperty("statistics.sketch.quantileK", 200),
+                ConfigDBConn.getIntProperty("statistics.sketch.distinctPrecision", 12));
+        notifier.subscribe(paymentSketches);
+        PaymentCube paymentCube = new PaymentCube(dataset.getPaiementDAO(), dataset.getAgentDAO(), notifier,
+                ConfigDBConn.getLongProperty("statistics.cube.maxAgeMs", 60000));
+        notifier.subscribe(paymentCube);
+        StatisticsService statistics = new StatisticsService(dataset.getPaiementDAO(), dataset.getAgentDAO(),
+                dataset.getDepartementDAO(), null, null, anomalyDetector, paymentSketches, paymentCube);
+        Cycle agents = new Cycle(dataset.getAgents());
+        Cycle departements = new Cycle(dataset.getDepartements());
+        int year = LocalDate.now().getYear();
+        LocalDate monthAgo = LocalDate.now().minusDays(30);
+        String prefix = "services.StatisticsService.";
+
+        bench(runner, include, prefix + "getAnnualTotalForAgent", params, () -> statistics.getAnnualTotalForAgent(agents.next(), year));
+        bench(runner, include, prefix + "countPaymentsByType", params, () -> statistics.countPaymentsByType(agents.next(), TypePaiement.SALAIRE));
+        bench(runner, include, prefix + "getHighestPaymentForAgent", params, () -> statistics.getHighestPaymentForAgent(agents.next()));
+        bench(runner, include, prefix + "getDepartmentTotal", params, () -> statistics.getDepartmentTotal(departements.next()));
+        bench(runner, include, prefix + "getDepartmentAverageSalary", params, () -> statistics.getDepartmentAverageSalary(departements.next()));
+        bench(runner, include, prefix + "getDepartmentMedianSalary", params, () -> statistics.getDepartmentMedianSalary(departements.next()));
+        bench(runner, include, prefix + "getPaymentPercentile", params,
+                () -> statistics.getPaymentPercentile(new PaiementCriteria().type(TypePaiement.PRIME), 90));
+        bench(runner, include, prefix + "countDistinctPaidAgents", params,
+                () -> statistics.countDistinctPaidAgents(new PaiementCriteria().year(year)));
+        bench(runner, include, prefix + "pivot", params,
+                () -> statistics.pivot(new PaiementCriteria().year(year), EnumSet.of(AggregateDimension.DEPARTEMENT, AggregateDimension.TYPE)));
+        bench(runner, include, prefix + "rankAgentsByTotalPayments", params, statistics::rankAgentsByTotalPayments);
+        bench(runner, include, prefix + "topAgentsByTotalPayments", params, () -> statistics.topAgentsByTotalPayments(10));
+        bench(runner, include, prefix + "rankAgentsByTotalPaymentsPage", params, () -> statistics.rankAgentsByTotalPayments(0, 20));
+        bench(runner, include, prefix + "getPaymentDistribution", params, statistics::getPaymentDistribution);
+        bench(runner, include, prefix + "getGlobalPaymentsTotal", params, statistics::getGlobalPaymentsTotal);
+        bench(runner, include, prefix + "getTotalAgents", params, statistics::getTotalAgents);
+        bench(runner, include, prefix + "getTotalDepartements", params, statistics::getTotalDepartements);
+        //no payment is that large: the worst case, a full scan
+        bench(runner, include, prefix + "detectUnusualPayment", params, () -> statistics.detectUnusualPayment(Double.MAX_VALUE));
+        bench(runner, include, prefix + "detectAnomalies", params, () -> statistics.detectAnomalies(3.0));
+        bench(runner, include, prefix + "getRecentAnomalies", params, statistics::getRecentAnomalies);
+        bench(runner, include, prefix + "getPaymentsBetween", params, () -> statistics.getPaymentsBetween(monthAgo, LocalDate.now()));
+        bench(runner, include, prefix + "rebuildMonthlySummary", params, statistics::rebuildMonthlySummary);
+    }
+
+    //validation and the transaction around it; the row is numbered and dropped instead of stored, so the
+    //dataset does not grow while the benchmark runs
+    private static void runPaiementService(BenchmarkRunner runner, Pattern include, Map<String, String> params, Dataset dataset)
+            throws Exception {
+        InMemoryPaiementDAO discarding = new InMemoryPaiementDAO(dataset.getAgentDAO()) {
+            private int nextId;
+
+            @Override
+            public Paiement save(Paiement paiement) {
+                paiement.setIdPaiement(++nextId);
+                return paiement;
+            }
+        };
+        PaiementService paiementService = new PaiementService(discarding, dataset.getAgentDAO(), new DataChangeNotifier());
+        Cycle agents = new Cycle(dataset.getAgents());
+        int[] eligible = dataset.getAgentDAO().findAll().stream()
+                .filter(Agent::isEligibleForBonus)
+                .mapToInt(Agent::getIdAgent)
+                .limit(SAMPLE)
+                .toArray();
+        Cycle bonusAgents = new Cycle(eligible);
+        LocalDate today = LocalDate.now();
+        String prefix = "services.PaiementService.";
+
+        bench(runner, include, prefix + "createPaiement", params,
+                () -> paiementService.createPaiement(agents.next(), TypePaiement.SALAIRE, 2500.0, "Salaire mensuel", false, today));
+        if (eligible.length > 0) {
+            bench(runner, include, prefix + "createPaiementBonus", params,
+                    () -> paiementService.createPaiement(bonusAgents.next(), TypePaiement.BONUS, 500.0, "Bonus annuel", true, today));
+        }
+        bench(runner, include, prefix + "createPaiementRejected", params, () -> {
+            try {
+                return paiementService.createPaiement(agents.next(), TypePaiement.PRIME, -10.0, "Prime", false, today);
+            } catch (NegativeAmountException e) {
+                return e;
+            }
+        });
+    }
+
+    private static void bench(BenchmarkRunner runner, Pattern include, String name, Map<String, String> params,
+                              BenchmarkRunner.Operation operation) throws Exception {
+        if (include.matcher(name).find()) {
+            runner.run(name, new LinkedHashMap<>(params), operation);
+        }
+    }
+
+    private static Paiement mapPaiement(PaiementDAO dao, ResultSet rs) throws Exception {
+        try {
+            return (Paiement) MAP_PAIEMENT.invokeExact(dao, rs);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static Agent mapAgent(AgentDAO dao, ResultSet rs) throws Exception {
+        try {
+            return (Agent) MAP_AGENT.invokeExact(dao, rs);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static MethodHandle mapper(Class<?> dao, String name, Class<?> returnType) {
+        try {
+            return MethodHandles.privateLookupIn(dao, MethodHandles.lookup())
+                    .findVirtual(dao, name, MethodType.methodType(returnType, ResultSet.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static List<Integer> parseSizes(String value) {
+        String sizes = value.startsWith("payments=") ? value.substring("payments=".length()) : value;
+        List<Integer> parsed = new ArrayList<>();
+        for (String size : sizes.split(",")) {
+            parsed.add(Integer.parseInt(size.trim()));
+        }
+        return parsed;
+    }
+
+    //the ids an operation works on, drawn once from the dataset and visited in turn so that no single row stays hot
+    private static final class Cycle {
+        private final int[] ids;
+        private int position;
+
+        private Cycle(int count) {
+            SplittableRandom random = new SplittableRandom(SEED);
+            this.ids = new int[Math.min(count, SAMPLE)];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = 1 + random.nextInt(count);
+            }
+        }
+
+        private Cycle(int[] ids) {
+            this.ids = ids;
+        }
+
+        private int next() {
+            position = position + 1 == ids.length ? 0 : position + 1;
+            return ids[position];
+        }
+    }
+}
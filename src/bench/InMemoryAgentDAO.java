@@ -0,0 +1,126 @@
+package src.bench;
+
+import src.dao.interfaces.IAgent;
+import src.models.Agent;
+import src.models.Departement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+//agents held in memory for the benchmarks, indexed the way the agent table is (id, email).
+//not thread-safe: load first, then only read
+public class InMemoryAgentDAO implements IAgent {
+    private final TreeMap<Integer, Agent> agents = new TreeMap<>();
+    private final Map<String, Agent> byEmail = new HashMap<>();
+    private int nextId = 1;
+
+    @Override
+    public Agent save(Agent agent) {
+        agent.setIdAgent(nextId++);
+        agents.put(agent.getIdAgent(), agent);
+        byEmail.put(agent.getEmail(), agent);
+        return agent;
+    }
+
+    @Override
+    public void update(Agent agent) {
+        Agent previous = agents.put(agent.getIdAgent(), agent);
+        if (previous != null) {
+            byEmail.remove(previous.getEmail());
+        }
+        byEmail.put(agent.getEmail(), agent);
+    }
+
+    @Override
+    public void deleteById(int id) {
+        Agent removed = agents.remove(id);
+        if (removed != null) {
+            byEmail.remove(removed.getEmail());
+        }
+    }
+
+    @Override
+    public Optional<Agent> findById(int id) {
+        return Optional.ofNullable(agents.get(id));
+    }
+
+    @Override
+    public List<Agent> findByIds(Collection<Integer> ids) {
+        List<Agent> found = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Agent agent = agents.get(id);
+            if (agent != null) {
+                found.add(agent);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Agent> findAll() {
+        return new ArrayList<>(agents.values());
+    }
+
+    @Override
+    public List<Agent> findPage(int afterId, int limit) {
+        return agents.tailMap(afterId, false).values().stream().limit(limit).toList();
+    }
+
+    @Override
+    public long count() {
+        return agents.size();
+    }
+
+    @Override
+    public Optional<Agent> findByEmail(String email) {
+        return Optional.ofNullable(byEmail.get(email));
+    }
+
+    @Override
+    public List<Agent> findByDepartementId(int departementId) {
+        return agents.values().stream().filter(agent -> departementIdOf(agent) == departementId).toList();
+    }
+
+    @Override
+    public List<Agent> findByTypeAgent(String typeAgent) {
+        return agents.values().stream().filter(agent -> agent.getTypeAgent().name().equals(typeAgent)).toList();
+    }
+
+    @Override
+    public List<Integer> findIdsByDepartementId(int departementId) {
+        return agents.values().stream().filter(agent -> departementIdOf(agent) == departementId).map(Agent::getIdAgent).toList();
+    }
+
+    @Override
+    public int moveDepartementAgents(int fromDepartementId, Integer toDepartementId) {
+        return moveAgents(findIdsByDepartementId(fromDepartementId), toDepartementId);
+    }
+
+    @Override
+    public int moveAgents(Collection<Integer> ids, Integer departementId) {
+        Departement target = null;
+        if (departementId != null) {
+            target = new Departement("");
+            target.setIdDepartement(departementId);
+        }
+        int moved = 0;
+        for (Integer id : ids) {
+            Agent agent = agents.get(id);
+            if (agent != null) {
+                agent.setDepartement(target);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    //0 when the agent has no departement, as the DAOs report it
+    static int departementIdOf(Agent agent) {
+        return agent.getDepartement() != null ? agent.getDepartement().getIdDepartement() : 0;
+    }
+}
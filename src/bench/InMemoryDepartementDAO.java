@@ -0,0 +1,52 @@
+package src.bench;
+
+import src.dao.interfaces.IDepartement;
+import src.models.Departement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+//departements held in memory for the benchmarks, not thread-safe: load first, then only read
+public class InMemoryDepartementDAO implements IDepartement {
+    private final TreeMap<Integer, Departement> departements = new TreeMap<>();
+    private int nextId = 1;
+
+    @Override
+    public Departement save(Departement departement) {
+        departement.setIdDepartement(nextId++);
+        departements.put(departement.getIdDepartement(), departement);
+        return departement;
+    }
+
+    @Override
+    public void update(Departement departement) {
+        departements.put(departement.getIdDepartement(), departement);
+    }
+
+    @Override
+    public void deleteById(int id) {
+        departements.remove(id);
+    }
+
+    @Override
+    public Optional<Departement> findById(int id) {
+        return Optional.ofNullable(departements.get(id));
+    }
+
+    @Override
+    public List<Departement> findAll() {
+        return new ArrayList<>(departements.values());
+    }
+
+    @Override
+    public long count() {
+        return departements.size();
+    }
+
+    @Override
+    public Optional<Departement> findByNom(String nom) {
+        return departements.values().stream().filter(departement -> departement.getNom().equals(nom)).findFirst();
+    }
+}
@@ -0,0 +1,395 @@
+package src.bench;
+
+import src.dao.interfaces.IPaiement;
+import src.models.AggregateDimension;
+import src.models.Agent;
+import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
+import src.models.TypeAgent;
+import src.models.TypePaiement;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+//payments held in memory for the benchmarks. rows sit at index id - 1, so ids are dense and id order is free;
+//the per-agent list plays the agent_id index and the (agent, type, month) cells play paiement_monthly_summary,
+//which is what summarize and aggregate read, as the MySQL DAO does by default.
+//the objects returned are the stored ones, callers must not modify them. not thread-safe: load first, then only read
+public class InMemoryPaiementDAO implements IPaiement {
+    private static final TypePaiement[] TYPES = TypePaiement.values();
+
+    private final InMemoryAgentDAO agentDAO;
+    private final ArrayList<Paiement> rows = new ArrayList<>();
+    private long[] modifiedAtMs = new long[1024];
+    private final Map<Integer, List<Paiement>> byAgent = new HashMap<>();
+    //summary cells per agent, so that agent and departement criteria only visit their own agents' cells
+    private final Map<Integer, Map<Long, Cell>> cellsByAgent = new HashMap<>();
+    private int count;
+
+    public InMemoryPaiementDAO(InMemoryAgentDAO agentDAO) {
+        this.agentDAO = agentDAO;
+    }
+
+    @Override
+    public Paiement save(Paiement paiement) {
+        paiement.setIdPaiement(rows.size() + 1);
+        rows.add(paiement);
+        if (rows.size() > modifiedAtMs.length) {
+            modifiedAtMs = Arrays.copyOf(modifiedAtMs, modifiedAtMs.length * 2);
+        }
+        modifiedAtMs[rows.size() - 1] = System.currentTimeMillis();
+        byAgent.computeIfAbsent(paiement.getAgentId(), id -> new ArrayList<>()).add(paiement);
+        cellOf(paiement).add(paiement.getMontant());
+        count++;
+        return paiement;
+    }
+
+    @Override
+    public List<Paiement> saveAll(Collection<Paiement> paiements) {
+        List<Paiement> saved = new ArrayList<>(paiements.size());
+        for (Paiement paiement : paiements) {
+            saved.add(save(paiement));
+        }
+        return saved;
+    }
+
+    @Override
+    public void update(Paiement paiement) {
+        Paiement before = row(paiement.getIdPaiement());
+        if (before == null) {
+            return;
+        }
+        rows.set(paiement.getIdPaiement() - 1, paiement);
+        modifiedAtMs[paiement.getIdPaiement() - 1] = System.currentTimeMillis();
+        List<Paiement> own = byAgent.get(before.getAgentId());
+        own.replaceAll(existing -> existing == before ? paiement : existing);
+        refreshCell(before);
+        refreshCell(paiement);
+    }
+
+    @Override
+    public void deleteById(int id) {
+        Paiement removed = row(id);
+        if (removed == null) {
+            return;
+        }
+        rows.set(id - 1, null);
+        byAgent.get(removed.getAgentId()).remove(removed);
+        refreshCell(removed);
+        count--;
+    }
+
+    @Override
+    public Optional<Paiement> findById(int id) {
+        return Optional.ofNullable(row(id));
+    }
+
+    @Override
+    public List<Paiement> findAll() {
+        return scan(paiement -> true, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Stream<Paiement> streamAll() {
+        return rows.stream().filter(Objects::nonNull);
+    }
+
+    @Override
+    public Stream<Paiement> streamByIdRange(int fromId, int toIdExclusive) {
+        int from = Math.max(0, Math.min(fromId - 1, rows.size()));
+        int to = Math.max(from, Math.min(toIdExclusive - 1, rows.size()));
+        return rows.subList(from, to).stream().filter(Objects::nonNull);
+    }
+
+    @Override
+    public int findMinId() {
+        return streamAll().findFirst().map(Paiement::getIdPaiement).orElse(0);
+    }
+
+    @Override
+    public int findMaxId() {
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            if (rows.get(i) != null) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public List<Paiement> findByAgentId(int agentId) {
+        return new ArrayList<>(byAgent.getOrDefault(agentId, List.of()));
+    }
+
+    @Override
+    public List<Paiement> findByAgentIds(Collection<Integer> agentIds) {
+        List<Paiement> found = new ArrayList<>();
+        for (Integer agentId : agentIds) {
+            found.addAll(byAgent.getOrDefault(agentId, List.of()));
+        }
+        return found;
+    }
+
+    @Override
+    public List<Paiement> findByType(TypePaiement type) {
+        return scan(paiement -> paiement.getType() == type, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Paiement> findByDateRange(LocalDate startDate, LocalDate endDate) {
+        return scan(paiement -> isBetween(paiement.getDate(), startDate, endDate), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Paiement> findByAgentAndType(int agentId, TypePaiement type) {
+        return byAgent.getOrDefault(agentId, List.of()).stream().filter(paiement -> paiement.getType() == type).toList();
+    }
+
+    @Override
+    public List<Paiement> findPage(int afterId, int limit) {
+        return scan(paiement -> true, afterId, limit);
+    }
+
+    @Override
+    public List<Paiement> findPageByType(TypePaiement type, int afterId, int limit) {
+        return scan(paiement -> paiement.getType() == type, afterId, limit);
+    }
+
+    @Override
+    public List<Paiement> findPageByDateRange(LocalDate startDate, LocalDate endDate, int afterId, int limit) {
+        return scan(paiement -> isBetween(paiement.getDate(), startDate, endDate), afterId, limit);
+    }
+
+    @Override
+    public List<Paiement> findUpdatedSince(LocalDateTime since) {
+        long sinceMs = since.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        List<Paiement> found = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i) != null && modifiedAtMs[i] >= sinceMs) {
+                found.add(rows.get(i));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public long countUpToId(int maxId) {
+        long counted = 0;
+        for (int i = 0; i < Math.min(maxId, rows.size()); i++) {
+            if (rows.get(i) != null) {
+                counted++;
+            }
+        }
+        return counted;
+    }
+
+    @Override
+    public Optional<LocalDateTime> findCurrentTime() {
+        return Optional.of(LocalDateTime.now());
+    }
+
+    @Override
+    public Optional<Paiement> findHighestByAgentId(int agentId) {
+        return byAgent.getOrDefault(agentId, List.of()).stream()
+                .max(Comparator.comparingDouble(Paiement::getMontant)
+                        .thenComparing(Paiement::getIdPaiement, Comparator.reverseOrder()));
+    }
+
+    @Override
+    public PaiementAggregate summarize(PaiementCriteria criteria) {
+        List<PaiementAggregate> aggregates = aggregate(criteria, Set.of());
+        return aggregates.isEmpty() ? new PaiementAggregate() : aggregates.get(0);
+    }
+
+    //a scan of the summary cells joined to the agents, like the query on paiement_monthly_summary.
+    //without groupBy there is always exactly one row, as with SQL
+    @Override
+    public List<PaiementAggregate> aggregate(PaiementCriteria criteria, Set<AggregateDimension> groupBy) {
+        AggregateDimension[] dimensions = groupBy.stream().sorted().toArray(AggregateDimension[]::new);
+        Map<List<Object>, PaiementAggregate> groups = new LinkedHashMap<>();
+        if (dimensions.length == 0) {
+            groups.put(List.of(), new PaiementAggregate());
+        }
+        for (Map.Entry<Long, Cell> entry : cellsToScan(criteria)) {
+            long key = entry.getKey();
+            Cell cell = entry.getValue();
+            if (cell.count == 0) {
+                continue;
+            }
+            int agentId = (int) (key >>> 32);
+            TypePaiement type = TYPES[(int) (key >>> 24) & 0xFF];
+            int monthIndex = (int) (key & 0xFFFFFF);
+            int year = monthIndex / 12;
+            int month = monthIndex % 12 + 1;
+            Agent agent = agentDAO.findById(agentId).orElse(null);
+            if (!matches(criteria, agentId, agent, type, year, month)) {
+                continue;
+            }
+            Object[] values = new Object[dimensions.length];
+            for (int i = 0; i < dimensions.length; i++) {
+                values[i] = switch (dimensions[i]) {
+                    case AGENT -> agentId;
+                    case DEPARTEMENT -> agent == null || agent.getDepartement() == null ? null : agent.getDepartement().getIdDepartement();
+                    case AGENT_TYPE -> agent == null ? null : agent.getTypeAgent();
+                    case TYPE -> type;
+                    case YEAR -> year;
+                    case MONTH -> month;
+                };
+            }
+            PaiementAggregate aggregate = groups.computeIfAbsent(Arrays.asList(values), group -> newAggregate(dimensions, values));
+            aggregate.setCount(aggregate.getCount() + cell.count);
+            aggregate.setTotal(aggregate.getTotal() + cell.total);
+            aggregate.setMaximum(Math.max(aggregate.getMaximum(), cell.maximum));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    //per-agent totals from the cells, sorted the way the ORDER BY of the SQL version does
+    @Override
+    public List<PaiementAggregate> rankAgentsByTotal(int offset, int limit) {
+        Map<Integer, PaiementAggregate> totals = new HashMap<>();
+        for (PaiementAggregate aggregate : aggregate(new PaiementCriteria(), Set.of(AggregateDimension.AGENT))) {
+            totals.put(aggregate.getAgentId(), aggregate);
+        }
+        return agentDAO.findAll().stream()
+                .map(agent -> totals.computeIfAbsent(agent.getIdAgent(), agentId -> {
+                    PaiementAggregate none = new PaiementAggregate();
+                    none.setAgentId(agentId);
+                    return none;
+                }))
+                .sorted(Comparator.comparingDouble(PaiementAggregate::getTotal).reversed()
+                        .thenComparingInt(PaiementAggregate::getAgentId))
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public int rebuildMonthlySummary() {
+        cellsByAgent.clear();
+        streamAll().forEach(paiement -> cellOf(paiement).add(paiement.getMontant()));
+        return cellsByAgent.values().stream().mapToInt(Map::size).sum();
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private Paiement row(int id) {
+        return id < 1 || id > rows.size() ? null : rows.get(id - 1);
+    }
+
+    //rows with id > afterId in id order, at most limit of them
+    private List<Paiement> scan(Predicate<Paiement> filter, int afterId, int limit) {
+        List<Paiement> found = new ArrayList<>();
+        for (int i = Math.max(0, afterId); i < rows.size() && found.size() < limit; i++) {
+            Paiement paiement = rows.get(i);
+            if (paiement != null && filter.test(paiement)) {
+                found.add(paiement);
+            }
+        }
+        return found;
+    }
+
+    private Cell cellOf(Paiement paiement) {
+        return cellsByAgent.computeIfAbsent(paiement.getAgentId(), id -> new HashMap<>())
+                .computeIfAbsent(cellKey(paiement), key -> new Cell());
+    }
+
+    private List<Map.Entry<Long, Cell>> cellsToScan(PaiementCriteria criteria) {
+        List<Integer> agentIds;
+        if (criteria.getAgentId() != null) {
+            agentIds = List.of(criteria.getAgentId());
+        } else if (criteria.getDepartementId() != null) {
+            agentIds = agentDAO.findIdsByDepartementId(criteria.getDepartementId());
+        } else {
+            agentIds = new ArrayList<>(cellsByAgent.keySet());
+        }
+        List<Map.Entry<Long, Cell>> entries = new ArrayList<>();
+        for (Integer agentId : agentIds) {
+            entries.addAll(cellsByAgent.getOrDefault(agentId, Map.of()).entrySet());
+        }
+        return entries;
+    }
+
+    //recomputed from the agent's rows: a maximum cannot be taken back incrementally
+    private void refreshCell(Paiement paiement) {
+        long key = cellKey(paiement);
+        Cell cell = new Cell();
+        for (Paiement other : byAgent.getOrDefault(paiement.getAgentId(), List.of())) {
+            if (cellKey(other) == key) {
+                cell.add(other.getMontant());
+            }
+        }
+        cellsByAgent.computeIfAbsent(paiement.getAgentId(), id -> new HashMap<>()).put(key, cell);
+    }
+
+    //agent in the high 32 bits, then type ordinal and year * 12 + month - 1, as PaymentSketches keys its cells
+    private static long cellKey(Paiement paiement) {
+        int monthIndex = paiement.getDate().getYear() * 12 + paiement.getDate().getMonthValue() - 1;
+        return ((long) paiement.getAgentId() << 32) | ((long) paiement.getType().ordinal() << 24) | monthIndex;
+    }
+
+    private static boolean matches(PaiementCriteria criteria, int agentId, Agent agent, TypePaiement type, int year, int month) {
+        if (criteria.getAgentId() != null && criteria.getAgentId() != agentId) {
+            return false;
+        }
+        if (criteria.getDepartementId() != null
+                && (agent == null || InMemoryAgentDAO.departementIdOf(agent) != criteria.getDepartementId())) {
+            return false;
+        }
+        if (criteria.getType() != null && criteria.getType() != type) {
+            return false;
+        }
+        if (criteria.getYear() != null && criteria.getYear() != year) {
+            return false;
+        }
+        return criteria.getMonth() == null || criteria.getMonth() == month;
+    }
+
+    private static PaiementAggregate newAggregate(AggregateDimension[] dimensions, Object[] values) {
+        PaiementAggregate aggregate = new PaiementAggregate();
+        for (int i = 0; i < dimensions.length; i++) {
+            switch (dimensions[i]) {
+                case AGENT -> aggregate.setAgentId((Integer) values[i]);
+                case DEPARTEMENT -> aggregate.setDepartementId((Integer) values[i]);
+                case AGENT_TYPE -> aggregate.setAgentType((TypeAgent) values[i]);
+                case TYPE -> aggregate.setType((TypePaiement) values[i]);
+                case YEAR -> aggregate.setYear((Integer) values[i]);
+                case MONTH -> aggregate.setMonth((Integer) values[i]);
+            }
+        }
+        return aggregate;
+    }
+
+    private static boolean isBetween(LocalDate date, LocalDate startDate, LocalDate endDate) {
+        return date != null && !date.isBefore(startDate) && !date.isAfter(endDate);
+    }
+
+    private static final class Cell {
+        private long count;
+        private double total;
+        private double maximum;
+
+        private void add(double montant) {
+            count++;
+            total += montant;
+            maximum = count == 1 ? montant : Math.max(maximum, montant);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package src.bench;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//a ResultSet over rows kept in memory, for timing the DAOs' row mapping without a driver. the cursor never
+//ends: next() wraps around to the first row, so a benchmark can read one row per operation for as long as it runs.
+//only the by-label getters the DAOs call are supported
+final class RowResultSet {
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final List<Object[]> rows;
+    private int position = -1;
+    private boolean lastWasNull;
+
+    private RowResultSet(String[] labels, List<Object[]> rows) {
+        for (int i = 0; i < labels.length; i++) {
+            columns.put(labels[i], i);
+        }
+        this.rows = rows;
+    }
+
+    static ResultSet over(String[] labels, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("at least one row is needed");
+        }
+        RowResultSet cursor = new RowResultSet(labels, rows);
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> cursor.invoke(method.getName(), args));
+    }
+
+    private Object invoke(String method, Object[] args) throws SQLFeatureNotSupportedException {
+        switch (method) {
+            case "next":
+                position = (position + 1) % rows.size();
+                return true;
+            case "wasNull":
+                return lastWasNull;
+            case "close":
+                return null;
+            case "isClosed":
+                return false;
+            case "hashCode":
+                return System.identityHashCode(this);
+            case "equals":
+                return false;
+            case "toString":
+                return "RowResultSet[" + position + "]";
+            default:
+                break;
+        }
+        if (args == null || args.length != 1 || !(args[0] instanceof String)) {
+            throw new SQLFeatureNotSupportedException(method);
+        }
+        Object value = column((String) args[0]);
+        lastWasNull = value == null;
+        switch (method) {
+            case "getString":
+                return value == null ? null : value.toString();
+            case "getInt":
+                return value == null ? 0 : ((Number) value).intValue();
+            case "getLong":
+                return value == null ? 0L : ((Number) value).longValue();
+            case "getDouble":
+                return value == null ? 0.0 : ((Number) value).doubleValue();
+            case "getBoolean":
+                return value != null && (Boolean) value;
+            case "getDate":
+            case "getObject":
+                return value;
+            default:
+                throw new SQLFeatureNotSupportedException(method);
+        }
+    }
+
+    private Object column(String label) throws SQLFeatureNotSupportedException {
+        Integer index = columns.get(label);
+        if (index == null) {
+            throw new SQLFeatureNotSupportedException("unknown column " + label);
+        }
+        return rows.get(position)[index];
+    }
+}
@@ -10,6 +10,7 @@ public class ConfigDBConn {
     private static final String PROPERTIES_FILE = "database.properties";
     private static final Properties properties = new Properties();
     private static final Logger logger = Logger.getLogger(ConfigDBConn.class.getName());
+    private static volatile ConnectionPool pool;
     
     static {
         loadProperties();
@@ -29,20 +30,82 @@ public class ConfigDBConn {
         }
     }
     
+    //inside TransactionManager.begin() every caller on the thread gets the transaction's connection
     public static Connection getConnection() throws SQLException {
+        Connection joined = TransactionManager.joinedConnection();
+        if (joined != null) {
+            return joined;
+        }
+        return getPool().getConnection();
+    }
+
+    public static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (ConfigDBConn.class) {
+                current = pool;
+                if (current == null) {
+                    current = createPool();
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public static void shutdown() {
+        synchronized (ConfigDBConn.class) {
+            if (pool != null) {
+                pool.close();
+                pool = null;
+            }
+        }
+    }
+
+    //a -Dkey=value system property takes precedence over database.properties
+    public static String getProperty(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        return value != null ? value : properties.getProperty(key, defaultValue);
+    }
+
+    public static int getIntProperty(String key, int defaultValue) {
+        return (int) getLongProperty(key, defaultValue);
+    }
+
+    public static long getLongProperty(String key, long defaultValue) {
+        String value = getProperty(key, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
         try {
-            
-            Class.forName(properties.getProperty("db.driver"));
-            
-            
-            return DriverManager.getConnection(
-                properties.getProperty("db.url"),
-                properties.getProperty("db.username"),
-                properties.getProperty("db.password")
-            );
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warning("Invalid value for " + key + " : " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static ConnectionPool createPool() throws SQLException {
+        try {
+            Class.forName(getProperty("db.driver", null));
         } catch (ClassNotFoundException e) {
             throw new SQLException("MySQL JDBC Driver not found", e);
         }
+
+        return new ConnectionPool(
+            getProperty("db.url", null),
+            getProperty("db.username", null),
+            getProperty("db.password", null),
+            getIntProperty("db.pool.minSize", 2),
+            getIntProperty("db.pool.maxSize", 10),
+            getLongProperty("db.pool.borrowTimeoutMs", 30000),
+            getLongProperty("db.pool.idleTimeoutMs", 600000),
+            getLongProperty("db.pool.validationIdleMs", 1000),
+            getIntProperty("db.pool.validationTimeoutSeconds", 2),
+            getLongProperty("db.pool.leakDetectionThresholdMs", 60000),
+            getLongProperty("db.pool.housekeepingIntervalMs", 30000),
+            getIntProperty("db.pool.statementCacheSize", 64)
+        );
     }
     
     public static boolean testConnection() {
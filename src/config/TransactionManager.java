@@ -0,0 +1,229 @@
+package src.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+//binds one pooled connection to the current thread for the length of a service operation.
+//while a transaction is open ConfigDBConn.getConnection() hands out that connection, so the DAOs join it
+//without changes: their close, commit and setAutoCommit calls are ignored, and a rollback or any statement
+//that fails (even one the DAO catches and only prints) marks the transaction to be rolled back.
+//commit() then throws instead of reporting a success that did not happen.
+//
+//    try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+//        ...
+//        tx.commit();
+//    }
+public final class TransactionManager {
+    private static final Logger logger = Logger.getLogger(TransactionManager.class.getName());
+    private static final ThreadLocal<Context> CURRENT = new ThreadLocal<>();
+
+    private TransactionManager() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    public static Transaction begin() {
+        return begin(defaultIsolation());
+    }
+
+    //isolation is one of the Connection.TRANSACTION_* levels, or -1 for the connection's default.
+    //a nested begin joins the outer transaction and keeps its isolation
+    public static Transaction begin(int isolation) {
+        Context current = CURRENT.get();
+        if (current != null) {
+            return new Transaction(current, false);
+        }
+        Connection connection = null;
+        try {
+            connection = ConfigDBConn.getPool().getConnection();
+            connection.setAutoCommit(false);
+            if (isolation >= 0) {
+                connection.setTransactionIsolation(isolation);
+            }
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw new IllegalStateException("Impossible d'ouvrir une transaction", e);
+        }
+        Context context = new Context(connection);
+        CURRENT.set(context);
+        return new Transaction(context, true);
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    //runs the hook once the current transaction is committed, never if it rolls back; immediately outside a transaction
+    public static void afterCommit(Runnable hook) {
+        Context current = CURRENT.get();
+        if (current == null) {
+            hook.run();
+        } else {
+            current.afterCommit.add(hook);
+        }
+    }
+
+    //the thread's transaction connection, null when none is open
+    static Connection joinedConnection() {
+        Context current = CURRENT.get();
+        return current == null ? null : current.joined;
+    }
+
+    private static int defaultIsolation() {
+        String level = ConfigDBConn.getProperty("db.tx.isolation", "").trim().toUpperCase();
+        return switch (level) {
+            case "READ_UNCOMMITTED" -> Connection.TRANSACTION_READ_UNCOMMITTED;
+            case "READ_COMMITTED" -> Connection.TRANSACTION_READ_COMMITTED;
+            case "REPEATABLE_READ" -> Connection.TRANSACTION_REPEATABLE_READ;
+            case "SERIALIZABLE" -> Connection.TRANSACTION_SERIALIZABLE;
+            default -> -1;
+        };
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Could not close transaction connection", e);
+        }
+    }
+
+    public static final class Transaction implements AutoCloseable {
+        private final Context context;
+        private final boolean outer;
+        private boolean completed;
+
+        private Transaction(Context context, boolean outer) {
+            this.context = context;
+            this.outer = outer;
+        }
+
+        //throws when the transaction has to be rolled back instead, because a statement failed, a DAO rolled back
+        //or a nested unit did not commit. a nested unit only records that it finished, the outermost one decides
+        public void commit() {
+            if (completed) {
+                throw new IllegalStateException("Transaction déjà terminée");
+            }
+            completed = true;
+            if (context.rollbackOnly) {
+                //the outermost close() rolls back and releases the connection
+                throw new IllegalStateException("Transaction annulée : une opération a échoué");
+            }
+            if (!outer) {
+                return;
+            }
+            try {
+                context.connection.commit();
+                context.committed = true;
+            } catch (SQLException e) {
+                throw new IllegalStateException("Échec de la validation de la transaction", e);
+            }
+        }
+
+        //rolls back anything not committed; the outermost unit releases the connection and runs the after-commit hooks
+        @Override
+        public void close() {
+            if (!completed) {
+                completed = true;
+                context.rollbackOnly = true;
+            }
+            if (!outer) {
+                return;
+            }
+            CURRENT.remove();
+            if (!context.committed) {
+                try {
+                    context.connection.rollback();
+                } catch (SQLException e) {
+                    logger.log(Level.WARNING, "Transaction rollback failed", e);
+                }
+            }
+            closeQuietly(context.connection);
+            if (context.committed) {
+                for (Runnable hook : context.afterCommit) {
+                    try {
+                        hook.run();
+                    } catch (RuntimeException e) {
+                        logger.log(Level.WARNING, "After-commit hook failed", e);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Context {
+        private final Connection connection;
+        private final Connection joined;
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private boolean rollbackOnly;
+        private boolean committed;
+
+        private Context(Connection connection) {
+            this.connection = connection;
+            this.joined = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close", "commit", "setAutoCommit", "setTransactionIsolation" -> {
+                                return null;
+                            }
+                            case "rollback" -> {
+                                rollbackOnly = true;
+                                return null;
+                            }
+                            case "getAutoCommit" -> {
+                                return false;
+                            }
+                            case "isClosed" -> {
+                                return false;
+                            }
+                            case "equals" -> {
+                                return proxy == args[0];
+                            }
+                            case "hashCode" -> {
+                                return System.identityHashCode(proxy);
+                            }
+                            default -> {
+                            }
+                        }
+                        Object result = invoke(connection, method, args);
+                        return result instanceof Statement statement ? watch(statement, method.getReturnType()) : result;
+                    });
+        }
+
+        //statements handed to the DAOs mark the transaction when they fail, whether or not the DAO rethrows
+        private Object watch(Statement statement, Class<?> type) {
+            return Proxy.newProxyInstance(
+                    Statement.class.getClassLoader(),
+                    new Class<?>[]{type},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "getConnection" -> joined;
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        default -> invoke(statement, method, args);
+                    });
+        }
+
+        private Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException) {
+                    rollbackOnly = true;
+                }
+                throw e.getCause();
+            }
+        }
+    }
+}
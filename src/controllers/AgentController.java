@@ -21,6 +21,10 @@ public class AgentController {
         return agentService.getAllAgents();
     }
 
+    public List<Agent> listAgentsPage(int afterId, int limit) {
+        return agentService.getAgentsPage(afterId, limit);
+    }
+
     public Agent getAgent(int agentId) throws AgentNotFoundException {
         return agentService.getAgentById(agentId);
     }
@@ -2,6 +2,7 @@ package src.controllers;
 
 import src.exceptions.AuthenticationException;
 import src.models.Agent;
+import src.models.Session;
 import src.services.AuthService;
 
 import java.util.Optional;
@@ -17,6 +18,22 @@ public class AuthController {
         return authService.login(username, password);
     }
 
+    public Agent authenticate(String username, String password, String source) throws AuthenticationException {
+        return authService.authenticate(username, password, source);
+    }
+
+    public Session openSession(String username, String password, String source) throws AuthenticationException {
+        return authService.openSession(username, password, source);
+    }
+
+    public Agent authenticateToken(String token) throws AuthenticationException {
+        return authService.authenticateToken(token);
+    }
+
+    public void closeSession(String token) {
+        authService.closeSession(token);
+    }
+
     public void logout() {
         authService.logout();
     }
@@ -7,6 +7,7 @@ import src.models.Departement;
 import src.models.Paiement;
 import src.services.DepartementService;
 
+import java.util.Collection;
 import java.util.List;
 
 public class DepartementController {
@@ -21,6 +22,10 @@ public class DepartementController {
         return departementService.getAllDepartements();
     }
 
+    public Departement getDepartement(int departementId) throws DepartementNotFoundException {
+        return departementService.getDepartementById(departementId);
+    }
+
     public Departement createDepartement(String nom, Integer responsableId) throws AgentNotFoundException {
         return departementService.createDepartement(nom, responsableId);
     }
@@ -34,6 +39,19 @@ public class DepartementController {
         departementService.deleteDepartement(departementId);
     }
 
+    public void deleteDepartement(int departementId, int reassignToDepartementId) throws DepartementNotFoundException {
+        departementService.deleteDepartement(departementId, reassignToDepartementId);
+    }
+
+    public int reassignAgents(int fromDepartementId, int toDepartementId) throws DepartementNotFoundException {
+        return departementService.reassignAgents(fromDepartementId, toDepartementId);
+    }
+
+    public int addAgents(int departementId, Collection<Integer> agentIds)
+            throws AgentNotFoundException, DepartementNotFoundException {
+        return departementService.addAgentsToDepartement(departementId, agentIds);
+    }
+
     public Departement assignResponsable(int departementId, int agentId)
             throws AgentNotFoundException, DepartementNotFoundException {
         return departementService.assignResponsable(departementId, agentId);
@@ -29,6 +29,11 @@ public class PaiementController {
         return paiementService.createPaiement(agentId, type, montant, motif, conditionValidee, date);
     }
 
+    public List<Paiement> createPaiements(List<Paiement> paiements)
+            throws AgentNotFoundException, NegativeAmountException, InvalidPaymentConditionException {
+        return paiementService.createPaiements(paiements);
+    }
+
     public Paiement updatePaiement(int paiementId,
                                    TypePaiement type,
                                    double montant,
@@ -63,6 +68,18 @@ public class PaiementController {
         return paiementService.getPaiementsByDateRange(start, end);
     }
 
+    public List<Paiement> listPaiementsPage(int afterId, int limit) {
+        return paiementService.getPaiementsPage(afterId, limit);
+    }
+
+    public List<Paiement> listPaiementsPageByType(TypePaiement type, int afterId, int limit) {
+        return paiementService.getPaiementsPageByType(type, afterId, limit);
+    }
+
+    public List<Paiement> listPaiementsPageByDateRange(LocalDate start, LocalDate end, int afterId, int limit) {
+        return paiementService.getPaiementsPageByDateRange(start, end, afterId, limit);
+    }
+
     public double computeTotalByAgent(int agentId) throws AgentNotFoundException {
         return paiementService.calculateTotalByAgent(agentId);
     }
@@ -0,0 +1,23 @@
+package src.controllers;
+
+import src.models.PayrollRun;
+import src.services.interfaces.IPayrollService;
+
+import java.util.List;
+
+public class PayrollController {
+
+    private final IPayrollService payrollService;
+
+    public PayrollController(IPayrollService payrollService) {
+        this.payrollService = payrollService;
+    }
+
+    public PayrollRun runPayroll(int year, int month) {
+        return payrollService.runPayroll(year, month);
+    }
+
+    public List<PayrollRun> listRuns() {
+        return payrollService.getRuns();
+    }
+}
@@ -2,22 +2,32 @@ package src.controllers;
 
 import src.exceptions.AgentNotFoundException;
 import src.exceptions.DepartementNotFoundException;
+import src.models.AggregateDimension;
 import src.models.Agent;
+import src.models.AgentTotal;
 import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
+import src.models.PaymentAnomaly;
 import src.models.TypePaiement;
-import src.services.StatisticsService;
+import src.services.interfaces.IAsyncStatisticsService;
+import src.services.interfaces.IStatisticsService;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class StatisticsController {
 
-    private final StatisticsService statisticsService;
+    private final IStatisticsService statisticsService;
+    private final IAsyncStatisticsService asyncStatisticsService;
 
-    public StatisticsController(StatisticsService statisticsService) {
+    public StatisticsController(IStatisticsService statisticsService, IAsyncStatisticsService asyncStatisticsService) {
         this.statisticsService = statisticsService;
+        this.asyncStatisticsService = asyncStatisticsService;
     }
 
     public double getAnnualTotalForAgent(int agentId, int year) throws AgentNotFoundException {
@@ -40,10 +50,34 @@ public class StatisticsController {
         return statisticsService.getDepartmentAverageSalary(departementId);
     }
 
+    public double departmentMedianSalary(int departementId) throws DepartementNotFoundException {
+        return statisticsService.getDepartmentMedianSalary(departementId);
+    }
+
+    public double paymentPercentile(PaiementCriteria criteria, double percentile) throws DepartementNotFoundException {
+        return statisticsService.getPaymentPercentile(criteria, percentile);
+    }
+
+    public long distinctPaidAgents(PaiementCriteria criteria) throws DepartementNotFoundException {
+        return statisticsService.countDistinctPaidAgents(criteria);
+    }
+
+    public List<PaiementAggregate> pivot(PaiementCriteria criteria, Set<AggregateDimension> groupBy) throws DepartementNotFoundException {
+        return statisticsService.pivot(criteria, groupBy);
+    }
+
     public List<Agent> rankAgentsByTotalPayments() {
         return statisticsService.rankAgentsByTotalPayments();
     }
 
+    public List<AgentTotal> topAgentsByTotalPayments(int k) {
+        return statisticsService.topAgentsByTotalPayments(k);
+    }
+
+    public List<AgentTotal> rankAgentsByTotalPayments(int page, int size) {
+        return statisticsService.rankAgentsByTotalPayments(page, size);
+    }
+
     public Map<TypePaiement, Long> paymentDistribution() {
         return statisticsService.getPaymentDistribution();
     }
@@ -60,11 +94,40 @@ public class StatisticsController {
         return statisticsService.getTotalDepartements();
     }
 
+    //the overview figures are independent queries, started together and awaited by the caller
+    public CompletableFuture<Double> globalPaymentsTotalAsync() {
+        return asyncStatisticsService.getGlobalPaymentsTotal();
+    }
+
+    public CompletableFuture<Long> totalAgentsAsync() {
+        return asyncStatisticsService.getTotalAgents();
+    }
+
+    public CompletableFuture<Long> totalDepartementsAsync() {
+        return asyncStatisticsService.getTotalDepartements();
+    }
+
+    public CompletableFuture<Map<TypePaiement, Long>> paymentDistributionAsync() {
+        return asyncStatisticsService.getPaymentDistribution();
+    }
+
     public Optional<Paiement> detectUnusualPayment(double threshold) {
         return statisticsService.detectUnusualPayment(threshold);
     }
 
+    public List<PaymentAnomaly> detectAnomalies(double sigmas) {
+        return statisticsService.detectAnomalies(sigmas);
+    }
+
+    public List<PaymentAnomaly> recentAnomalies() {
+        return statisticsService.getRecentAnomalies();
+    }
+
     public List<Paiement> paymentsBetween(LocalDate start, LocalDate end) {
         return statisticsService.getPaymentsBetween(start, end);
     }
+
+    public int rebuildMonthlySummary() {
+        return statisticsService.rebuildMonthlySummary();
+    }
 }
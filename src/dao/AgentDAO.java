@@ -7,10 +7,13 @@ import src.models.TypeAgent;
 import src.config.ConfigDBConn;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 public class AgentDAO implements IAgent {
+    private static final int IN_CLAUSE_CHUNK = 1000;
     
     @Override
     public Agent save(Agent agent) {
@@ -94,6 +97,33 @@ public class AgentDAO implements IAgent {
         return Optional.empty();
     }
 
+    @Override
+    public List<Agent> findByIds(Collection<Integer> ids) {
+        List<Agent> agents = new ArrayList<>();
+        List<Integer> idList = new ArrayList<>(ids);
+        for (int start = 0; start < idList.size(); start += IN_CLAUSE_CHUNK) {
+            List<Integer> chunk = idList.subList(start, Math.min(start + IN_CLAUSE_CHUNK, idList.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            String sql = "SELECT a.id, a.nom, a.prenom, a.email, a.mot_de_passe, a.type_agent, " +
+                    "a.departement_id, d.nom AS departement_nom " +
+                    "FROM agent a LEFT JOIN departement d ON a.departement_id = d.id WHERE a.id IN (" + placeholders + ")";
+            try (Connection conn = ConfigDBConn.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        agents.add(mapResultSetToAgent(rs));
+                    }
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        return agents;
+    }
+
     @Override
     public List<Agent> findAll() {
         List<Agent> agents = new ArrayList<>();
@@ -112,6 +142,42 @@ public class AgentDAO implements IAgent {
         return agents;
     }
 
+    @Override
+    public List<Agent> findPage(int afterId, int limit) {
+        List<Agent> agents = new ArrayList<>();
+        String sql = "SELECT a.id, a.nom, a.prenom, a.email, a.mot_de_passe, a.type_agent, " +
+                "a.departement_id, d.nom AS departement_nom " +
+                "FROM agent a LEFT JOIN departement d ON a.departement_id = d.id WHERE a.id > ? ORDER BY a.id LIMIT ?";
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    agents.add(mapResultSetToAgent(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return agents;
+    }
+
+    @Override
+    public long count() {
+        String sql = "SELECT COUNT(*) FROM agent";
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
     @Override
     public Optional<Agent> findByEmail(String email) {
     String sql = "SELECT a.id, a.nom, a.prenom, a.email, a.mot_de_passe, a.type_agent, " +
@@ -171,6 +237,82 @@ public class AgentDAO implements IAgent {
         return agents;
     }
 
+    @Override
+    public List<Integer> findIdsByDepartementId(int departementId) {
+        List<Integer> ids = new ArrayList<>();
+        String sql = "SELECT id FROM agent WHERE departement_id = ? ORDER BY id";
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, departementId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return ids;
+    }
+
+    @Override
+    public int moveDepartementAgents(int fromDepartementId, Integer toDepartementId) {
+        String sql = "UPDATE agent SET departement_id = ? WHERE departement_id = ?";
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setDepartementId(stmt, 1, toDepartementId);
+            stmt.setInt(2, fromDepartementId);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    @Override
+    public int moveAgents(Collection<Integer> ids, Integer departementId) {
+        List<Integer> idList = new ArrayList<>(ids);
+        if (idList.isEmpty()) {
+            return 0;
+        }
+        try (Connection conn = ConfigDBConn.getConnection()) {
+            conn.setAutoCommit(false);
+            int updated = 0;
+            try {
+                for (int start = 0; start < idList.size(); start += IN_CLAUSE_CHUNK) {
+                    List<Integer> chunk = idList.subList(start, Math.min(start + IN_CLAUSE_CHUNK, idList.size()));
+                    String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                    String sql = "UPDATE agent SET departement_id = ? WHERE id IN (" + placeholders + ")";
+                    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                        setDepartementId(stmt, 1, departementId);
+                        for (int i = 0; i < chunk.size(); i++) {
+                            stmt.setInt(i + 2, chunk.get(i));
+                        }
+                        updated += stmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+                return updated;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    private static void setDepartementId(PreparedStatement stmt, int index, Integer departementId) throws SQLException {
+        if (departementId != null) {
+            stmt.setInt(index, departementId);
+        } else {
+            stmt.setNull(index, Types.INTEGER);
+        }
+    }
+
     private Agent mapResultSetToAgent(ResultSet rs) throws SQLException {
         Agent agent = new Agent(
                 rs.getString("nom"),
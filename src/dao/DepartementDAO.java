@@ -106,6 +106,21 @@ public class DepartementDAO implements IDepartement {
         return departements;
     }
 
+    @Override
+    public long count() {
+        String sql = "SELECT COUNT(*) FROM departement";
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
     @Override
     public Optional<Departement> findByNom(String nom) {
         String sql = "SELECT id, nom, responsable_id FROM departement WHERE nom = ?";
@@ -1,39 +1,66 @@
 package src.dao;
 
 import src.dao.interfaces.IPaiement;
+import src.models.AggregateDimension;
 import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
+import src.models.TypeAgent;
 import src.models.TypePaiement;
 import src.config.ConfigDBConn;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.logging.Logger;
 
 public class PaiementDAO implements IPaiement {
+    private static final Logger logger = Logger.getLogger(PaiementDAO.class.getName());
+    private static final String SELECT_PAIEMENT = "SELECT id, type, montant, date_paiement, motif, agent_id, condition_validee FROM paiement";
+    private static final int IN_CLAUSE_CHUNK = 1000;
+    private static final String INSERT_SQL = "INSERT INTO paiement (type, montant, motif, agent_id, condition_validee, date_paiement) VALUES (?, ?, ?, ?, ?, ?)";
+
+    //null until the first write or aggregate has looked for paiement_monthly_summary
+    private volatile Boolean summaryTable;
     
     @Override
     public Paiement save(Paiement paiement) {
-        String sql = "INSERT INTO paiement (type, montant, motif, agent_id, condition_validee, date_paiement) VALUES (?, ?, ?, ?, ?, ?)";
-        try (Connection conn = ConfigDBConn.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, paiement.getType().name());
-            stmt.setDouble(2, paiement.getMontant());
-            stmt.setString(3, paiement.getMotif());
-            int agentId = paiement.getAgent() != null ? paiement.getAgent().getIdAgent() : paiement.getAgentId();
-            if (agentId <= 0) {
-                throw new SQLException("Agent inexistant pour le paiement");
-            }
-            stmt.setInt(4, agentId);
-            stmt.setBoolean(5, paiement.isConditionValidee());
-            stmt.setDate(6, Date.valueOf(paiement.getDate()));
-            
-            stmt.executeUpdate();
-            
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    paiement.setIdPaiement(generatedKeys.getInt(1));
+        try (Connection conn = ConfigDBConn.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                bindInsert(stmt, paiement);
+                
+                stmt.executeUpdate();
+                
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        paiement.setIdPaiement(generatedKeys.getInt(1));
+                    }
                 }
+                if (hasSummaryTable()) {
+                    addToSummary(conn, List.of(paiement));
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                paiement.setIdPaiement(0);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -41,18 +68,59 @@ public class PaiementDAO implements IPaiement {
         return paiement;
     }
 
+    @Override
+    public List<Paiement> saveAll(Collection<Paiement> paiements) {
+        List<Paiement> saved = new ArrayList<>(paiements);
+        if (saved.isEmpty()) {
+            return saved;
+        }
+        try (Connection conn = ConfigDBConn.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                insertAll(conn, saved);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                saved.forEach(paiement -> paiement.setIdPaiement(0));
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return saved;
+    }
+
     @Override
     public void update(Paiement paiement) {
         String sql = "UPDATE paiement SET type = ?, montant = ?, motif = ?, condition_validee = ?, date_paiement = ? WHERE id = ?";
-        try (Connection conn = ConfigDBConn.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, paiement.getType().name());
-            stmt.setDouble(2, paiement.getMontant());
-            stmt.setString(3, paiement.getMotif());
-            stmt.setBoolean(4, paiement.isConditionValidee());
-            stmt.setDate(5, Date.valueOf(paiement.getDate()));
-            stmt.setInt(6, paiement.getIdPaiement());
-            stmt.executeUpdate();
+        try (Connection conn = ConfigDBConn.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                Optional<SummaryCell> before = hasSummaryTable() ? lockSummaryCell(conn, paiement.getIdPaiement()) : Optional.empty();
+                stmt.setString(1, paiement.getType().name());
+                stmt.setDouble(2, paiement.getMontant());
+                stmt.setString(3, paiement.getMotif());
+                stmt.setBoolean(4, paiement.isConditionValidee());
+                stmt.setDate(5, Date.valueOf(paiement.getDate()));
+                stmt.setInt(6, paiement.getIdPaiement());
+                stmt.executeUpdate();
+                if (before.isPresent()) {
+                    SummaryCell old = before.get();
+                    SummaryCell current = new SummaryCell(old.agentId, paiement.getType(), paiement.getDate());
+                    refreshSummaryCell(conn, old);
+                    if (!current.key().equals(old.key())) {
+                        refreshSummaryCell(conn, current);
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -61,10 +129,22 @@ public class PaiementDAO implements IPaiement {
     @Override
     public void deleteById(int id) {
         String sql = "DELETE FROM paiement WHERE id = ?";
-        try (Connection conn = ConfigDBConn.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
+        try (Connection conn = ConfigDBConn.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                Optional<SummaryCell> before = hasSummaryTable() ? lockSummaryCell(conn, id) : Optional.empty();
+                stmt.setInt(1, id);
+                stmt.executeUpdate();
+                if (before.isPresent()) {
+                    refreshSummaryCell(conn, before.get());
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -103,6 +183,195 @@ public class PaiementDAO implements IPaiement {
         return paiements;
     }
 
+    @Override
+    public Stream<Paiement> streamAll() {
+        return stream(SELECT_PAIEMENT, stmt -> { });
+    }
+
+    @Override
+    public Stream<Paiement> streamByIdRange(int fromId, int toIdExclusive) {
+        return stream(SELECT_PAIEMENT + " WHERE id >= ? AND id < ? ORDER BY id", stmt -> {
+            stmt.setInt(1, fromId);
+            stmt.setInt(2, toIdExclusive);
+        });
+    }
+
+    @Override
+    public int findMinId() {
+        return queryInt("SELECT COALESCE(MIN(id), 0) FROM paiement");
+    }
+
+    @Override
+    public int findMaxId() {
+        return queryInt("SELECT COALESCE(MAX(id), 0) FROM paiement");
+    }
+
+    @Override
+    public Optional<Paiement> findHighestByAgentId(int agentId) {
+        String sql = SELECT_PAIEMENT + " WHERE agent_id = ? ORDER BY montant DESC, id LIMIT 1";
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, agentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapResultSetToPaiement(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public PaiementAggregate summarize(PaiementCriteria criteria) {
+        List<PaiementAggregate> rows = aggregate(criteria, EnumSet.noneOf(AggregateDimension.class));
+        return rows.isEmpty() ? new PaiementAggregate() : rows.get(0);
+    }
+
+    @Override
+    public List<PaiementAggregate> aggregate(PaiementCriteria criteria, Set<AggregateDimension> groupBy) {
+        //every criteria filter falls on month boundaries, so the rollup can always answer
+        boolean fromSummary = Boolean.parseBoolean(ConfigDBConn.getProperty("db.summary.enabled", "true")) && hasSummaryTable();
+        String source = fromSummary ? "s" : "p";
+
+        List<String> columns = new ArrayList<>();
+        for (AggregateDimension dimension : groupBy) {
+            columns.add(switch (dimension) {
+                case AGENT -> source + ".agent_id";
+                case DEPARTEMENT -> "a.departement_id";
+                case AGENT_TYPE -> "a.type_agent";
+                case TYPE -> source + ".type";
+                case YEAR -> fromSummary ? "s.annee" : "YEAR(p.date_paiement)";
+                case MONTH -> fromSummary ? "s.mois" : "MONTH(p.date_paiement)";
+            });
+        }
+        boolean joinAgent = criteria.getDepartementId() != null
+                || groupBy.contains(AggregateDimension.DEPARTEMENT) || groupBy.contains(AggregateDimension.AGENT_TYPE);
+
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(columns.get(i)).append(" AS g").append(i).append(", ");
+        }
+        if (fromSummary) {
+            sql.append("COALESCE(SUM(s.nb), 0) AS nb, COALESCE(SUM(s.total), 0) AS total, COALESCE(MAX(s.max_montant), 0) AS maximum FROM paiement_monthly_summary s");
+        } else {
+            sql.append("COUNT(*) AS nb, COALESCE(SUM(p.montant), 0) AS total, COALESCE(MAX(p.montant), 0) AS maximum FROM paiement p");
+        }
+        if (joinAgent) {
+            //the rollup is kept per agent, the department is resolved at read time so agent moves need no rewrite
+            sql.append(" JOIN agent a ON a.id = ").append(source).append(".agent_id");
+        }
+
+        List<Object> parameters = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (criteria.getAgentId() != null) {
+            conditions.add(source + ".agent_id = ?");
+            parameters.add(criteria.getAgentId());
+        }
+        if (criteria.getDepartementId() != null) {
+            conditions.add("a.departement_id = ?");
+            parameters.add(criteria.getDepartementId());
+        }
+        if (criteria.getType() != null) {
+            conditions.add(source + ".type = ?");
+            parameters.add(criteria.getType().name());
+        }
+        if (fromSummary && criteria.getYear() != null) {
+            conditions.add("s.annee = ?");
+            parameters.add(criteria.getYear());
+            if (criteria.getMonth() != null) {
+                conditions.add("s.mois = ?");
+                parameters.add(criteria.getMonth());
+            }
+        } else if (criteria.getStartDate() != null) {
+            //half-open date range instead of YEAR()/MONTH() so the date indexes can be used
+            conditions.add("p.date_paiement >= ? AND p.date_paiement < ?");
+            parameters.add(Date.valueOf(criteria.getStartDate()));
+            parameters.add(Date.valueOf(criteria.getEndDateExclusive()));
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        if (!columns.isEmpty()) {
+            sql.append(" GROUP BY ").append(String.join(", ", columns));
+        }
+
+        List<PaiementAggregate> aggregates = new ArrayList<>();
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    aggregates.add(mapResultSetToAggregate(rs, groupBy));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return aggregates;
+    }
+
+    @Override
+    public List<PaiementAggregate> rankAgentsByTotal(int offset, int limit) {
+        boolean fromSummary = Boolean.parseBoolean(ConfigDBConn.getProperty("db.summary.enabled", "true")) && hasSummaryTable();
+        //ordered and cut by the database, only one page of rows comes back; the LEFT JOIN keeps agents without payments
+        String sql = (fromSummary
+                ? "SELECT a.id AS agent_id, COALESCE(SUM(s.nb), 0) AS nb, COALESCE(SUM(s.total), 0) AS total, COALESCE(MAX(s.max_montant), 0) AS maximum " +
+                  "FROM agent a LEFT JOIN paiement_monthly_summary s ON s.agent_id = a.id"
+                : "SELECT a.id AS agent_id, COUNT(p.id) AS nb, COALESCE(SUM(p.montant), 0) AS total, COALESCE(MAX(p.montant), 0) AS maximum " +
+                  "FROM agent a LEFT JOIN paiement p ON p.agent_id = a.id")
+                + " GROUP BY a.id ORDER BY total DESC, a.id LIMIT ? OFFSET ?";
+        List<PaiementAggregate> ranking = new ArrayList<>();
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, limit);
+            stmt.setInt(2, offset);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    PaiementAggregate aggregate = new PaiementAggregate();
+                    aggregate.setAgentId(rs.getInt("agent_id"));
+                    aggregate.setCount(rs.getLong("nb"));
+                    aggregate.setTotal(rs.getDouble("total"));
+                    aggregate.setMaximum(rs.getDouble("maximum"));
+                    ranking.add(aggregate);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return ranking;
+    }
+
+    @Override
+    public int rebuildMonthlySummary() {
+        if (!hasSummaryTable()) {
+            return -1;
+        }
+        try (Connection conn = ConfigDBConn.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM paiement_monthly_summary");
+                int cells = stmt.executeUpdate(
+                        "INSERT INTO paiement_monthly_summary (agent_id, type, annee, mois, nb, total, max_montant) " +
+                        "SELECT agent_id, type, YEAR(date_paiement), MONTH(date_paiement), COUNT(*), SUM(montant), MAX(montant) " +
+                        "FROM paiement GROUP BY agent_id, type, YEAR(date_paiement), MONTH(date_paiement)");
+                conn.commit();
+                return cells;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
     @Override
     public List<Paiement> findByAgentId(int agentId) {
         List<Paiement> paiements = new ArrayList<>();
@@ -121,6 +390,42 @@ public class PaiementDAO implements IPaiement {
         return paiements;
     }
 
+    @Override
+    public List<Paiement> findByAgentIds(Collection<Integer> agentIds) {
+        Map<Integer, List<Paiement>> byAgent = new LinkedHashMap<>();
+        for (Integer agentId : agentIds) {
+            byAgent.putIfAbsent(agentId, new ArrayList<>());
+        }
+        if (byAgent.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Integer> ids = new ArrayList<>(byAgent.keySet());
+        for (int start = 0; start < ids.size(); start += IN_CLAUSE_CHUNK) {
+            List<Integer> chunk = ids.subList(start, Math.min(start + IN_CLAUSE_CHUNK, ids.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            String sql = SELECT_PAIEMENT + " WHERE agent_id IN (" + placeholders + ") ORDER BY agent_id, id";
+            try (Connection conn = ConfigDBConn.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Paiement paiement = mapResultSetToPaiement(rs);
+                        byAgent.get(paiement.getAgentId()).add(paiement);
+                    }
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        List<Paiement> paiements = new ArrayList<>();
+        byAgent.values().forEach(paiements::addAll);
+        return paiements;
+    }
+
     @Override
     public List<Paiement> findByType(TypePaiement type) {
         List<Paiement> paiements = new ArrayList<>();
@@ -158,6 +463,69 @@ public class PaiementDAO implements IPaiement {
         return paiements;
     }
 
+    @Override
+    public List<Paiement> findPage(int afterId, int limit) {
+        return query(SELECT_PAIEMENT + " WHERE id > ? ORDER BY id LIMIT ?", stmt -> {
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, limit);
+        });
+    }
+
+    @Override
+    public List<Paiement> findPageByType(TypePaiement type, int afterId, int limit) {
+        return query(SELECT_PAIEMENT + " WHERE type = ? AND id > ? ORDER BY id LIMIT ?", stmt -> {
+            stmt.setString(1, type.name());
+            stmt.setInt(2, afterId);
+            stmt.setInt(3, limit);
+        });
+    }
+
+    @Override
+    public List<Paiement> findPageByDateRange(LocalDate startDate, LocalDate endDate, int afterId, int limit) {
+        return query(SELECT_PAIEMENT + " WHERE date_paiement BETWEEN ? AND ? AND id > ? ORDER BY id LIMIT ?", stmt -> {
+            stmt.setDate(1, Date.valueOf(startDate));
+            stmt.setDate(2, Date.valueOf(endDate));
+            stmt.setInt(3, afterId);
+            stmt.setInt(4, limit);
+        });
+    }
+
+    @Override
+    public List<Paiement> findUpdatedSince(LocalDateTime since) {
+        return query(SELECT_PAIEMENT + " WHERE updated_at >= ? ORDER BY id", stmt -> stmt.setTimestamp(1, Timestamp.valueOf(since)));
+    }
+
+    @Override
+    public long countUpToId(int maxId) {
+        String sql = "SELECT COUNT(*) FROM paiement WHERE id <= ?";
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, maxId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    @Override
+    public Optional<LocalDateTime> findCurrentTime() {
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT CURRENT_TIMESTAMP");
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                return Optional.of(rs.getTimestamp(1).toLocalDateTime());
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Optional.empty();
+    }
+
     @Override
     public List<Paiement> findByAgentAndType(int agentId, TypePaiement type) {
         List<Paiement> paiements = new ArrayList<>();
@@ -177,6 +545,275 @@ public class PaiementDAO implements IPaiement {
         return paiements;
     }
 
+    private List<Paiement> query(String sql, ParameterBinder binder) {
+        List<Paiement> paiements = new ArrayList<>();
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    paiements.add(mapResultSetToPaiement(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return paiements;
+    }
+
+    private int queryInt(String sql) {
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    private Stream<Paiement> stream(String sql, ParameterBinder binder) {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = ConfigDBConn.getConnection();
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            //Integer.MIN_VALUE makes Connector/J stream rows one by one instead of buffering the result
+            stmt.setFetchSize(ConfigDBConn.getIntProperty("db.stream.fetchSize", Integer.MIN_VALUE));
+            binder.bind(stmt);
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(rs, stmt, conn);
+            //an empty stream would read as "no payments" and let a scan return a partial result
+            throw new IllegalStateException("Erreur de lecture des paiements", e);
+        }
+
+        ResultSet resultSet = rs;
+        PreparedStatement statement = stmt;
+        Connection connection = conn;
+        Spliterator<Paiement> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Paiement> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(mapResultSetToPaiement(resultSet));
+                    return true;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Erreur de lecture des paiements", e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> closeQuietly(resultSet, statement, connection));
+    }
+
+    private void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    //batched insert plus rollup upsert on the caller's connection, the caller owns the transaction
+    void insertAll(Connection conn, List<Paiement> paiements) throws SQLException {
+        if (paiements.isEmpty()) {
+            return;
+        }
+        int batchSize = Math.max(1, ConfigDBConn.getIntProperty("db.batch.size", 500));
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (int start = 0; start < paiements.size(); start += batchSize) {
+                List<Paiement> chunk = paiements.subList(start, Math.min(start + batchSize, paiements.size()));
+                for (Paiement paiement : chunk) {
+                    bindInsert(stmt, paiement);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    int index = 0;
+                    while (generatedKeys.next() && index < chunk.size()) {
+                        chunk.get(index++).setIdPaiement(generatedKeys.getInt(1));
+                    }
+                }
+            }
+        }
+        if (hasSummaryTable()) {
+            addToSummary(conn, paiements);
+        }
+    }
+
+    //a database created before the rollup has no summary table: rather than rolling back every write, the writes
+    //leave it alone and the statistics aggregate paiement, as with db.summary.enabled=false.
+    //mysql-init/upgrade-monthly-summary.sql adds and fills it, the check is made once per run
+    private boolean hasSummaryTable() {
+        Boolean exists = summaryTable;
+        if (exists != null) {
+            return exists;
+        }
+        try (Connection conn = ConfigDBConn.getConnection();
+             ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, "paiement_monthly_summary", new String[]{"TABLE"})) {
+            exists = rs.next();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+        if (!exists) {
+            logger.warning("paiement_monthly_summary is missing, statistics aggregate paiement directly;"
+                    + " run mysql-init/upgrade-monthly-summary.sql to add it");
+        }
+        summaryTable = exists;
+        return exists;
+    }
+
+    //inserts only ever grow a cell, so they are folded in with an upsert instead of a recount
+    private void addToSummary(Connection conn, Collection<Paiement> paiements) throws SQLException {
+        Map<String, SummaryCell> cells = new TreeMap<>();
+        for (Paiement paiement : paiements) {
+            int agentId = paiement.getAgent() != null ? paiement.getAgent().getIdAgent() : paiement.getAgentId();
+            SummaryCell cell = new SummaryCell(agentId, paiement.getType(), paiement.getDate());
+            cells.computeIfAbsent(cell.key(), key -> cell).add(paiement.getMontant());
+        }
+        String sql = "INSERT INTO paiement_monthly_summary (agent_id, type, annee, mois, nb, total, max_montant) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE nb = nb + ?, total = total + ?, max_montant = GREATEST(max_montant, ?)";
+        //sorted keys so concurrent writers lock the cells in the same order
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (SummaryCell cell : cells.values()) {
+                stmt.setInt(1, cell.agentId);
+                stmt.setString(2, cell.type.name());
+                stmt.setInt(3, cell.year);
+                stmt.setInt(4, cell.month);
+                stmt.setLong(5, cell.count);
+                stmt.setDouble(6, cell.total);
+                stmt.setDouble(7, cell.maximum);
+                stmt.setLong(8, cell.count);
+                stmt.setDouble(9, cell.total);
+                stmt.setDouble(10, cell.maximum);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private Optional<SummaryCell> lockSummaryCell(Connection conn, int paiementId) throws SQLException {
+        String sql = "SELECT agent_id, type, date_paiement FROM paiement WHERE id = ? FOR UPDATE";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, paiementId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(new SummaryCell(rs.getInt("agent_id"),
+                            TypePaiement.valueOf(rs.getString("type")),
+                            rs.getDate("date_paiement").toLocalDate()));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    //updates and deletes can lower the max, so the touched cell is recounted from its (indexed) month of payments
+    private void refreshSummaryCell(Connection conn, SummaryCell cell) throws SQLException {
+        String delete = "DELETE FROM paiement_monthly_summary WHERE agent_id = ? AND type = ? AND annee = ? AND mois = ?";
+        String insert = "INSERT INTO paiement_monthly_summary (agent_id, type, annee, mois, nb, total, max_montant) " +
+                "SELECT agent_id, type, ?, ?, COUNT(*), SUM(montant), MAX(montant) FROM paiement " +
+                "WHERE agent_id = ? AND type = ? AND date_paiement >= ? AND date_paiement < ? GROUP BY agent_id, type";
+        LocalDate start = LocalDate.of(cell.year, cell.month, 1);
+        try (PreparedStatement deleteStmt = conn.prepareStatement(delete);
+             PreparedStatement insertStmt = conn.prepareStatement(insert)) {
+            deleteStmt.setInt(1, cell.agentId);
+            deleteStmt.setString(2, cell.type.name());
+            deleteStmt.setInt(3, cell.year);
+            deleteStmt.setInt(4, cell.month);
+            deleteStmt.executeUpdate();
+
+            insertStmt.setInt(1, cell.year);
+            insertStmt.setInt(2, cell.month);
+            insertStmt.setInt(3, cell.agentId);
+            insertStmt.setString(4, cell.type.name());
+            insertStmt.setDate(5, Date.valueOf(start));
+            insertStmt.setDate(6, Date.valueOf(start.plusMonths(1)));
+            insertStmt.executeUpdate();
+        }
+    }
+
+    private void bindInsert(PreparedStatement stmt, Paiement paiement) throws SQLException {
+        stmt.setString(1, paiement.getType().name());
+        stmt.setDouble(2, paiement.getMontant());
+        stmt.setString(3, paiement.getMotif());
+        int agentId = paiement.getAgent() != null ? paiement.getAgent().getIdAgent() : paiement.getAgentId();
+        if (agentId <= 0) {
+            throw new SQLException("Agent inexistant pour le paiement");
+        }
+        stmt.setInt(4, agentId);
+        stmt.setBoolean(5, paiement.isConditionValidee());
+        stmt.setDate(6, Date.valueOf(paiement.getDate()));
+    }
+
+    private PaiementAggregate mapResultSetToAggregate(ResultSet rs, Set<AggregateDimension> groupBy) throws SQLException {
+        PaiementAggregate aggregate = new PaiementAggregate();
+        int column = 0;
+        for (AggregateDimension dimension : groupBy) {
+            String label = "g" + column++;
+            switch (dimension) {
+                case AGENT -> aggregate.setAgentId(rs.getInt(label));
+                case DEPARTEMENT -> {
+                    int departementId = rs.getInt(label);
+                    aggregate.setDepartementId(rs.wasNull() ? null : departementId);
+                }
+                case AGENT_TYPE -> aggregate.setAgentType(TypeAgent.valueOf(rs.getString(label)));
+                case TYPE -> aggregate.setType(TypePaiement.valueOf(rs.getString(label)));
+                case YEAR -> aggregate.setYear(rs.getInt(label));
+                case MONTH -> aggregate.setMonth(rs.getInt(label));
+            }
+        }
+        aggregate.setCount(rs.getLong("nb"));
+        aggregate.setTotal(rs.getDouble("total"));
+        aggregate.setMaximum(rs.getDouble("maximum"));
+        return aggregate;
+    }
+
+    private interface ParameterBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    //one (agent, type, year, month) row of paiement_monthly_summary
+    private static final class SummaryCell {
+        private final int agentId;
+        private final TypePaiement type;
+        private final int year;
+        private final int month;
+        private long count;
+        private double total;
+        private double maximum;
+
+        private SummaryCell(int agentId, TypePaiement type, LocalDate date) {
+            this.agentId = agentId;
+            this.type = type;
+            this.year = date.getYear();
+            this.month = date.getMonthValue();
+        }
+
+        private String key() {
+            return String.format("%010d|%s|%04d|%02d", agentId, type.name(), year, month);
+        }
+
+        private void add(double montant) {
+            count++;
+            total += montant;
+            maximum = Math.max(maximum, montant);
+        }
+    }
+
     private Paiement mapResultSetToPaiement(ResultSet rs) throws SQLException {
         Paiement paiement = new Paiement(
             TypePaiement.valueOf(rs.getString("type")),
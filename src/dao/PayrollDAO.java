@@ -0,0 +1,206 @@
+package src.dao;
+
+import src.dao.interfaces.IPayroll;
+import src.models.Paiement;
+import src.models.PayrollPartition;
+import src.models.PayrollRun;
+import src.models.PayrollStatus;
+import src.config.ConfigDBConn;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class PayrollDAO implements IPayroll {
+    private static final String SELECT_RUN = "SELECT id, annee, mois, status, nb_paiements, total, started_at, finished_at FROM payroll_run";
+
+    //chunks are written with the payment DAO's batched insert so the monthly rollup stays in the same transaction
+    private final PaiementDAO paiementDAO;
+
+    public PayrollDAO(PaiementDAO paiementDAO) {
+        this.paiementDAO = paiementDAO;
+    }
+
+    @Override
+    public Optional<PayrollRun> findRun(int year, int month) {
+        String sql = SELECT_RUN + " WHERE annee = ? AND mois = ?";
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, year);
+            stmt.setInt(2, month);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapResultSetToRun(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public List<PayrollRun> findAllRuns() {
+        List<PayrollRun> runs = new ArrayList<>();
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_RUN + " ORDER BY annee DESC, mois DESC");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                runs.add(mapResultSetToRun(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return runs;
+    }
+
+    @Override
+    public PayrollRun createRun(PayrollRun run, List<PayrollPartition> partitions) {
+        String insertRun = "INSERT INTO payroll_run (annee, mois, status) VALUES (?, ?, ?)";
+        String insertPartition = "INSERT INTO payroll_checkpoint (run_id, partition_no, from_agent_id, to_agent_id) VALUES (?, ?, ?, ?)";
+        try (Connection conn = ConfigDBConn.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement runStmt = conn.prepareStatement(insertRun, Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement partitionStmt = conn.prepareStatement(insertPartition)) {
+                runStmt.setInt(1, run.getYear());
+                runStmt.setInt(2, run.getMonth());
+                runStmt.setString(3, run.getStatus().name());
+                runStmt.executeUpdate();
+                try (ResultSet generatedKeys = runStmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        run.setIdPayrollRun(generatedKeys.getInt(1));
+                    }
+                }
+                for (PayrollPartition partition : partitions) {
+                    partition.setRunId(run.getIdPayrollRun());
+                    partitionStmt.setInt(1, run.getIdPayrollRun());
+                    partitionStmt.setInt(2, partition.getNumber());
+                    partitionStmt.setInt(3, partition.getFromAgentId());
+                    partitionStmt.setInt(4, partition.getToAgentId());
+                    partitionStmt.addBatch();
+                }
+                partitionStmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                run.setIdPayrollRun(0);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return run;
+    }
+
+    @Override
+    public List<PayrollPartition> findPartitions(int runId) {
+        String sql = "SELECT partition_no, from_agent_id, to_agent_id, last_agent_id, nb, total, termine " +
+                "FROM payroll_checkpoint WHERE run_id = ? ORDER BY partition_no";
+        List<PayrollPartition> partitions = new ArrayList<>();
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, runId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    PayrollPartition partition = new PayrollPartition(rs.getInt("partition_no"),
+                            rs.getInt("from_agent_id"), rs.getInt("to_agent_id"));
+                    partition.setRunId(runId);
+                    partition.setLastAgentId(rs.getInt("last_agent_id"));
+                    partition.setPaymentCount(rs.getLong("nb"));
+                    partition.setTotal(rs.getDouble("total"));
+                    partition.setDone(rs.getBoolean("termine"));
+                    partitions.add(partition);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return partitions;
+    }
+
+    @Override
+    public boolean saveChunk(PayrollPartition partition, List<Paiement> paiements, int lastAgentId) {
+        //the last_agent_id guard keeps a chunk from being applied twice if two runners resume the same partition
+        String sql = "UPDATE payroll_checkpoint SET last_agent_id = ?, nb = nb + ?, total = total + ? " +
+                "WHERE run_id = ? AND partition_no = ? AND last_agent_id < ?";
+        double total = paiements.stream().mapToDouble(Paiement::getMontant).sum();
+        try (Connection conn = ConfigDBConn.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                paiementDAO.insertAll(conn, paiements);
+                stmt.setInt(1, lastAgentId);
+                stmt.setInt(2, paiements.size());
+                stmt.setDouble(3, total);
+                stmt.setInt(4, partition.getRunId());
+                stmt.setInt(5, partition.getNumber());
+                stmt.setInt(6, lastAgentId);
+                if (stmt.executeUpdate() != 1) {
+                    conn.rollback();
+                    paiements.forEach(paiement -> paiement.setIdPaiement(0));
+                    return false;
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                paiements.forEach(paiement -> paiement.setIdPaiement(0));
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+        partition.setLastAgentId(lastAgentId);
+        partition.setPaymentCount(partition.getPaymentCount() + paiements.size());
+        partition.setTotal(partition.getTotal() + total);
+        return true;
+    }
+
+    @Override
+    public void completePartition(PayrollPartition partition) {
+        String sql = "UPDATE payroll_checkpoint SET termine = TRUE WHERE run_id = ? AND partition_no = ?";
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, partition.getRunId());
+            stmt.setInt(2, partition.getNumber());
+            stmt.executeUpdate();
+            partition.setDone(true);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void updateStatus(int runId, PayrollStatus status) {
+        String sql = "UPDATE payroll_run r SET status = ?, " +
+                "finished_at = CASE WHEN ? = 'EN_COURS' THEN NULL ELSE CURRENT_TIMESTAMP END, " +
+                "nb_paiements = (SELECT COALESCE(SUM(c.nb), 0) FROM payroll_checkpoint c WHERE c.run_id = r.id), " +
+                "total = (SELECT COALESCE(SUM(c.total), 0) FROM payroll_checkpoint c WHERE c.run_id = r.id) " +
+                "WHERE r.id = ?";
+        try (Connection conn = ConfigDBConn.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, status.name());
+            stmt.setString(2, status.name());
+            stmt.setInt(3, runId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private PayrollRun mapResultSetToRun(ResultSet rs) throws SQLException {
+        PayrollRun run = new PayrollRun(rs.getInt("annee"), rs.getInt("mois"));
+        run.setIdPayrollRun(rs.getInt("id"));
+        run.setStatus(PayrollStatus.valueOf(rs.getString("status")));
+        run.setPaymentCount(rs.getLong("nb_paiements"));
+        run.setTotal(rs.getDouble("total"));
+        Timestamp startedAt = rs.getTimestamp("started_at");
+        run.setStartedAt(startedAt != null ? startedAt.toLocalDateTime() : null);
+        Timestamp finishedAt = rs.getTimestamp("finished_at");
+        run.setFinishedAt(finishedAt != null ? finishedAt.toLocalDateTime() : null);
+        return run;
+    }
+}
@@ -0,0 +1,199 @@
+package src.dao.cache;
+
+import src.config.TransactionManager;
+import src.dao.interfaces.IAgent;
+import src.models.Agent;
+import src.models.Departement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public class CachedAgentDAO implements IAgent {
+    private final IAgent delegate;
+    private final EntityCache<Integer, Agent> byId;
+    private final EntityCache<String, Agent> byEmail;
+
+    public CachedAgentDAO(IAgent delegate, int maxSize, long ttlSeconds) {
+        this.delegate = delegate;
+        this.byId = new EntityCache<>("agent.byId", maxSize, ttlSeconds, CachedAgentDAO::copy);
+        this.byEmail = new EntityCache<>("agent.byEmail", maxSize, ttlSeconds, CachedAgentDAO::copy);
+    }
+
+    @Override
+    public Agent save(Agent agent) {
+        Agent saved = delegate.save(agent);
+        invalidate(agent.getIdAgent(), agent.getEmail());
+        return saved;
+    }
+
+    @Override
+    public void update(Agent agent) {
+        //the email may have changed, drop whatever is cached under the old one as well
+        byId.get(agent.getIdAgent()).ifPresent(old -> byEmail.invalidate(normalize(old.getEmail())));
+        delegate.update(agent);
+        invalidate(agent.getIdAgent(), agent.getEmail());
+    }
+
+    @Override
+    public void deleteById(int id) {
+        delegate.deleteById(id);
+        invalidate(id, null);
+    }
+
+    @Override
+    public Optional<Agent> findById(int id) {
+        Optional<Agent> cached = byId.get(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<Agent> agent = delegate.findById(id);
+        agent.ifPresent(this::remember);
+        return agent;
+    }
+
+    @Override
+    public Optional<Agent> findByEmail(String email) {
+        if (email == null) {
+            return delegate.findByEmail(null);
+        }
+        Optional<Agent> cached = byEmail.get(normalize(email));
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<Agent> agent = delegate.findByEmail(email);
+        agent.ifPresent(this::remember);
+        return agent;
+    }
+
+    @Override
+    public List<Agent> findByIds(Collection<Integer> ids) {
+        return delegate.findByIds(ids);
+    }
+
+    @Override
+    public List<Agent> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Agent> findPage(int afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public List<Agent> findByDepartementId(int departementId) {
+        return delegate.findByDepartementId(departementId);
+    }
+
+    @Override
+    public List<Agent> findByTypeAgent(String typeAgent) {
+        return delegate.findByTypeAgent(typeAgent);
+    }
+
+    @Override
+    public List<Integer> findIdsByDepartementId(int departementId) {
+        return delegate.findIdsByDepartementId(departementId);
+    }
+
+    @Override
+    public int moveDepartementAgents(int fromDepartementId, Integer toDepartementId) {
+        int updated = delegate.moveDepartementAgents(fromDepartementId, toDepartementId);
+        invalidateDepartement(fromDepartementId);
+        if (TransactionManager.isActive()) {
+            TransactionManager.afterCommit(() -> invalidateDepartement(fromDepartementId));
+        }
+        return updated;
+    }
+
+    @Override
+    public int moveAgents(Collection<Integer> ids, Integer departementId) {
+        int updated = delegate.moveAgents(ids, departementId);
+        Set<Integer> moved = new HashSet<>(ids);
+        dropAll(moved);
+        if (TransactionManager.isActive()) {
+            TransactionManager.afterCommit(() -> dropAll(moved));
+        }
+        return updated;
+    }
+
+    //cached agents carry the departement name, renaming or deleting a departement goes through here
+    public void invalidateDepartement(int departementId) {
+        byId.invalidateIf(agent -> isInDepartement(agent, departementId));
+        byEmail.invalidateIf(agent -> isInDepartement(agent, departementId));
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+        byEmail.invalidateAll();
+    }
+
+    public EntityCache<Integer, Agent> getByIdCache() {
+        return byId;
+    }
+
+    public EntityCache<String, Agent> getByEmailCache() {
+        return byEmail;
+    }
+
+    //rows read inside a transaction may be uncommitted writes of that transaction, they are not cached
+    private void remember(Agent agent) {
+        if (TransactionManager.isActive()) {
+            return;
+        }
+        byId.put(agent.getIdAgent(), agent);
+        if (agent.getEmail() != null) {
+            byEmail.put(normalize(agent.getEmail()), agent);
+        }
+    }
+
+    //again after commit: another thread may have cached the old row before the write became visible
+    private void invalidate(int id, String email) {
+        drop(id, email);
+        if (TransactionManager.isActive()) {
+            TransactionManager.afterCommit(() -> drop(id, email));
+        }
+    }
+
+    private void drop(int id, String email) {
+        if (id > 0) {
+            byId.invalidate(id);
+            byEmail.invalidateIf(agent -> agent.getIdAgent() == id);
+        }
+        if (email != null) {
+            byEmail.invalidate(normalize(email));
+        }
+    }
+
+    private void dropAll(Set<Integer> ids) {
+        byId.invalidateIf(agent -> ids.contains(agent.getIdAgent()));
+        byEmail.invalidateIf(agent -> ids.contains(agent.getIdAgent()));
+    }
+
+    private static boolean isInDepartement(Agent agent, int departementId) {
+        return agent.getDepartement() != null && agent.getDepartement().getIdDepartement() == departementId;
+    }
+
+    //MySQL compares emails case-insensitively with the default collation
+    private static String normalize(String email) {
+        return email.trim().toLowerCase();
+    }
+
+    private static Agent copy(Agent agent) {
+        Agent copy = new Agent(agent.getNom(), agent.getPrenom(), agent.getEmail(),
+                agent.getMotDePasse(), agent.getTypeAgent());
+        copy.setIdAgent(agent.getIdAgent());
+        if (agent.getDepartement() != null) {
+            Departement departement = new Departement(agent.getDepartement().getNom());
+            departement.setIdDepartement(agent.getDepartement().getIdDepartement());
+            copy.setDepartement(departement);
+        }
+        return copy;
+    }
+}
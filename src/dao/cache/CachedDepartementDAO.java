@@ -0,0 +1,125 @@
+package src.dao.cache;
+
+import src.config.TransactionManager;
+import src.dao.interfaces.IDepartement;
+import src.models.Departement;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+
+public class CachedDepartementDAO implements IDepartement {
+    private final IDepartement delegate;
+    private final EntityCache<Integer, Departement> byId;
+    private final EntityCache<String, Departement> byNom;
+    private final IntConsumer onWrite;
+
+    public CachedDepartementDAO(IDepartement delegate, int maxSize, long ttlSeconds, IntConsumer onWrite) {
+        this.delegate = delegate;
+        this.byId = new EntityCache<>("departement.byId", maxSize, ttlSeconds, CachedDepartementDAO::copy);
+        this.byNom = new EntityCache<>("departement.byNom", maxSize, ttlSeconds, CachedDepartementDAO::copy);
+        this.onWrite = onWrite;
+    }
+
+    @Override
+    public Departement save(Departement departement) {
+        Departement saved = delegate.save(departement);
+        invalidate(departement.getIdDepartement(), departement.getNom());
+        return saved;
+    }
+
+    @Override
+    public void update(Departement departement) {
+        byId.get(departement.getIdDepartement()).ifPresent(old -> byNom.invalidate(old.getNom()));
+        delegate.update(departement);
+        invalidate(departement.getIdDepartement(), departement.getNom());
+    }
+
+    @Override
+    public void deleteById(int id) {
+        delegate.deleteById(id);
+        invalidate(id, null);
+    }
+
+    @Override
+    public Optional<Departement> findById(int id) {
+        Optional<Departement> cached = byId.get(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<Departement> departement = delegate.findById(id);
+        departement.ifPresent(this::remember);
+        return departement;
+    }
+
+    @Override
+    public Optional<Departement> findByNom(String nom) {
+        if (nom == null) {
+            return delegate.findByNom(null);
+        }
+        Optional<Departement> cached = byNom.get(nom);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<Departement> departement = delegate.findByNom(nom);
+        departement.ifPresent(this::remember);
+        return departement;
+    }
+
+    @Override
+    public List<Departement> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+        byNom.invalidateAll();
+    }
+
+    public EntityCache<Integer, Departement> getByIdCache() {
+        return byId;
+    }
+
+    public EntityCache<String, Departement> getByNomCache() {
+        return byNom;
+    }
+
+    private void remember(Departement departement) {
+        if (TransactionManager.isActive()) {
+            return;
+        }
+        byId.put(departement.getIdDepartement(), departement);
+        if (departement.getNom() != null) {
+            byNom.put(departement.getNom(), departement);
+        }
+    }
+
+    private void invalidate(int id, String nom) {
+        drop(id, nom);
+        if (TransactionManager.isActive()) {
+            TransactionManager.afterCommit(() -> drop(id, nom));
+        }
+    }
+
+    private void drop(int id, String nom) {
+        if (id > 0) {
+            byId.invalidate(id);
+            byNom.invalidateIf(departement -> departement.getIdDepartement() == id);
+            onWrite.accept(id);
+        }
+        if (nom != null) {
+            byNom.invalidate(nom);
+        }
+    }
+
+    //only the scalar columns are cached, agents and responsable are loaded separately
+    private static Departement copy(Departement departement) {
+        Departement copy = new Departement(departement.getNom());
+        copy.setIdDepartement(departement.getIdDepartement());
+        return copy;
+    }
+}
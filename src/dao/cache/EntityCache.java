@@ -0,0 +1,130 @@
+package src.dao.cache;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+public class EntityCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final UnaryOperator<V> copier;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    //insertion order for size eviction, stale tickets are skipped when their entry was replaced or removed
+    private final ConcurrentLinkedQueue<Ticket<K>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public EntityCache(String name, int maxSize, long ttlSeconds, UnaryOperator<V> copier) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("cache size must be positive");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.copier = copier;
+    }
+
+    public Optional<V> get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (System.nanoTime() - entry.createdAt > ttlNanos) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(copier.apply(entry.value));
+    }
+
+    public void put(K key, V value) {
+        long seq = sequence.incrementAndGet();
+        entries.put(key, new Entry<>(copier.apply(value), seq, System.nanoTime()));
+        insertionOrder.add(new Ticket<>(key, seq));
+        while (entries.size() > maxSize) {
+            Ticket<K> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            Entry<V> current = entries.get(oldest.key);
+            if (current != null && current.sequence == oldest.sequence && entries.remove(oldest.key, current)) {
+                evictions.increment();
+            }
+        }
+        //drop tickets whose entries are gone so the queue cannot grow past the live entries for long
+        if (insertionOrder.size() > maxSize * 2) {
+            insertionOrder.removeIf(ticket -> {
+                Entry<V> current = entries.get(ticket.key);
+                return current == null || current.sequence != ticket.sequence;
+            });
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateIf(Predicate<V> predicate) {
+        entries.values().removeIf(entry -> predicate.test(entry.value));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+        insertionOrder.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[size=%d/%d, hits=%d, misses=%d, evictions=%d]",
+                name, size(), maxSize, getHits(), getMisses(), getEvictions());
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long sequence;
+        private final long createdAt;
+
+        private Entry(V value, long sequence, long createdAt) {
+            this.value = value;
+            this.sequence = sequence;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static final class Ticket<K> {
+        private final K key;
+        private final long sequence;
+
+        private Ticket(K key, long sequence) {
+            this.key = key;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package src.dao.interfaces;
 
 import src.models.Agent;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,8 +10,15 @@ public interface IAgent {
     void update(Agent agent);
     void deleteById(int id);
     Optional<Agent> findById(int id);
+    List<Agent> findByIds(Collection<Integer> ids);
     List<Agent> findAll();
+    List<Agent> findPage(int afterId, int limit);
+    long count();
     Optional<Agent> findByEmail(String email);
     List<Agent> findByDepartementId(int departementId);
     List<Agent> findByTypeAgent(String typeAgent);
+    List<Integer> findIdsByDepartementId(int departementId);
+    //set-based moves, a null departement unassigns; they return the number of agents updated, -1 on failure
+    int moveDepartementAgents(int fromDepartementId, Integer toDepartementId);
+    int moveAgents(Collection<Integer> ids, Integer departementId);
 }
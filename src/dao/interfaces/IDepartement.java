@@ -10,5 +10,6 @@ public interface IDepartement {
     void deleteById(int id);
     Optional<Departement> findById(int id);
     List<Departement> findAll();
+    long count();
     Optional<Departement> findByNom(String nom);
 }
\ No newline at end of file
@@ -1,19 +1,53 @@
 package src.dao.interfaces;
 
+import src.models.AggregateDimension;
 import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
 import src.models.TypePaiement;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 public interface IPaiement {
     Paiement save(Paiement paiement);
+    List<Paiement> saveAll(Collection<Paiement> paiements);
     void update(Paiement paiement);
     void deleteById(int id);
     Optional<Paiement> findById(int id);
     List<Paiement> findAll();
+    //rows are read lazily from an open cursor, close the stream (try-with-resources) when done
+    Stream<Paiement> streamAll();
+    //same contract as streamAll, limited to fromId <= id < toIdExclusive, in id order
+    Stream<Paiement> streamByIdRange(int fromId, int toIdExclusive);
+    //0 when the table is empty
+    int findMinId();
+    int findMaxId();
     List<Paiement> findByAgentId(int agentId);
+    //payments of all given agents in one query, grouped by agent in the order the ids were given
+    List<Paiement> findByAgentIds(Collection<Integer> agentIds);
     List<Paiement> findByType(TypePaiement type);
     List<Paiement> findByDateRange(LocalDate startDate, LocalDate endDate);
     List<Paiement> findByAgentAndType(int agentId, TypePaiement type);
+    //keyset pagination: rows with id > afterId, in id order
+    List<Paiement> findPage(int afterId, int limit);
+    List<Paiement> findPageByType(TypePaiement type, int afterId, int limit);
+    List<Paiement> findPageByDateRange(LocalDate startDate, LocalDate endDate, int afterId, int limit);
+    //rows inserted or modified at or after the given time, in id order
+    List<Paiement> findUpdatedSince(LocalDateTime since);
+    long countUpToId(int maxId);
+    //the database clock, the one updated_at is written with; empty when it cannot be read
+    Optional<LocalDateTime> findCurrentTime();
+    Optional<Paiement> findHighestByAgentId(int agentId);
+    PaiementAggregate summarize(PaiementCriteria criteria);
+    //served from paiement_monthly_summary unless db.summary.enabled=false
+    List<PaiementAggregate> aggregate(PaiementCriteria criteria, Set<AggregateDimension> groupBy);
+    //agents by total paid, highest first then lowest id, those without any payment last with a total of 0
+    List<PaiementAggregate> rankAgentsByTotal(int offset, int limit);
+    //recomputes the monthly rollup from paiement, returns the number of cells written or -1 on failure
+    int rebuildMonthlySummary();
 }
\ No newline at end of file
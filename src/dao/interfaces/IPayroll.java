@@ -0,0 +1,22 @@
+package src.dao.interfaces;
+
+import src.models.Paiement;
+import src.models.PayrollPartition;
+import src.models.PayrollRun;
+import src.models.PayrollStatus;
+import java.util.List;
+import java.util.Optional;
+
+public interface IPayroll {
+    Optional<PayrollRun> findRun(int year, int month);
+    List<PayrollRun> findAllRuns();
+    //run and partitions are inserted together, the run id stays 0 on failure (e.g. the month already has a run)
+    PayrollRun createRun(PayrollRun run, List<PayrollPartition> partitions);
+    List<PayrollPartition> findPartitions(int runId);
+    //payments, their rollup cells and the checkpoint move in one transaction; false when nothing was written,
+    //including when the checkpoint is already at or past lastAgentId
+    boolean saveChunk(PayrollPartition partition, List<Paiement> paiements, int lastAgentId);
+    void completePartition(PayrollPartition partition);
+    //also copies the partition totals onto the run
+    void updateStatus(int runId, PayrollStatus status);
+}
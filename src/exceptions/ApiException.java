@@ -0,0 +1,14 @@
+package src.exceptions;
+
+public class ApiException extends Exception {
+	private final int status;
+
+	public ApiException(int status, String message) {
+		super(message);
+		this.status = status;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+}
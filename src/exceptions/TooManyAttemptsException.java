@@ -0,0 +1,14 @@
+package src.exceptions;
+
+public class TooManyAttemptsException extends AuthenticationException {
+	private final long retryAfterSeconds;
+
+	public TooManyAttemptsException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
@@ -0,0 +1,14 @@
+package src.models;
+
+public class AgentTotal {
+    private final Agent agent;
+    private final double total;
+
+    public AgentTotal(Agent agent, double total) {
+        this.agent = agent;
+        this.total = total;
+    }
+
+    public Agent getAgent() { return agent; }
+    public double getTotal() { return total; }
+}
@@ -0,0 +1,10 @@
+package src.models;
+
+public enum AggregateDimension {
+    AGENT,
+    DEPARTEMENT,
+    AGENT_TYPE,
+    TYPE,
+    YEAR,
+    MONTH
+}
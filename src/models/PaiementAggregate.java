@@ -0,0 +1,36 @@
+package src.models;
+
+public class PaiementAggregate {
+    private Integer agentId;
+    private Integer departementId;
+    private TypeAgent agentType;
+    private TypePaiement type;
+    private Integer year;
+    private Integer month;
+    private long count;
+    private double total;
+    private double maximum;
+
+    public Integer getAgentId() { return agentId; }
+    public void setAgentId(Integer agentId) { this.agentId = agentId; }
+    public Integer getDepartementId() { return departementId; }
+    public void setDepartementId(Integer departementId) { this.departementId = departementId; }
+    public TypeAgent getAgentType() { return agentType; }
+    public void setAgentType(TypeAgent agentType) { this.agentType = agentType; }
+    public TypePaiement getType() { return type; }
+    public void setType(TypePaiement type) { this.type = type; }
+    public Integer getYear() { return year; }
+    public void setYear(Integer year) { this.year = year; }
+    public Integer getMonth() { return month; }
+    public void setMonth(Integer month) { this.month = month; }
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+    public double getTotal() { return total; }
+    public void setTotal(double total) { this.total = total; }
+    public double getMaximum() { return maximum; }
+    public void setMaximum(double maximum) { this.maximum = maximum; }
+
+    public double getAverage() {
+        return count == 0 ? 0.0 : total / count;
+    }
+}
@@ -0,0 +1,61 @@
+package src.models;
+
+import java.time.LocalDate;
+
+public class PaiementCriteria {
+    private Integer agentId;
+    private Integer departementId;
+    private TypePaiement type;
+    private Integer year;
+    private Integer month;
+
+    public PaiementCriteria agent(int agentId) {
+        this.agentId = agentId;
+        return this;
+    }
+
+    public PaiementCriteria departement(int departementId) {
+        this.departementId = departementId;
+        return this;
+    }
+
+    public PaiementCriteria type(TypePaiement type) {
+        this.type = type;
+        return this;
+    }
+
+    public PaiementCriteria year(int year) {
+        this.year = year;
+        return this;
+    }
+
+    public PaiementCriteria month(int year, int month) {
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("month must be between 1 and 12");
+        }
+        this.year = year;
+        this.month = month;
+        return this;
+    }
+
+    public Integer getAgentId() { return agentId; }
+    public Integer getDepartementId() { return departementId; }
+    public TypePaiement getType() { return type; }
+    public Integer getYear() { return year; }
+    public Integer getMonth() { return month; }
+
+    public LocalDate getStartDate() {
+        if (year == null) {
+            return null;
+        }
+        return month != null ? LocalDate.of(year, month, 1) : LocalDate.of(year, 1, 1);
+    }
+
+    public LocalDate getEndDateExclusive() {
+        LocalDate start = getStartDate();
+        if (start == null) {
+            return null;
+        }
+        return month != null ? start.plusMonths(1) : start.plusYears(1);
+    }
+}
@@ -0,0 +1,21 @@
+package src.models;
+
+public class PaymentAnomaly {
+    private final Paiement paiement;
+    private final double expectedAmount;
+    private final double standardDeviation;
+    private final double score;
+
+    public PaymentAnomaly(Paiement paiement, double expectedAmount, double standardDeviation, double score) {
+        this.paiement = paiement;
+        this.expectedAmount = expectedAmount;
+        this.standardDeviation = standardDeviation;
+        this.score = score;
+    }
+
+    public Paiement getPaiement() { return paiement; }
+    public double getExpectedAmount() { return expectedAmount; }
+    public double getStandardDeviation() { return standardDeviation; }
+    //signed distance to the agent/type mean, in standard deviations
+    public double getScore() { return score; }
+}
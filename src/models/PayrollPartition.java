@@ -0,0 +1,34 @@
+package src.models;
+
+//agents fromAgentId <= id < toAgentId of a payroll run, with the checkpoint reached so far
+public class PayrollPartition {
+    private int runId;
+    private final int number;
+    private final int fromAgentId;
+    private final int toAgentId;
+    private int lastAgentId;
+    private long paymentCount;
+    private double total;
+    private boolean done;
+
+    public PayrollPartition(int number, int fromAgentId, int toAgentId) {
+        this.number = number;
+        this.fromAgentId = fromAgentId;
+        this.toAgentId = toAgentId;
+    }
+
+    public int getRunId() { return runId; }
+    public void setRunId(int runId) { this.runId = runId; }
+    public int getNumber() { return number; }
+    public int getFromAgentId() { return fromAgentId; }
+    public int getToAgentId() { return toAgentId; }
+    //every agent up to this id is paid, 0 before the first chunk
+    public int getLastAgentId() { return lastAgentId; }
+    public void setLastAgentId(int lastAgentId) { this.lastAgentId = lastAgentId; }
+    public long getPaymentCount() { return paymentCount; }
+    public void setPaymentCount(long paymentCount) { this.paymentCount = paymentCount; }
+    public double getTotal() { return total; }
+    public void setTotal(double total) { this.total = total; }
+    public boolean isDone() { return done; }
+    public void setDone(boolean done) { this.done = done; }
+}
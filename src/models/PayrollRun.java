@@ -0,0 +1,36 @@
+package src.models;
+
+import java.time.LocalDateTime;
+
+public class PayrollRun {
+    private int idPayrollRun;
+    private int year;
+    private int month;
+    private PayrollStatus status;
+    private long paymentCount;
+    private double total;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public PayrollRun(int year, int month) {
+        this.year = year;
+        this.month = month;
+        this.status = PayrollStatus.EN_COURS;
+    }
+
+    public int getIdPayrollRun() { return idPayrollRun; }
+    public void setIdPayrollRun(int idPayrollRun) { this.idPayrollRun = idPayrollRun; }
+    public int getYear() { return year; }
+    public int getMonth() { return month; }
+    public PayrollStatus getStatus() { return status; }
+    public void setStatus(PayrollStatus status) { this.status = status; }
+    public long getPaymentCount() { return paymentCount; }
+    public void setPaymentCount(long paymentCount) { this.paymentCount = paymentCount; }
+    public double getTotal() { return total; }
+    public void setTotal(double total) { this.total = total; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+    //null while the run is not finished
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
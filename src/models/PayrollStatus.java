@@ -0,0 +1,7 @@
+package src.models;
+
+public enum PayrollStatus {
+    EN_COURS,
+    TERMINE,
+    ECHEC
+}
@@ -3,12 +3,25 @@ package src.models;
 import java.time.LocalDateTime;
 
 public class Session {
+    private final String token;
     private final Agent agent;
     private final LocalDateTime startedAt;
+    private final long createdAtMs;
+    private final boolean pinned;
+    private volatile long lastAccessMs;
 
-    public Session(Agent agent) {
+    //a pinned session never expires, it lasts until it is closed (the console's)
+    public Session(String token, Agent agent, long createdAtMs, boolean pinned) {
+        this.token = token;
         this.agent = agent;
         this.startedAt = LocalDateTime.now();
+        this.createdAtMs = createdAtMs;
+        this.pinned = pinned;
+        this.lastAccessMs = createdAtMs;
+    }
+
+    public String getToken() {
+        return token;
     }
 
     public Agent getAgent() {
@@ -18,4 +31,20 @@ public class Session {
     public LocalDateTime getStartedAt() {
         return startedAt;
     }
+
+    public long getCreatedAtMs() {
+        return createdAtMs;
+    }
+
+    public boolean isPinned() {
+        return pinned;
+    }
+
+    public long getLastAccessMs() {
+        return lastAccessMs;
+    }
+
+    public void touch(long nowMs) {
+        lastAccessMs = nowMs;
+    }
 }
@@ -0,0 +1,183 @@
+package src.services;
+
+import src.dao.interfaces.IAgent;
+import src.models.Agent;
+import src.models.AgentTotal;
+import src.models.PaiementAggregate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+//turns per-agent totals into a ranking, shared by the statistics engines
+final class AgentRanking {
+    private static final int AGENT_LOOKUP_BY_ID_LIMIT = 1000;
+
+    private AgentRanking() {
+    }
+
+    static List<AgentTotal> rank(Map<Integer, Double> totals, int limit, IAgent agentDAO) {
+        //best entry first: highest total, then lowest id so ties are stable
+        Comparator<Map.Entry<Integer, Double>> rankingOrder = Map.Entry.<Integer, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+
+        //bounded heap with the worst kept entry on top, so only `limit` entries are ever held
+        PriorityQueue<Map.Entry<Integer, Double>> heap =
+                new PriorityQueue<>(Math.min(limit, totals.size()) + 1, rankingOrder.reversed());
+        for (Map.Entry<Integer, Double> entry : totals.entrySet()) {
+            if (heap.size() < limit) {
+                heap.add(entry);
+            } else if (rankingOrder.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(heap);
+        ranked.sort(rankingOrder);
+
+        int[] agentIds = new int[ranked.size()];
+        double[] rankedTotals = new double[ranked.size()];
+        for (int i = 0; i < agentIds.length; i++) {
+            agentIds[i] = ranked.get(i).getKey();
+            rankedTotals[i] = ranked.get(i).getValue();
+        }
+        return resolve(agentIds, rankedTotals, limit, agentId -> totals.containsKey(agentId), agentDAO);
+    }
+
+    //same ranking over dense per-agent totals in cents, indexed by agent id with -1 for agents without any
+    //payment: the bounded heap holds agent ids and compares the totals array, nothing is boxed
+    static List<AgentTotal> rankCents(long[] totalCents, int limit, IAgent agentDAO) {
+        int paid = 0;
+        for (long total : totalCents) {
+            if (total >= 0) {
+                paid++;
+            }
+        }
+        int[] heap = new int[Math.min(limit, paid)];
+        int heapSize = 0;
+        for (int agentId = 0; agentId < totalCents.length; agentId++) {
+            if (totalCents[agentId] < 0) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = agentId;
+                siftUp(heap, heapSize++, totalCents);
+            } else if (heapSize > 0 && ranksAbove(agentId, heap[0], totalCents)) {
+                heap[0] = agentId;
+                siftDown(heap, heapSize, totalCents);
+            }
+        }
+        //popping the worst entry each time fills the ranking from its end
+        int[] agentIds = new int[heapSize];
+        double[] rankedTotals = new double[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            agentIds[i] = heap[0];
+            rankedTotals[i] = totalCents[heap[0]] / 100.0;
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, totalCents);
+        }
+        return resolve(agentIds, rankedTotals, limit,
+                agentId -> agentId < totalCents.length && totalCents[agentId] >= 0, agentDAO);
+    }
+
+    //highest total first, then lowest id so ties are stable
+    private static boolean ranksAbove(int a, int b, long[] totalCents) {
+        return totalCents[a] != totalCents[b] ? totalCents[a] > totalCents[b] : a < b;
+    }
+
+    //min-heap in ranking order: the worst kept agent sits at index 0
+    private static void siftUp(int[] heap, int index, long[] totalCents) {
+        int agentId = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksAbove(heap[parent], agentId, totalCents)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = agentId;
+    }
+
+    private static void siftDown(int[] heap, int size, long[] totalCents) {
+        if (size == 0) {
+            return;
+        }
+        int agentId = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && ranksAbove(heap[child], heap[child + 1], totalCents)) {
+                child++;
+            }
+            if (!ranksAbove(agentId, heap[child], totalCents)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = agentId;
+    }
+
+    //looks the ranked agents up and, when the ranking is not full yet, appends the agents without any payment
+    private static List<AgentTotal> resolve(int[] agentIds, double[] rankedTotals, int limit, IntPredicate paid,
+                                            IAgent agentDAO) {
+        List<Agent> allAgents = null;
+        Map<Integer, Agent> agents = new HashMap<>();
+        if (agentIds.length > AGENT_LOOKUP_BY_ID_LIMIT) {
+            allAgents = agentDAO.findAll();
+            allAgents.forEach(agent -> agents.put(agent.getIdAgent(), agent));
+        } else {
+            agentDAO.findByIds(Arrays.stream(agentIds).boxed().toList())
+                    .forEach(agent -> agents.put(agent.getIdAgent(), agent));
+        }
+
+        List<AgentTotal> ranking = new ArrayList<>();
+        for (int i = 0; i < agentIds.length; i++) {
+            Agent agent = agents.get(agentIds[i]);
+            if (agent != null) {
+                ranking.add(new AgentTotal(agent, rankedTotals[i]));
+            }
+        }
+
+        //agents without any payment come last, only needed when the ranking is not full yet
+        if (ranking.size() < limit) {
+            if (allAgents == null) {
+                allAgents = agentDAO.findAll();
+            }
+            allAgents.stream()
+                    .filter(agent -> !paid.test(agent.getIdAgent()))
+                    .sorted(Comparator.comparingInt(Agent::getIdAgent))
+                    .limit(limit - ranking.size())
+                    .forEach(agent -> ranking.add(new AgentTotal(agent, 0.0)));
+        }
+        return ranking;
+    }
+
+    //rows the database has already ranked and cut to a page, only their agents are looked up
+    static List<AgentTotal> resolve(List<PaiementAggregate> rows, IAgent agentDAO) {
+        Map<Integer, Agent> agents = new HashMap<>();
+        if (rows.size() > AGENT_LOOKUP_BY_ID_LIMIT) {
+            agentDAO.findAll().forEach(agent -> agents.put(agent.getIdAgent(), agent));
+        } else {
+            agentDAO.findByIds(rows.stream().map(PaiementAggregate::getAgentId).toList())
+                    .forEach(agent -> agents.put(agent.getIdAgent(), agent));
+        }
+        List<AgentTotal> ranking = new ArrayList<>();
+        for (PaiementAggregate row : rows) {
+            Agent agent = agents.get(row.getAgentId());
+            if (agent != null) {
+                ranking.add(new AgentTotal(agent, row.getTotal()));
+            }
+        }
+        return ranking;
+    }
+}
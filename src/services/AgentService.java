@@ -1,9 +1,10 @@
 package src.services;
 
 import src.config.ConfigDBConn;
-import src.dao.AgentDAO;
-import src.dao.DepartementDAO;
-import src.dao.PaiementDAO;
+import src.config.TransactionManager;
+import src.dao.interfaces.IAgent;
+import src.dao.interfaces.IDepartement;
+import src.dao.interfaces.IPaiement;
 import src.exceptions.AgentNotFoundException;
 import src.exceptions.DepartementNotFoundException;
 import src.models.Agent;
@@ -18,59 +19,76 @@ import java.util.Optional;
 
 public class AgentService implements IAgentService {
 
-    private final AgentDAO agentDAO;
-    private final DepartementDAO departementDAO;
-    private final PaiementDAO paiementDAO;
+    private final IAgent agentDAO;
+    private final IDepartement departementDAO;
+    private final IPaiement paiementDAO;
+    private final DataChangeNotifier notifier;
 
-    public AgentService(AgentDAO agentDAO, DepartementDAO departementDAO, PaiementDAO paiementDAO) {
+    public AgentService(IAgent agentDAO, IDepartement departementDAO, IPaiement paiementDAO, DataChangeNotifier notifier) {
         this.agentDAO = agentDAO;
         this.departementDAO = departementDAO;
         this.paiementDAO = paiementDAO;
+        this.notifier = notifier;
     }
 
 
     public Agent createAgent(String nom, String prenom, String email, String motDePasse, TypeAgent typeAgent, Integer departementId) throws DepartementNotFoundException {
+        try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+            validateAgentInput(nom, prenom, email, motDePasse);
+            ensureEmailAvailable(email, null);
 
-        validateAgentInput(nom, prenom, email, motDePasse);
-        ensureEmailAvailable(email, null);
+            Agent agent = new Agent(nom, prenom, email, motDePasse, typeAgent);
 
-        Agent agent = new Agent(nom, prenom, email, motDePasse, typeAgent);
+            if (departementId != null) {
+                Departement departement = fetchDepartement(departementId);
+                agent.setDepartement(departement);
+            }
 
-        if (departementId != null) {
-            Departement departement = fetchDepartement(departementId);
-            agent.setDepartement(departement);
+            Agent saved = agentDAO.save(agent);
+            if (saved.getIdAgent() > 0) {
+                notifier.agentCreated(saved);
+            }
+            tx.commit();
+            return saved;
         }
-
-        return agentDAO.save(agent);
     }
 
     public Agent updateAgent(int agentId, String nom, String prenom, String email, String motDePasse, TypeAgent typeAgent, Integer departementId) throws AgentNotFoundException, DepartementNotFoundException {
+        try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+            Agent existingAgent = fetchAgent(agentId);
+            int previousDepartementId = DataChangeNotifier.departementIdOf(existingAgent);
 
-        Agent existingAgent = fetchAgent(agentId);
-        
-        validateAgentInput(nom, prenom, email, motDePasse);
-        ensureEmailAvailable(email, agentId);
+            validateAgentInput(nom, prenom, email, motDePasse);
+            ensureEmailAvailable(email, agentId);
 
-        existingAgent.setNom(nom);
-        existingAgent.setPrenom(prenom);
-        existingAgent.setEmail(email);
-        existingAgent.setMotDePasse(motDePasse);
-        existingAgent.setTypeAgent(typeAgent);
+            existingAgent.setNom(nom);
+            existingAgent.setPrenom(prenom);
+            existingAgent.setEmail(email);
+            existingAgent.setMotDePasse(motDePasse);
+            existingAgent.setTypeAgent(typeAgent);
 
-        if (departementId != null) {
-            Departement departement = fetchDepartement(departementId);
-            existingAgent.setDepartement(departement);
-        } else {
-            existingAgent.setDepartement(null);
-        }
+            if (departementId != null) {
+                Departement departement = fetchDepartement(departementId);
+                existingAgent.setDepartement(departement);
+            } else {
+                existingAgent.setDepartement(null);
+            }
 
-        agentDAO.update(existingAgent);
-        return existingAgent;
+            agentDAO.update(existingAgent);
+            notifier.agentMoved(agentId, previousDepartementId, DataChangeNotifier.departementIdOf(existingAgent));
+            notifier.agentUpdated(existingAgent);
+            tx.commit();
+            return existingAgent;
+        }
     }
 
     public void deleteAgent(int agentId) throws AgentNotFoundException {
-        fetchAgent(agentId);
-        agentDAO.deleteById(agentId);
+        try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+            Agent agent = fetchAgent(agentId);
+            agentDAO.deleteById(agentId);
+            notifier.agentDeleted(agent);
+            tx.commit();
+        }
     }
 
     public Agent getAgentById(int agentId) throws AgentNotFoundException {
@@ -81,6 +99,10 @@ public class AgentService implements IAgentService {
         return agentDAO.findAll();
     }
 
+    public List<Agent> getAgentsPage(int afterId, int limit) {
+        return agentDAO.findPage(afterId, limit);
+    }
+
     public List<Agent> getAgentsByDepartment(int departementId) throws DepartementNotFoundException {
         fetchDepartement(departementId);
         return agentDAO.findByDepartementId(departementId);
@@ -91,17 +113,23 @@ public class AgentService implements IAgentService {
     }
 
     public Departement assignResponsable(int departementId, int agentId) throws AgentNotFoundException, DepartementNotFoundException {
-        Departement departement = fetchDepartement(departementId);
-        Agent agent = fetchAgent(agentId);
+        try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+            Departement departement = fetchDepartement(departementId);
+            Agent agent = fetchAgent(agentId);
 
-        if (agent.getDepartement() == null || agent.getDepartement().getIdDepartement() != departementId) {
-            agent.setDepartement(departement);
-            agentDAO.update(agent);
-        }
+            if (agent.getDepartement() == null || agent.getDepartement().getIdDepartement() != departementId) {
+                int previousDepartementId = DataChangeNotifier.departementIdOf(agent);
+                agent.setDepartement(departement);
+                agentDAO.update(agent);
+                notifier.agentMoved(agentId, previousDepartementId, departementId);
+            }
 
-        departement.setResponsable(agent);
-        departementDAO.update(departement);
-        return departement;
+            departement.setResponsable(agent);
+            departementDAO.update(departement);
+            notifier.departementUpdated(departement);
+            tx.commit();
+            return departement;
+        }
     }
 
     public List<Paiement> getPaymentsForAgent(int agentId) throws AgentNotFoundException {
@@ -0,0 +1,74 @@
+package src.services;
+
+import src.models.Agent;
+import src.models.Departement;
+import src.models.Paiement;
+import src.models.TypeAgent;
+import src.services.interfaces.IAgentService;
+import src.services.interfaces.IAsyncAgentService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class AsyncAgentService implements IAsyncAgentService {
+    private final IAgentService agentService;
+    private final AsyncExecutor executor;
+
+    public AsyncAgentService(IAgentService agentService, AsyncExecutor executor) {
+        this.agentService = agentService;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Agent> createAgent(String nom, String prenom, String email, String motDePasse,
+                                                TypeAgent typeAgent, Integer departementId) {
+        return executor.submit(() -> agentService.createAgent(nom, prenom, email, motDePasse, typeAgent, departementId));
+    }
+
+    public CompletableFuture<Agent> updateAgent(int agentId, String nom, String prenom, String email,
+                                                String motDePasse, TypeAgent typeAgent, Integer departementId) {
+        return executor.submit(() -> agentService.updateAgent(agentId, nom, prenom, email, motDePasse, typeAgent, departementId));
+    }
+
+    public CompletableFuture<Void> deleteAgent(int agentId) {
+        return executor.submit(() -> {
+            agentService.deleteAgent(agentId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Agent> getAgentById(int agentId) {
+        return executor.submit(() -> agentService.getAgentById(agentId));
+    }
+
+    public CompletableFuture<List<Agent>> getAllAgents() {
+        return executor.submit(() -> agentService.getAllAgents());
+    }
+
+    public CompletableFuture<List<Agent>> getAgentsPage(int afterId, int limit) {
+        return executor.submit(() -> agentService.getAgentsPage(afterId, limit));
+    }
+
+    public CompletableFuture<List<Agent>> getAgentsByDepartment(int departementId) {
+        return executor.submit(() -> agentService.getAgentsByDepartment(departementId));
+    }
+
+    public CompletableFuture<List<Agent>> getAgentsByType(TypeAgent typeAgent) {
+        return executor.submit(() -> agentService.getAgentsByType(typeAgent));
+    }
+
+    public CompletableFuture<Departement> assignResponsable(int departementId, int agentId) {
+        return executor.submit(() -> agentService.assignResponsable(departementId, agentId));
+    }
+
+    public CompletableFuture<List<Paiement>> getPaymentsForAgent(int agentId) {
+        return executor.submit(() -> agentService.getPaymentsForAgent(agentId));
+    }
+
+    public CompletableFuture<Double> calculateTotalPayments(int agentId) {
+        return executor.submit(() -> agentService.calculateTotalPayments(agentId));
+    }
+
+    public CompletableFuture<Boolean> testDatabaseConnection() {
+        return executor.submit(() -> agentService.testDatabaseConnection());
+    }
+}
@@ -0,0 +1,100 @@
+package src.services;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+//runs blocking service calls off the caller's thread and completes a future with their result or exception.
+//on a JDK with virtual threads every call gets its own virtual thread; on older ones the calls queue on a
+//fixed pool of daemon platform threads. either way the connection pool bounds how many reach MySQL at once
+public class AsyncExecutor implements Executor {
+    private static final Logger logger = Logger.getLogger(AsyncExecutor.class.getName());
+
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    public AsyncExecutor(int fallbackThreads) {
+        if (fallbackThreads <= 0) {
+            throw new IllegalArgumentException("thread count must be positive");
+        }
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        if (virtual != null) {
+            this.executor = virtual;
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(fallbackThreads, runnable -> {
+                Thread thread = new Thread(runnable, "flowpay-async-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    //checked exceptions of the task (AgentNotFoundException...) complete the future exceptionally as they are,
+    //join() and get() wrap them in CompletionException / ExecutionException
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    //also usable as a plain executor, e.g. one thread per HTTP request
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "async[" + (virtualThreads ? "virtual threads" : "platform threads") + "]";
+    }
+
+    //looked up reflectively so the code still compiles and runs on Java 17
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            //preview builds expose the method but refuse to run it without --enable-preview
+            logger.log(Level.FINE, "Virtual threads unavailable, using platform threads", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package src.services;
+
+import src.models.Paiement;
+import src.models.TypePaiement;
+import src.services.interfaces.IAsyncPaiementService;
+import src.services.interfaces.IPaiementService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class AsyncPaiementService implements IAsyncPaiementService {
+    private final IPaiementService paiementService;
+    private final AsyncExecutor executor;
+
+    public AsyncPaiementService(IPaiementService paiementService, AsyncExecutor executor) {
+        this.paiementService = paiementService;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Paiement> createPaiement(int agentId, TypePaiement type, double montant,
+                                                      String motif, boolean conditionValidee, LocalDate date) {
+        return executor.submit(() -> paiementService.createPaiement(agentId, type, montant, motif, conditionValidee, date));
+    }
+
+    public CompletableFuture<List<Paiement>> createPaiements(List<Paiement> paiements) {
+        return executor.submit(() -> paiementService.createPaiements(paiements));
+    }
+
+    public CompletableFuture<Paiement> updatePaiement(int paiementId, TypePaiement type, double montant,
+                                                      String motif, boolean conditionValidee, LocalDate date) {
+        return executor.submit(() -> paiementService.updatePaiement(paiementId, type, montant, motif, conditionValidee, date));
+    }
+
+    public CompletableFuture<Void> deletePaiement(int paiementId) {
+        return executor.submit(() -> {
+            paiementService.deletePaiement(paiementId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Paiement> getPaiementById(int paiementId) {
+        return executor.submit(() -> paiementService.getPaiementById(paiementId));
+    }
+
+    public CompletableFuture<List<Paiement>> getAllPaiements() {
+        return executor.submit(() -> paiementService.getAllPaiements());
+    }
+
+    public CompletableFuture<List<Paiement>> getPaiementsByAgent(int agentId) {
+        return executor.submit(() -> paiementService.getPaiementsByAgent(agentId));
+    }
+
+    public CompletableFuture<List<Paiement>> getPaiementsByType(TypePaiement type) {
+        return executor.submit(() -> paiementService.getPaiementsByType(type));
+    }
+
+    public CompletableFuture<List<Paiement>> getPaiementsByDateRange(LocalDate start, LocalDate end) {
+        return executor.submit(() -> paiementService.getPaiementsByDateRange(start, end));
+    }
+
+    public CompletableFuture<List<Paiement>> getPaiementsPage(int afterId, int limit) {
+        return executor.submit(() -> paiementService.getPaiementsPage(afterId, limit));
+    }
+
+    public CompletableFuture<List<Paiement>> getPaiementsPageByType(TypePaiement type, int afterId, int limit) {
+        return executor.submit(() -> paiementService.getPaiementsPageByType(type, afterId, limit));
+    }
+
+    public CompletableFuture<List<Paiement>> getPaiementsPageByDateRange(LocalDate start, LocalDate end,
+                                                                         int afterId, int limit) {
+        return executor.submit(() -> paiementService.getPaiementsPageByDateRange(start, end, afterId, limit));
+    }
+
+    public CompletableFuture<Double> calculateTotalByAgent(int agentId) {
+        return executor.submit(() -> paiementService.calculateTotalByAgent(agentId));
+    }
+
+    public CompletableFuture<Double> calculateAverageByAgent(int agentId) {
+        return executor.submit(() -> paiementService.calculateAverageByAgent(agentId));
+    }
+}
@@ -0,0 +1,114 @@
+package src.services;
+
+import src.models.Agent;
+import src.models.AgentTotal;
+import src.models.AggregateDimension;
+import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
+import src.models.PaymentAnomaly;
+import src.models.TypePaiement;
+import src.services.interfaces.IAsyncStatisticsService;
+import src.services.interfaces.IStatisticsService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+public class AsyncStatisticsService implements IAsyncStatisticsService {
+    private final IStatisticsService statisticsService;
+    private final AsyncExecutor executor;
+
+    public AsyncStatisticsService(IStatisticsService statisticsService, AsyncExecutor executor) {
+        this.statisticsService = statisticsService;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Double> getAnnualTotalForAgent(int agentId, int year) {
+        return executor.submit(() -> statisticsService.getAnnualTotalForAgent(agentId, year));
+    }
+
+    public CompletableFuture<Long> countPaymentsByType(int agentId, TypePaiement type) {
+        return executor.submit(() -> statisticsService.countPaymentsByType(agentId, type));
+    }
+
+    public CompletableFuture<Optional<Paiement>> getHighestPaymentForAgent(int agentId) {
+        return executor.submit(() -> statisticsService.getHighestPaymentForAgent(agentId));
+    }
+
+    public CompletableFuture<Double> getDepartmentTotal(int departementId) {
+        return executor.submit(() -> statisticsService.getDepartmentTotal(departementId));
+    }
+
+    public CompletableFuture<Double> getDepartmentAverageSalary(int departementId) {
+        return executor.submit(() -> statisticsService.getDepartmentAverageSalary(departementId));
+    }
+
+    public CompletableFuture<Double> getDepartmentMedianSalary(int departementId) {
+        return executor.submit(() -> statisticsService.getDepartmentMedianSalary(departementId));
+    }
+
+    public CompletableFuture<Double> getPaymentPercentile(PaiementCriteria criteria, double percentile) {
+        return executor.submit(() -> statisticsService.getPaymentPercentile(criteria, percentile));
+    }
+
+    public CompletableFuture<Long> countDistinctPaidAgents(PaiementCriteria criteria) {
+        return executor.submit(() -> statisticsService.countDistinctPaidAgents(criteria));
+    }
+
+    public CompletableFuture<List<PaiementAggregate>> pivot(PaiementCriteria criteria,
+                                                            Set<AggregateDimension> groupBy) {
+        return executor.submit(() -> statisticsService.pivot(criteria, groupBy));
+    }
+
+    public CompletableFuture<List<Agent>> rankAgentsByTotalPayments() {
+        return executor.submit(() -> statisticsService.rankAgentsByTotalPayments());
+    }
+
+    public CompletableFuture<List<AgentTotal>> topAgentsByTotalPayments(int k) {
+        return executor.submit(() -> statisticsService.topAgentsByTotalPayments(k));
+    }
+
+    public CompletableFuture<List<AgentTotal>> rankAgentsByTotalPayments(int page, int size) {
+        return executor.submit(() -> statisticsService.rankAgentsByTotalPayments(page, size));
+    }
+
+    public CompletableFuture<Map<TypePaiement, Long>> getPaymentDistribution() {
+        return executor.submit(() -> statisticsService.getPaymentDistribution());
+    }
+
+    public CompletableFuture<Double> getGlobalPaymentsTotal() {
+        return executor.submit(() -> statisticsService.getGlobalPaymentsTotal());
+    }
+
+    public CompletableFuture<Long> getTotalAgents() {
+        return executor.submit(() -> statisticsService.getTotalAgents());
+    }
+
+    public CompletableFuture<Long> getTotalDepartements() {
+        return executor.submit(() -> statisticsService.getTotalDepartements());
+    }
+
+    public CompletableFuture<Optional<Paiement>> detectUnusualPayment(double threshold) {
+        return executor.submit(() -> statisticsService.detectUnusualPayment(threshold));
+    }
+
+    public CompletableFuture<List<PaymentAnomaly>> detectAnomalies(double sigmas) {
+        return executor.submit(() -> statisticsService.detectAnomalies(sigmas));
+    }
+
+    public CompletableFuture<List<PaymentAnomaly>> getRecentAnomalies() {
+        return executor.submit(() -> statisticsService.getRecentAnomalies());
+    }
+
+    public CompletableFuture<List<Paiement>> getPaymentsBetween(LocalDate start, LocalDate end) {
+        return executor.submit(() -> statisticsService.getPaymentsBetween(start, end));
+    }
+
+    public CompletableFuture<Integer> rebuildMonthlySummary() {
+        return executor.submit(() -> statisticsService.rebuildMonthlySummary());
+    }
+}
@@ -1,7 +1,8 @@
 package src.services;
 
-import src.dao.AgentDAO;
+import src.dao.interfaces.IAgent;
 import src.exceptions.AuthenticationException;
+import src.exceptions.TooManyAttemptsException;
 import src.models.Agent;
 import src.models.Session;
 import src.services.interfaces.IAuthService;
@@ -9,31 +10,71 @@ import src.services.interfaces.IAuthService;
 import java.util.Optional;
 
 public class AuthService implements IAuthService {
-    private final AgentDAO agentDAO;
+    //source of the logins typed at the console, API logins use the client address
+    public static final String CONSOLE_SOURCE = "console";
+
+    private final IAgent agentDAO;
     private final SessionService sessionService;
+    private final LoginThrottle throttle;
 
-    public AuthService(AgentDAO agentDAO, SessionService sessionService) {
+    public AuthService(IAgent agentDAO, SessionService sessionService, LoginThrottle throttle) {
         this.agentDAO = agentDAO;
         this.sessionService = sessionService;
+        this.throttle = throttle;
     }
 
     public Agent login(String email, String password) throws AuthenticationException {
+        Agent agent = authenticate(email, password, CONSOLE_SOURCE);
+        sessionService.startSession(agent);
+        return agent;
+    }
+
+    //checks the credentials without opening a session, for callers that authenticate every request.
+    //throttled attempts and recently unknown emails are refused without a query
+    public Agent authenticate(String email, String password, String source) throws AuthenticationException {
+        long retryAfterMs = throttle.retryAfterMs(email, source);
+        if (retryAfterMs > 0) {
+            long seconds = (retryAfterMs + 999) / 1000;
+            throw new TooManyAttemptsException("Trop de tentatives de connexion, réessayez dans " + seconds + " s", seconds);
+        }
+        if (throttle.isUnknownEmail(email)) {
+            throttle.recordFailure(email, source);
+            throw new AuthenticationException("Invalid email or password");
+        }
+
         Optional<Agent> agentOptional = agentDAO.findByEmail(email);
 
         if (agentOptional.isEmpty()) {
+            throttle.rememberUnknownEmail(email);
+            throttle.recordFailure(email, source);
             throw new AuthenticationException("Invalid email or password");
         }
 
         Agent agent = agentOptional.get();
 
         if (!agent.getMotDePasse().equals(password)) {
+            throttle.recordFailure(email, source);
             throw new AuthenticationException("Invalid email or password");
         }
-
-        sessionService.startSession(agent);
+        throttle.recordSuccess(email);
         return agent;
     }
 
+    //a new token-based session, the console session is left alone
+    public Session openSession(String email, String password, String source) throws AuthenticationException {
+        return sessionService.createSession(authenticate(email, password, source));
+    }
+
+    public Agent authenticateToken(String token) throws AuthenticationException {
+        return sessionService.findSession(token)
+                .map(Session::getAgent)
+                .orElseThrow(() -> new AuthenticationException("Session invalide ou expirée"));
+    }
+
+    public void closeSession(String token) {
+        sessionService.endSession(token);
+    }
+
     public void logout() {
         sessionService.endSession();
     }
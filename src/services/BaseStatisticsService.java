@@ -0,0 +1,132 @@
+package src.services;
+
+import src.dao.interfaces.IAgent;
+import src.dao.interfaces.IDepartement;
+import src.dao.interfaces.IPaiement;
+import src.exceptions.AgentNotFoundException;
+import src.exceptions.DepartementNotFoundException;
+import src.models.AggregateDimension;
+import src.models.Agent;
+import src.models.AgentTotal;
+import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
+import src.models.PaymentAnomaly;
+import src.models.TypePaiement;
+import src.services.interfaces.IStatisticsService;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+//what the statistics engines share: existence checks, the sketch, cube and anomaly statistics,
+//and the ranking entry points, each engine only says how it ranks a page of agents
+public abstract class BaseStatisticsService implements IStatisticsService {
+
+    protected final IPaiement paiementDAO;
+    protected final IAgent agentDAO;
+    protected final IDepartement departementDAO;
+    protected final PaymentAnomalyDetector anomalyDetector;
+    protected final PaymentSketches paymentSketches;
+    protected final PaymentCube paymentCube;
+
+    protected BaseStatisticsService(IPaiement paiementDAO, IAgent agentDAO, IDepartement departementDAO,
+                                    PaymentAnomalyDetector anomalyDetector, PaymentSketches paymentSketches,
+                                    PaymentCube paymentCube) {
+        this.paiementDAO = paiementDAO;
+        this.agentDAO = agentDAO;
+        this.departementDAO = departementDAO;
+        this.anomalyDetector = anomalyDetector;
+        this.paymentSketches = paymentSketches;
+        this.paymentCube = paymentCube;
+    }
+
+    //agents ranked by total paid (highest first, then lowest id, agents without payments last),
+    //from position offset and at most limit of them
+    protected abstract List<AgentTotal> rankAgents(int offset, int limit);
+
+    public double getDepartmentMedianSalary(int departementId) throws DepartementNotFoundException {
+        return getPaymentPercentile(new PaiementCriteria().departement(departementId).type(TypePaiement.SALAIRE), 50);
+    }
+
+    public double getPaymentPercentile(PaiementCriteria criteria, double percentile) throws DepartementNotFoundException {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        if (criteria.getDepartementId() != null) {
+            ensureDepartementExists(criteria.getDepartementId());
+        }
+        return paymentSketches.percentile(criteria, percentile / 100);
+    }
+
+    public long countDistinctPaidAgents(PaiementCriteria criteria) throws DepartementNotFoundException {
+        if (criteria.getDepartementId() != null) {
+            ensureDepartementExists(criteria.getDepartementId());
+        }
+        return paymentSketches.countDistinctAgents(criteria);
+    }
+
+    public List<PaiementAggregate> pivot(PaiementCriteria criteria, Set<AggregateDimension> groupBy) throws DepartementNotFoundException {
+        if (criteria.getDepartementId() != null) {
+            ensureDepartementExists(criteria.getDepartementId());
+        }
+        return paymentCube.query(criteria, groupBy.isEmpty() ? EnumSet.noneOf(AggregateDimension.class) : EnumSet.copyOf(groupBy));
+    }
+
+    public List<Agent> rankAgentsByTotalPayments() {
+        return rankAgents(0, Integer.MAX_VALUE)
+                .stream()
+                .map(AgentTotal::getAgent)
+                .toList();
+    }
+
+    public List<AgentTotal> topAgentsByTotalPayments(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        return rankAgents(0, k);
+    }
+
+    public List<AgentTotal> rankAgentsByTotalPayments(int page, int size) {
+        if (page < 0 || size <= 0) {
+            throw new IllegalArgumentException("page must be >= 0 and size > 0");
+        }
+        return rankAgents((int) Math.min((long) page * size, Integer.MAX_VALUE), size);
+    }
+
+    public List<PaymentAnomaly> detectAnomalies(double sigmas) {
+        if (sigmas <= 0) {
+            throw new IllegalArgumentException("sigmas must be positive");
+        }
+        return anomalyDetector.scan(sigmas);
+    }
+
+    public List<PaymentAnomaly> getRecentAnomalies() {
+        return anomalyDetector.getRecentAnomalies();
+    }
+
+    public List<Paiement> getPaymentsBetween(LocalDate start, LocalDate end) {
+        return paiementDAO.findByDateRange(start, end);
+    }
+
+    public int rebuildMonthlySummary() {
+        int cells = paiementDAO.rebuildMonthlySummary();
+        if (cells < 0) {
+            throw new IllegalStateException("Échec de la reconstruction du résumé mensuel");
+        }
+        return cells;
+    }
+
+    protected void ensureAgentExists(int agentId) throws AgentNotFoundException {
+        if (agentDAO.findById(agentId).isEmpty()) {
+            throw new AgentNotFoundException("Agent introuvable (id=" + agentId + ")");
+        }
+    }
+
+    protected void ensureDepartementExists(int departementId) throws DepartementNotFoundException {
+        if (departementDAO.findById(departementId).isEmpty()) {
+            throw new DepartementNotFoundException("Département introuvable (id=" + departementId + ")");
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package src.services;
+
+import src.exceptions.AgentNotFoundException;
+import src.exceptions.DepartementNotFoundException;
+import src.models.AggregateDimension;
+import src.models.Agent;
+import src.models.AgentTotal;
+import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
+import src.models.PaymentAnomaly;
+import src.models.TypePaiement;
+import src.services.interfaces.IStatisticsService;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//results of the delegate kept per method and arguments, each stamped with the notifier's data version.
+//an entry is served only while no write happened since it was computed and it is younger than ttlMs
+public class CachingStatisticsService implements IStatisticsService {
+    private final IStatisticsService delegate;
+    private final DataChangeNotifier notifier;
+    private final int maxEntries;
+    private final long ttlMs;
+    private final ConcurrentHashMap<List<Object>, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingStatisticsService(IStatisticsService delegate, DataChangeNotifier notifier, int maxEntries, long ttlMs) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("cache size must be positive");
+        }
+        this.delegate = delegate;
+        this.notifier = notifier;
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+    }
+
+    public double getAnnualTotalForAgent(int agentId, int year) throws AgentNotFoundException {
+        return cached(() -> delegate.getAnnualTotalForAgent(agentId, year), "annualTotal", agentId, year);
+    }
+
+    public long countPaymentsByType(int agentId, TypePaiement type) throws AgentNotFoundException {
+        return cached(() -> delegate.countPaymentsByType(agentId, type), "countByType", agentId, type);
+    }
+
+    public Optional<Paiement> getHighestPaymentForAgent(int agentId) throws AgentNotFoundException {
+        return cached(() -> delegate.getHighestPaymentForAgent(agentId), "highest", agentId);
+    }
+
+    public double getDepartmentTotal(int departementId) throws DepartementNotFoundException {
+        return cached(() -> delegate.getDepartmentTotal(departementId), "departmentTotal", departementId);
+    }
+
+    public double getDepartmentAverageSalary(int departementId) throws DepartementNotFoundException {
+        return cached(() -> delegate.getDepartmentAverageSalary(departementId), "departmentAverage", departementId);
+    }
+
+    public double getDepartmentMedianSalary(int departementId) throws DepartementNotFoundException {
+        return cached(() -> delegate.getDepartmentMedianSalary(departementId), "departmentMedian", departementId);
+    }
+
+    public double getPaymentPercentile(PaiementCriteria criteria, double percentile) throws DepartementNotFoundException {
+        return cached(() -> delegate.getPaymentPercentile(criteria, percentile), "percentile", keyOf(criteria), percentile);
+    }
+
+    public long countDistinctPaidAgents(PaiementCriteria criteria) throws DepartementNotFoundException {
+        return cached(() -> delegate.countDistinctPaidAgents(criteria), "distinctAgents", keyOf(criteria));
+    }
+
+    public List<PaiementAggregate> pivot(PaiementCriteria criteria, Set<AggregateDimension> groupBy) throws DepartementNotFoundException {
+        Set<AggregateDimension> dimensions = groupBy.isEmpty() ? EnumSet.noneOf(AggregateDimension.class) : EnumSet.copyOf(groupBy);
+        return cached(() -> Collections.unmodifiableList(delegate.pivot(criteria, dimensions)), "pivot", keyOf(criteria), dimensions);
+    }
+
+    public List<Agent> rankAgentsByTotalPayments() {
+        return cached(() -> Collections.unmodifiableList(delegate.rankAgentsByTotalPayments()), "ranking");
+    }
+
+    public List<AgentTotal> topAgentsByTotalPayments(int k) {
+        return cached(() -> Collections.unmodifiableList(delegate.topAgentsByTotalPayments(k)), "topAgents", k);
+    }
+
+    public List<AgentTotal> rankAgentsByTotalPayments(int page, int size) {
+        return cached(() -> Collections.unmodifiableList(delegate.rankAgentsByTotalPayments(page, size)), "rankingPage", page, size);
+    }
+
+    public Map<TypePaiement, Long> getPaymentDistribution() {
+        return cached(() -> Collections.unmodifiableMap(delegate.getPaymentDistribution()), "distribution");
+    }
+
+    public double getGlobalPaymentsTotal() {
+        return cached(delegate::getGlobalPaymentsTotal, "globalTotal");
+    }
+
+    public long getTotalAgents() {
+        return cached(delegate::getTotalAgents, "totalAgents");
+    }
+
+    public long getTotalDepartements() {
+        return cached(delegate::getTotalDepartements, "totalDepartements");
+    }
+
+    public Optional<Paiement> detectUnusualPayment(double threshold) {
+        return cached(() -> delegate.detectUnusualPayment(threshold), "unusual", threshold);
+    }
+
+    //the scan also rebuilds the detector's baselines, it always goes through
+    public List<PaymentAnomaly> detectAnomalies(double sigmas) {
+        return delegate.detectAnomalies(sigmas);
+    }
+
+    public List<PaymentAnomaly> getRecentAnomalies() {
+        return delegate.getRecentAnomalies();
+    }
+
+    //full payment rows, too large to keep around
+    public List<Paiement> getPaymentsBetween(LocalDate start, LocalDate end) {
+        return delegate.getPaymentsBetween(start, end);
+    }
+
+    public int rebuildMonthlySummary() {
+        int cells = delegate.rebuildMonthlySummary();
+        entries.clear();
+        return cells;
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("statistics[size=%d/%d, hits=%d, misses=%d]", entries.size(), maxEntries, getHits(), getMisses());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, E extends Exception> T cached(Loader<T, E> loader, Object... key) throws E {
+        List<Object> cacheKey = Arrays.asList(key);
+        long version = notifier.getVersion();
+        Entry entry = entries.get(cacheKey);
+        if (entry != null && entry.version == version && System.currentTimeMillis() - entry.createdAt < ttlMs) {
+            hits.increment();
+            return (T) entry.value;
+        }
+        misses.increment();
+        //stamped with the version read before computing: a write landing meanwhile makes the entry stale at once
+        T value = loader.load();
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(stale -> stale.version != notifier.getVersion());
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(cacheKey, new Entry(value, version, System.currentTimeMillis()));
+        return value;
+    }
+
+    private static List<Object> keyOf(PaiementCriteria criteria) {
+        return Arrays.asList(criteria.getAgentId(), criteria.getDepartementId(), criteria.getType(),
+                criteria.getYear(), criteria.getMonth());
+    }
+
+    private interface Loader<T, E extends Exception> {
+        T load() throws E;
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long version;
+        private final long createdAt;
+
+        private Entry(Object value, long version, long createdAt) {
+            this.value = value;
+            this.version = version;
+            this.createdAt = createdAt;
+        }
+    }
+}
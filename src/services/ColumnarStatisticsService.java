@@ -0,0 +1,178 @@
+package src.services;
+
+import src.dao.interfaces.IAgent;
+import src.dao.interfaces.IDepartement;
+import src.dao.interfaces.IPaiement;
+import src.exceptions.AgentNotFoundException;
+import src.exceptions.DepartementNotFoundException;
+import src.models.AgentTotal;
+import src.models.Paiement;
+import src.models.TypePaiement;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+//statistics computed by scanning the in-memory PaiementSnapshot columns instead of querying MySQL
+public class ColumnarStatisticsService extends BaseStatisticsService {
+    private static final TypePaiement[] TYPES = TypePaiement.values();
+
+    private final PaiementSnapshot snapshot;
+
+    public ColumnarStatisticsService(PaiementSnapshot snapshot, IPaiement paiementDAO, IAgent agentDAO, IDepartement departementDAO,
+                                     PaymentAnomalyDetector anomalyDetector, PaymentSketches paymentSketches,
+                                     PaymentCube paymentCube) {
+        super(paiementDAO, agentDAO, departementDAO, anomalyDetector, paymentSketches, paymentCube);
+        this.snapshot = snapshot;
+    }
+
+    public double getAnnualTotalForAgent(int agentId, int year) throws AgentNotFoundException {
+        ensureAgentExists(agentId);
+        PaiementSnapshot.Columns columns = snapshot.current();
+        int[] agentIds = columns.getAgentIds();
+        int[] epochDays = columns.getEpochDays();
+        long[] amountCents = columns.getAmountCents();
+        int start = (int) LocalDate.of(year, 1, 1).toEpochDay();
+        int end = (int) LocalDate.of(year + 1, 1, 1).toEpochDay();
+        long total = 0;
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            if (agentIds[i] == agentId && epochDays[i] >= start && epochDays[i] < end) {
+                total += amountCents[i];
+            }
+        }
+        return total / 100.0;
+    }
+
+    public long countPaymentsByType(int agentId, TypePaiement type) throws AgentNotFoundException {
+        ensureAgentExists(agentId);
+        PaiementSnapshot.Columns columns = snapshot.current();
+        int[] agentIds = columns.getAgentIds();
+        byte[] types = columns.getTypes();
+        byte wanted = (byte) type.ordinal();
+        long count = 0;
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            if (agentIds[i] == agentId && types[i] == wanted) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public Optional<Paiement> getHighestPaymentForAgent(int agentId) throws AgentNotFoundException {
+        ensureAgentExists(agentId);
+        PaiementSnapshot.Columns columns = snapshot.current();
+        int[] agentIds = columns.getAgentIds();
+        long[] amountCents = columns.getAmountCents();
+        int best = -1;
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            //strictly greater keeps the lowest id among equal amounts, rows are in id order
+            if (agentIds[i] == agentId && (best < 0 || amountCents[i] > amountCents[best])) {
+                best = i;
+            }
+        }
+        return best < 0 ? Optional.empty() : paiementDAO.findById(columns.getIds()[best]);
+    }
+
+    public double getDepartmentTotal(int departementId) throws DepartementNotFoundException {
+        ensureDepartementExists(departementId);
+        PaiementSnapshot.Columns columns = snapshot.current();
+        int[] agentIds = columns.getAgentIds();
+        long[] amountCents = columns.getAmountCents();
+        long total = 0;
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            if (columns.departementOf(agentIds[i]) == departementId) {
+                total += amountCents[i];
+            }
+        }
+        return total / 100.0;
+    }
+
+    public double getDepartmentAverageSalary(int departementId) throws DepartementNotFoundException {
+        ensureDepartementExists(departementId);
+        PaiementSnapshot.Columns columns = snapshot.current();
+        int[] agentIds = columns.getAgentIds();
+        long[] amountCents = columns.getAmountCents();
+        byte[] types = columns.getTypes();
+        byte salaire = (byte) TypePaiement.SALAIRE.ordinal();
+        long total = 0;
+        long count = 0;
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            if (types[i] == salaire && columns.departementOf(agentIds[i]) == departementId) {
+                total += amountCents[i];
+                count++;
+            }
+        }
+        return count == 0 ? 0.0 : total / 100.0 / count;
+    }
+
+    public Map<TypePaiement, Long> getPaymentDistribution() {
+        PaiementSnapshot.Columns columns = snapshot.current();
+        byte[] types = columns.getTypes();
+        long[] counts = new long[TYPES.length];
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            counts[types[i]]++;
+        }
+        Map<TypePaiement, Long> distribution = new EnumMap<>(TypePaiement.class);
+        for (TypePaiement type : TYPES) {
+            if (counts[type.ordinal()] > 0) {
+                distribution.put(type, counts[type.ordinal()]);
+            }
+        }
+        return distribution;
+    }
+
+    public double getGlobalPaymentsTotal() {
+        PaiementSnapshot.Columns columns = snapshot.current();
+        long[] amountCents = columns.getAmountCents();
+        long total = 0;
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            total += amountCents[i];
+        }
+        return total / 100.0;
+    }
+
+    public long getTotalAgents() {
+        return agentDAO.count();
+    }
+
+    public long getTotalDepartements() {
+        return departementDAO.count();
+    }
+
+    public Optional<Paiement> detectUnusualPayment(double threshold) {
+        PaiementSnapshot.Columns columns = snapshot.current();
+        long[] amountCents = columns.getAmountCents();
+        //amounts are whole cents, so montant > threshold is cents > floor(threshold in cents)
+        long limit = (long) Math.floor(threshold * 100);
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            if (amountCents[i] > limit) {
+                return paiementDAO.findById(columns.getIds()[i]);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    protected List<AgentTotal> rankAgents(int offset, int limit) {
+        PaiementSnapshot.Columns columns = snapshot.current();
+        int[] agentIds = columns.getAgentIds();
+        long[] amountCents = columns.getAmountCents();
+        int size = columns.size();
+        int maxAgentId = 0;
+        for (int i = 0; i < size; i++) {
+            maxAgentId = Math.max(maxAgentId, agentIds[i]);
+        }
+        //dense per-agent accumulators, -1 marks agents without any payment
+        long[] totals = new long[maxAgentId + 1];
+        Arrays.fill(totals, -1);
+        for (int i = 0; i < size; i++) {
+            int agentId = agentIds[i];
+            totals[agentId] = (totals[agentId] < 0 ? 0 : totals[agentId]) + amountCents[i];
+        }
+        List<AgentTotal> ranking = AgentRanking.rankCents(totals, (int) Math.min((long) offset + limit, Integer.MAX_VALUE), agentDAO);
+        return ranking.subList(Math.min(offset, ranking.size()), ranking.size());
+    }
+}
@@ -0,0 +1,107 @@
+package src.services;
+
+import src.config.TransactionManager;
+import src.models.Agent;
+import src.models.Departement;
+import src.models.Paiement;
+import src.services.interfaces.IDataChangeListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class DataChangeNotifier {
+    private static final Logger logger = Logger.getLogger(DataChangeNotifier.class.getName());
+
+    private final List<IDataChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public void subscribe(IDataChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(IDataChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    //bumped before the listeners run on every write, so anything computed under an older value is stale
+    public long getVersion() {
+        return version.get();
+    }
+
+    public void paiementCreated(Paiement paiement) {
+        fire(listener -> listener.onPaiementCreated(paiement));
+    }
+
+    public void paiementsCreated(List<Paiement> paiements) {
+        fire(listener -> listener.onPaiementsCreated(paiements));
+    }
+
+    public void paiementUpdated(Paiement before, Paiement after) {
+        fire(listener -> listener.onPaiementUpdated(before, after));
+    }
+
+    public void paiementDeleted(Paiement paiement) {
+        fire(listener -> listener.onPaiementDeleted(paiement));
+    }
+
+    public void agentCreated(Agent agent) {
+        fire(listener -> listener.onAgentCreated(agent));
+    }
+
+    public void agentUpdated(Agent agent) {
+        fire(listener -> listener.onAgentUpdated(agent));
+    }
+
+    public void agentMoved(int agentId, int fromDepartementId, int toDepartementId) {
+        if (fromDepartementId != toDepartementId) {
+            fire(listener -> listener.onAgentMoved(agentId, fromDepartementId, toDepartementId));
+        }
+    }
+
+    public void agentsMoved(List<Integer> agentIds, int fromDepartementId, int toDepartementId) {
+        if (fromDepartementId != toDepartementId && !agentIds.isEmpty()) {
+            fire(listener -> listener.onAgentsMoved(agentIds, fromDepartementId, toDepartementId));
+        }
+    }
+
+    public void agentDeleted(Agent agent) {
+        fire(listener -> listener.onAgentDeleted(agent));
+    }
+
+    public void departementCreated(Departement departement) {
+        fire(listener -> listener.onDepartementCreated(departement));
+    }
+
+    public void departementUpdated(Departement departement) {
+        fire(listener -> listener.onDepartementUpdated(departement));
+    }
+
+    public void departementDeleted(Departement departement) {
+        fire(listener -> listener.onDepartementDeleted(departement));
+    }
+
+    static int departementIdOf(Agent agent) {
+        return agent.getDepartement() != null ? agent.getDepartement().getIdDepartement() : 0;
+    }
+
+    //a failing listener must not break the write that triggered it, nor the other listeners
+    //inside a transaction the event waits for the commit and is dropped on rollback
+    private void fire(Consumer<IDataChangeListener> event) {
+        TransactionManager.afterCommit(() -> dispatch(event));
+    }
+
+    private void dispatch(Consumer<IDataChangeListener> event) {
+        version.incrementAndGet();
+        for (IDataChangeListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Data change listener failed: " + listener, e);
+            }
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package src.services;
 
-import src.dao.AgentDAO;
-import src.dao.DepartementDAO;
-import src.dao.PaiementDAO;
+import src.config.TransactionManager;
+import src.dao.interfaces.IAgent;
+import src.dao.interfaces.IDepartement;
+import src.dao.interfaces.IPaiement;
 import src.exceptions.AgentNotFoundException;
 import src.exceptions.DepartementNotFoundException;
 import src.models.Agent;
@@ -10,64 +11,121 @@ import src.models.Departement;
 import src.models.Paiement;
 import src.services.interfaces.IDepartmentService;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public class DepartementService implements IDepartmentService {
 
-	private final DepartementDAO departementDAO;
-	private final AgentDAO agentDAO;
-	private final PaiementDAO paiementDAO;
+	private final IDepartement departementDAO;
+	private final IAgent agentDAO;
+	private final IPaiement paiementDAO;
+	private final DataChangeNotifier notifier;
 
-	public DepartementService(DepartementDAO departementDAO, AgentDAO agentDAO, PaiementDAO paiementDAO) {
+	public DepartementService(IDepartement departementDAO, IAgent agentDAO, IPaiement paiementDAO, DataChangeNotifier notifier) {
 		this.departementDAO = departementDAO;
 		this.agentDAO = agentDAO;
 		this.paiementDAO = paiementDAO;
+		this.notifier = notifier;
 	}
 
 	public Departement createDepartement(String nom, Integer responsableId) throws AgentNotFoundException {
-		validateDepartementName(nom);
-		ensureNameAvailable(nom, null);
+		try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+			validateDepartementName(nom);
+			ensureNameAvailable(nom, null);
 
-		Departement departement = new Departement(nom);
+			Departement departement = new Departement(nom);
 
-		if (responsableId != null) {
-			Agent responsable = fetchAgent(responsableId);
-			departement.setResponsable(responsable);
-		}
+			if (responsableId != null) {
+				Agent responsable = fetchAgent(responsableId);
+				departement.setResponsable(responsable);
+			}
 
-		return departementDAO.save(departement);
+			Departement saved = departementDAO.save(departement);
+			if (saved.getIdDepartement() > 0) {
+				notifier.departementCreated(saved);
+			}
+			tx.commit();
+			return saved;
+		}
 	}
 
 	public Departement updateDepartement(int departementId, String nom, Integer responsableId)
 			throws DepartementNotFoundException, AgentNotFoundException {
-
-		Departement departement = fetchDepartement(departementId);
-		
-		// Validate input BEFORE checking database
-		validateDepartementName(nom);
-		ensureNameAvailable(nom, departementId);
-		departement.setNom(nom);
-
-		if (responsableId != null) {
-			Agent responsable = fetchAgent(responsableId);
-			if (responsable.getDepartement() == null || responsable.getDepartement().getIdDepartement() != departementId) {
-				responsable.setDepartement(departement);
-				agentDAO.update(responsable);
+		try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+			Departement departement = fetchDepartement(departementId);
+
+			// Validate input BEFORE checking database
+			validateDepartementName(nom);
+			ensureNameAvailable(nom, departementId);
+			departement.setNom(nom);
+
+			if (responsableId != null) {
+				Agent responsable = fetchAgent(responsableId);
+				if (responsable.getDepartement() == null || responsable.getDepartement().getIdDepartement() != departementId) {
+					int previousDepartementId = DataChangeNotifier.departementIdOf(responsable);
+					responsable.setDepartement(departement);
+					agentDAO.update(responsable);
+					notifier.agentMoved(responsableId, previousDepartementId, departementId);
+				}
+				departement.setResponsable(responsable);
+			} else {
+				departement.setResponsable(null);
 			}
-			departement.setResponsable(responsable);
-		} else {
-			departement.setResponsable(null);
-		}
 
-		departementDAO.update(departement);
-		return departement;
+			departementDAO.update(departement);
+			notifier.departementUpdated(departement);
+			tx.commit();
+			return departement;
+		}
 	}
 
 	public void deleteDepartement(int departementId) throws DepartementNotFoundException {
-		fetchDepartement(departementId);
-		unassignAgents(departementId);
-		departementDAO.deleteById(departementId);
+		try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+			Departement departement = fetchDepartement(departementId);
+			moveAllAgents(departementId, null);
+			departementDAO.deleteById(departementId);
+			notifier.departementDeleted(departement);
+			tx.commit();
+		}
+	}
+
+	public void deleteDepartement(int departementId, int reassignToDepartementId) throws DepartementNotFoundException {
+		if (departementId == reassignToDepartementId) {
+			throw new IllegalArgumentException("agents cant be moved to the departement being deleted");
+		}
+		try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+			Departement departement = fetchDepartement(departementId);
+			fetchDepartement(reassignToDepartementId);
+			moveAllAgents(departementId, reassignToDepartementId);
+			departementDAO.deleteById(departementId);
+			notifier.departementDeleted(departement);
+			tx.commit();
+		}
+	}
+
+	public int reassignAgents(int fromDepartementId, int toDepartementId) throws DepartementNotFoundException {
+		try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+			fetchDepartement(fromDepartementId);
+			fetchDepartement(toDepartementId);
+			int moved = fromDepartementId == toDepartementId ? 0 : moveAllAgents(fromDepartementId, toDepartementId);
+			tx.commit();
+			return moved;
+		}
+	}
+
+	public int unassignAgents(int departementId) throws DepartementNotFoundException {
+		try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+			fetchDepartement(departementId);
+			int moved = moveAllAgents(departementId, null);
+			tx.commit();
+			return moved;
+		}
 	}
 
 	public Departement getDepartementById(int departementId) throws DepartementNotFoundException {
@@ -90,25 +148,56 @@ public class DepartementService implements IDepartmentService {
 
 	public void addAgentToDepartement(int departementId, int agentId)
 			throws AgentNotFoundException, DepartementNotFoundException {
-		Departement departement = fetchDepartement(departementId);
-		Agent agent = fetchAgent(agentId);
-		agent.setDepartement(departement);
-		agentDAO.update(agent);
+		addAgentsToDepartement(departementId, List.of(agentId));
+	}
+
+	//agents already in the departement are left untouched, the others are moved with one set-based update
+	public int addAgentsToDepartement(int departementId, Collection<Integer> agentIds)
+			throws AgentNotFoundException, DepartementNotFoundException {
+		try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+			fetchDepartement(departementId);
+			Set<Integer> ids = new LinkedHashSet<>(agentIds);
+			Map<Integer, List<Integer>> idsByPreviousDepartement = new LinkedHashMap<>();
+			for (Agent agent : fetchAgents(ids)) {
+				int previousDepartementId = DataChangeNotifier.departementIdOf(agent);
+				if (previousDepartementId != departementId) {
+					idsByPreviousDepartement.computeIfAbsent(previousDepartementId, id -> new ArrayList<>()).add(agent.getIdAgent());
+				}
+			}
+			List<Integer> toMove = idsByPreviousDepartement.values().stream().flatMap(List::stream).toList();
+			int moved = toMove.isEmpty() ? 0 : agentDAO.moveAgents(toMove, departementId);
+			if (moved < 0) {
+				throw new IllegalStateException("Échec de l'affectation des agents au département (id=" + departementId + ")");
+			}
+			idsByPreviousDepartement.forEach((previousDepartementId, movedIds) ->
+					notifier.agentsMoved(movedIds, previousDepartementId, departementId));
+			tx.commit();
+			return moved;
+		}
 	}
 
 	public void removeAgentFromDepartement(int departementId, int agentId)
 			throws AgentNotFoundException, DepartementNotFoundException {
-		fetchDepartement(departementId);
-		Agent agent = fetchAgent(agentId);
-		agent.setDepartement(null);
-		agentDAO.update(agent);
+		try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+			fetchDepartement(departementId);
+			Agent agent = fetchAgent(agentId);
+			int previousDepartementId = DataChangeNotifier.departementIdOf(agent);
+			if (agentDAO.moveAgents(List.of(agentId), null) < 0) {
+				throw new IllegalStateException("Échec du retrait de l'agent (id=" + agentId + ")");
+			}
+			notifier.agentMoved(agentId, previousDepartementId, 0);
+			tx.commit();
+		}
 	}
 
 	public List<Paiement> getPaymentsForDepartement(int departementId) throws DepartementNotFoundException {
-		List<Agent> agents = getAgents(departementId);
-		return agents.stream()
-				.flatMap(agent -> paiementDAO.findByAgentId(agent.getIdAgent()).stream())
-				.toList();
+		Map<Integer, Agent> agentsById = new LinkedHashMap<>();
+		for (Agent agent : getAgents(departementId)) {
+			agentsById.put(agent.getIdAgent(), agent);
+		}
+		List<Paiement> paiements = paiementDAO.findByAgentIds(agentsById.keySet());
+		paiements.forEach(paiement -> paiement.setAgent(agentsById.get(paiement.getAgentId())));
+		return paiements;
 	}
 
 	private Departement fetchDepartement(int departementId) throws DepartementNotFoundException {
@@ -128,12 +217,28 @@ public class DepartementService implements IDepartmentService {
 		}
 	}
 
-	private void unassignAgents(int departementId) {
-		List<Agent> agents = agentDAO.findByDepartementId(departementId);
-		for (Agent agent : agents) {
-			agent.setDepartement(null);
-			agentDAO.update(agent);
+	private List<Agent> fetchAgents(Set<Integer> agentIds) throws AgentNotFoundException {
+		List<Agent> agents = agentDAO.findByIds(agentIds);
+		if (agents.size() != agentIds.size()) {
+			Set<Integer> missing = new LinkedHashSet<>(agentIds);
+			agents.forEach(agent -> missing.remove(agent.getIdAgent()));
+			throw new AgentNotFoundException("agent introuvable (id=" + missing.iterator().next() + ")");
+		}
+		return agents;
+	}
+
+	//one UPDATE for the whole departement instead of rewriting each agent row; a null target unassigns
+	private int moveAllAgents(int fromDepartementId, Integer toDepartementId) {
+		List<Integer> agentIds = agentDAO.findIdsByDepartementId(fromDepartementId);
+		if (agentIds.isEmpty()) {
+			return 0;
+		}
+		int moved = agentDAO.moveDepartementAgents(fromDepartementId, toDepartementId);
+		if (moved < 0) {
+			throw new IllegalStateException("Échec du déplacement des agents du département (id=" + fromDepartementId + ")");
 		}
+		notifier.agentsMoved(agentIds, fromDepartementId, toDepartementId == null ? 0 : toDepartementId);
+		return moved;
 	}
 
 	private void validateDepartementName(String nom) {
@@ -0,0 +1,142 @@
+package src.services;
+
+import src.models.Agent;
+import src.services.interfaces.IDataChangeListener;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//failed logins per email and per source, counted in memory so that a flood of bad credentials is refused before
+//it reaches the database. each key is a token bucket kept as a single AtomicLong (the time at which the bucket
+//is full again, GCRA style) and updated with compare-and-set, no lock is taken on the login path.
+//emails the database did not know are remembered for a short while and refused without a query
+public class LoginThrottle implements IDataChangeListener {
+    private final long emailIntervalNanos;
+    private final long emailToleranceNanos;
+    private final long sourceIntervalNanos;
+    private final long sourceToleranceNanos;
+    private final long unknownEmailTtlNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, AtomicLong> emailBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> sourceBuckets = new ConcurrentHashMap<>();
+    //email -> System.nanoTime() after which it has to be looked up again
+    private final ConcurrentHashMap<String, Long> unknownEmails = new ConcurrentHashMap<>();
+    private final AtomicLong nextPruneNanos = new AtomicLong(System.nanoTime());
+
+    //burst failed attempts are allowed at once, then one more every refillMs; a burst of 0 disables that bucket
+    //and an unknownEmailTtlMs of 0 disables the negative cache
+    public LoginThrottle(int emailBurst, long emailRefillMs, int sourceBurst, long sourceRefillMs,
+                         long unknownEmailTtlMs, int maxEntries) {
+        if (emailBurst < 0 || sourceBurst < 0 || emailRefillMs <= 0 || sourceRefillMs <= 0
+                || unknownEmailTtlMs < 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("throttle bursts, refill intervals and sizes must be positive");
+        }
+        this.emailIntervalNanos = emailRefillMs * 1_000_000L;
+        this.emailToleranceNanos = emailBurst == 0 ? -1 : (emailBurst - 1) * emailIntervalNanos;
+        this.sourceIntervalNanos = sourceRefillMs * 1_000_000L;
+        this.sourceToleranceNanos = sourceBurst == 0 ? -1 : (sourceBurst - 1) * sourceIntervalNanos;
+        this.unknownEmailTtlNanos = unknownEmailTtlMs * 1_000_000L;
+        this.maxEntries = maxEntries;
+    }
+
+    //0 when an attempt may go ahead, otherwise how long to wait before the next one
+    public long retryAfterMs(String email, String source) {
+        long now = System.nanoTime();
+        long wait = Math.max(waitNanos(sourceBuckets.get(sourceKey(source)), sourceToleranceNanos, now),
+                waitNanos(emailBuckets.get(key(email)), emailToleranceNanos, now));
+        return wait <= 0 ? 0 : Math.max(1, wait / 1_000_000L);
+    }
+
+    public void recordFailure(String email, String source) {
+        long now = System.nanoTime();
+        prune(now);
+        if (sourceToleranceNanos >= 0) {
+            charge(sourceBuckets.computeIfAbsent(sourceKey(source), k -> new AtomicLong(now)), sourceIntervalNanos, now);
+        }
+        if (emailToleranceNanos >= 0) {
+            charge(emailBuckets.computeIfAbsent(key(email), k -> new AtomicLong(now)), emailIntervalNanos, now);
+        }
+    }
+
+    //a correct password clears the email's failures, not the source's
+    public void recordSuccess(String email) {
+        emailBuckets.remove(key(email));
+    }
+
+    public boolean isUnknownEmail(String email) {
+        Long expiresAt = email == null ? null : unknownEmails.get(key(email));
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt - System.nanoTime() <= 0) {
+            unknownEmails.remove(key(email), expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    public void rememberUnknownEmail(String email) {
+        if (email == null || unknownEmailTtlNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        prune(now);
+        //still full of live entries after pruning: better to query again than to grow without bound
+        if (unknownEmails.size() < maxEntries) {
+            unknownEmails.put(key(email), now + unknownEmailTtlNanos);
+        }
+    }
+
+    //the email may now exist, whatever the cache says
+    @Override
+    public void onAgentCreated(Agent agent) {
+        unknownEmails.remove(key(agent.getEmail()));
+    }
+
+    @Override
+    public void onAgentUpdated(Agent agent) {
+        unknownEmails.remove(key(agent.getEmail()));
+    }
+
+    private static long waitNanos(AtomicLong bucket, long toleranceNanos, long now) {
+        if (bucket == null || toleranceNanos < 0) {
+            return 0;
+        }
+        return bucket.get() - now - toleranceNanos;
+    }
+
+    private static void charge(AtomicLong bucket, long intervalNanos, long now) {
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, now) + intervalNanos;
+            if (bucket.compareAndSet(full, next)) {
+                return;
+            }
+        }
+    }
+
+    //buckets that have refilled completely are the same as no bucket, they are dropped once the maps grow large.
+    //at most one thread prunes, and at most once a second
+    private void prune(long now) {
+        if (emailBuckets.size() + sourceBuckets.size() + unknownEmails.size() <= maxEntries) {
+            return;
+        }
+        long due = nextPruneNanos.get();
+        if (now - due < 0 || !nextPruneNanos.compareAndSet(due, now + 1_000_000_000L)) {
+            return;
+        }
+        emailBuckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        sourceBuckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        unknownEmails.values().removeIf(expiresAt -> expiresAt - now <= 0);
+    }
+
+    //MySQL compares emails without regard to case, neither do the buckets nor the negative cache
+    private static String key(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String sourceKey(String source) {
+        return source == null ? "" : source;
+    }
+}
@@ -1,7 +1,8 @@
 package src.services;
 
-import src.dao.AgentDAO;
-import src.dao.PaiementDAO;
+import src.config.TransactionManager;
+import src.dao.interfaces.IAgent;
+import src.dao.interfaces.IPaiement;
 import src.exceptions.AgentNotFoundException;
 import src.exceptions.InvalidPaymentConditionException;
 import src.exceptions.NegativeAmountException;
@@ -13,59 +14,107 @@ import src.services.interfaces.IPaiementService;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class PaiementService implements IPaiementService {
-    private final PaiementDAO paiementDAO;
-    private final AgentDAO agentDAO;
+    private final IPaiement paiementDAO;
+    private final IAgent agentDAO;
+    private final DataChangeNotifier notifier;
 
-    public PaiementService(PaiementDAO paiementDAO, AgentDAO agentDAO) {
+    public PaiementService(IPaiement paiementDAO, IAgent agentDAO, DataChangeNotifier notifier) {
         this.paiementDAO = paiementDAO;
         this.agentDAO = agentDAO;
+        this.notifier = notifier;
     }
 
     public Paiement createPaiement(int agentId, TypePaiement type, double montant, String motif, boolean conditionValidee, LocalDate date)
             throws AgentNotFoundException, NegativeAmountException, InvalidPaymentConditionException {
+        try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+            Agent agent = fetchAgent(agentId);
+            validateMontant(montant);
+
+            Paiement paiement = new Paiement(type, montant, motif, agent);
+            paiement.setAgentId(agentId);
+            paiement.setConditionValidee(conditionValidee);
+            if (date != null) {
+                paiement.setDate(date);
+            }
 
-        Agent agent = fetchAgent(agentId);
-        validateMontant(montant);
+            validateEligibility(paiement, agent);
 
-        Paiement paiement = new Paiement(type, montant, motif, agent);
-        paiement.setAgentId(agentId);
-        paiement.setConditionValidee(conditionValidee);
-        if (date != null) {
-            paiement.setDate(date);
+            Paiement saved = paiementDAO.save(paiement);
+            if (saved.getIdPaiement() > 0) {
+                notifier.paiementCreated(saved);
+            }
+            tx.commit();
+            return saved;
         }
+    }
 
-        validateEligibility(paiement, agent);
+    public List<Paiement> createPaiements(List<Paiement> paiements)
+            throws AgentNotFoundException, NegativeAmountException, InvalidPaymentConditionException {
+        try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+            //validate every row before writing any of them
+            Map<Integer, Agent> agents = new HashMap<>();
+            for (Paiement paiement : paiements) {
+                int agentId = paiement.getAgent() != null ? paiement.getAgent().getIdAgent() : paiement.getAgentId();
+                Agent agent = agents.get(agentId);
+                if (agent == null) {
+                    agent = fetchAgent(agentId);
+                    agents.put(agentId, agent);
+                }
+                validateMontant(paiement.getMontant());
+                paiement.setAgent(agent);
+                if (paiement.getDate() == null) {
+                    paiement.setDate(LocalDate.now());
+                }
+                validateEligibility(paiement, agent);
+            }
 
-        return paiementDAO.save(paiement);
+            List<Paiement> saved = paiementDAO.saveAll(paiements);
+            List<Paiement> created = saved.stream().filter(paiement -> paiement.getIdPaiement() > 0).toList();
+            if (!created.isEmpty()) {
+                notifier.paiementsCreated(created);
+            }
+            tx.commit();
+            return saved;
+        }
     }
 
     public Paiement updatePaiement(int paiementId, TypePaiement type, double montant, String motif, boolean conditionValidee, LocalDate date)
             throws PaiementNotFoundException, AgentNotFoundException, NegativeAmountException, InvalidPaymentConditionException {
+        try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+            Paiement paiement = fetchPaiement(paiementId);
+            validateMontant(montant);
+            Paiement before = copyOf(paiement);
+            paiement.setType(type);
+            paiement.setMontant(montant);
+            paiement.setMotif(motif);
+            paiement.setConditionValidee(conditionValidee);
+            if (date != null) {
+                paiement.setDate(date);
+            }
 
-        Paiement paiement = fetchPaiement(paiementId);
-        validateMontant(montant);
-        paiement.setType(type);
-        paiement.setMontant(montant);
-        paiement.setMotif(motif);
-        paiement.setConditionValidee(conditionValidee);
-        if (date != null) {
-            paiement.setDate(date);
-        }
+            Agent agent = fetchAgent(paiement.getAgentId());
+            paiement.setAgent(agent);
+            validateEligibility(paiement, agent);
 
-        Agent agent = fetchAgent(paiement.getAgentId());
-        paiement.setAgent(agent);
-        validateEligibility(paiement, agent);
-
-        paiementDAO.update(paiement);
-        return paiement;
+            paiementDAO.update(paiement);
+            notifier.paiementUpdated(before, paiement);
+            tx.commit();
+            return paiement;
+        }
     }
 
     public void deletePaiement(int paiementId) throws PaiementNotFoundException {
-        fetchPaiement(paiementId);
-        paiementDAO.deleteById(paiementId);
+        try (TransactionManager.Transaction tx = TransactionManager.begin()) {
+            Paiement paiement = fetchPaiement(paiementId);
+            paiementDAO.deleteById(paiementId);
+            notifier.paiementDeleted(paiement);
+            tx.commit();
+        }
     }
 
     public Paiement getPaiementById(int paiementId) throws PaiementNotFoundException, AgentNotFoundException {
@@ -94,6 +143,18 @@ public class PaiementService implements IPaiementService {
         return paiementDAO.findByDateRange(start, end);
     }
 
+    public List<Paiement> getPaiementsPage(int afterId, int limit) {
+        return paiementDAO.findPage(afterId, limit);
+    }
+
+    public List<Paiement> getPaiementsPageByType(TypePaiement type, int afterId, int limit) {
+        return paiementDAO.findPageByType(type, afterId, limit);
+    }
+
+    public List<Paiement> getPaiementsPageByDateRange(LocalDate start, LocalDate end, int afterId, int limit) {
+        return paiementDAO.findPageByDateRange(start, end, afterId, limit);
+    }
+
     public double calculateTotalByAgent(int agentId) throws AgentNotFoundException {
         return getPaiementsByAgent(agentId)
                 .stream()
@@ -139,6 +200,15 @@ public class PaiementService implements IPaiementService {
         }
     }
 
+    private Paiement copyOf(Paiement paiement) {
+        Paiement copy = new Paiement(paiement.getType(), paiement.getMontant(), paiement.getMotif(), null);
+        copy.setIdPaiement(paiement.getIdPaiement());
+        copy.setAgentId(paiement.getAgentId());
+        copy.setDate(paiement.getDate());
+        copy.setConditionValidee(paiement.isConditionValidee());
+        return copy;
+    }
+
     private Agent fetchAgent(int agentId) throws AgentNotFoundException {
         return agentDAO.findById(agentId)
                 .orElseThrow(() -> new AgentNotFoundException("Agent introuvable (id=" + agentId + ")"));
@@ -0,0 +1,263 @@
+package src.services;
+
+import src.dao.interfaces.IAgent;
+import src.dao.interfaces.IPaiement;
+import src.models.Agent;
+import src.models.Paiement;
+import src.services.interfaces.IDataChangeListener;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+//columnar copy of the paiement table kept in primitive arrays, one entry per payment in id order.
+//a published Columns instance is never modified: refreshes build a new one and swap it in. new rows are
+//appended past the end of the arrays the previous instance shares, rows it can read are never touched
+public class PaiementSnapshot implements IDataChangeListener {
+    private static final Logger logger = Logger.getLogger(PaiementSnapshot.class.getName());
+
+    private final IPaiement paiementDAO;
+    private final IAgent agentDAO;
+    private final long refreshIntervalMs;
+    private final int pageSize;
+    private final long overlapSeconds;
+    private final long verifyIntervalMs;
+    //deletions leave nothing behind in updated_at, the services report them and the next refresh drops the rows
+    private final Set<Integer> deletedIds = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> deletedAgents = ConcurrentHashMap.newKeySet();
+
+    private volatile Columns columns;
+    private volatile long lastRefreshAt;
+    private long lastVerifiedAt;
+    private LocalDateTime updatedWatermark;
+
+    public PaiementSnapshot(IPaiement paiementDAO, IAgent agentDAO, long refreshIntervalMs, int pageSize,
+                            long overlapSeconds, long verifyIntervalMs) {
+        this.paiementDAO = paiementDAO;
+        this.agentDAO = agentDAO;
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.pageSize = pageSize;
+        this.overlapSeconds = overlapSeconds;
+        this.verifyIntervalMs = verifyIntervalMs;
+    }
+
+    public Columns current() {
+        Columns snapshot = columns;
+        if (snapshot == null || System.currentTimeMillis() - lastRefreshAt >= refreshIntervalMs) {
+            refresh();
+            snapshot = columns;
+        }
+        return snapshot;
+    }
+
+    public synchronized void refresh() {
+        //re-check under the lock, another thread may just have refreshed
+        if (columns != null && System.currentTimeMillis() - lastRefreshAt < refreshIntervalMs) {
+            return;
+        }
+        //updated_at is written by the database clock with second precision, read a little back in time from it.
+        //when that clock cannot be read the previous watermark is kept, it only re-reads more rows
+        LocalDateTime nextWatermark = paiementDAO.findCurrentTime()
+                .map(now -> now.minusSeconds(overlapSeconds))
+                .orElse(updatedWatermark);
+        Set<Integer> removedIds = drain(deletedIds);
+        Set<Integer> removedAgents = drain(deletedAgents);
+        Columns previous = columns;
+        Columns next = previous == null || updatedWatermark == null ? null : update(previous, removedIds, removedAgents);
+        long now = System.currentTimeMillis();
+        if (next != null && now - lastVerifiedAt >= verifyIntervalMs) {
+            //rows deleted outside this application are only noticed by counting
+            if (next.size != paiementDAO.countUpToId(next.maxId())) {
+                logger.fine("Payment snapshot out of sync, reloading it");
+                next = null;
+            }
+            lastVerifiedAt = now;
+        }
+        if (next == null) {
+            next = load(Columns.empty());
+            lastVerifiedAt = now;
+        }
+        next.departementByAgent = loadDepartements();
+        columns = next;
+        updatedWatermark = nextWatermark;
+        lastRefreshAt = System.currentTimeMillis();
+    }
+
+    public synchronized void invalidate() {
+        lastRefreshAt = 0;
+    }
+
+    @Override
+    public void onPaiementDeleted(Paiement paiement) {
+        deletedIds.add(paiement.getIdPaiement());
+    }
+
+    @Override
+    public void onAgentDeleted(Agent agent) {
+        deletedAgents.add(agent.getIdAgent());
+    }
+
+    //null when a changed row is missing below the id watermark, it was committed after we passed it
+    private Columns update(Columns previous, Set<Integer> removedIds, Set<Integer> removedAgents) {
+        List<Paiement> changed = paiementDAO.findUpdatedSince(updatedWatermark);
+        int maxKnownId = previous.maxId();
+        boolean rewrite = !removedIds.isEmpty() || !removedAgents.isEmpty();
+        for (Paiement paiement : changed) {
+            if (paiement.getIdPaiement() > maxKnownId || isRemoved(paiement, removedIds, removedAgents)) {
+                continue;
+            }
+            int row = Arrays.binarySearch(previous.ids, 0, previous.size, paiement.getIdPaiement());
+            if (row < 0) {
+                return null;
+            }
+            //the overlap window returns the same rows again for a while, only real changes cost a copy
+            rewrite |= !previous.holds(row, paiement);
+        }
+        if (!rewrite) {
+            return load(previous.share());
+        }
+        Columns next = previous.copyWithout(removedIds, removedAgents);
+        for (Paiement paiement : changed) {
+            if (paiement.getIdPaiement() <= maxKnownId && !isRemoved(paiement, removedIds, removedAgents)) {
+                next.set(Arrays.binarySearch(next.ids, 0, next.size, paiement.getIdPaiement()), paiement);
+            }
+        }
+        return load(next);
+    }
+
+    private static boolean isRemoved(Paiement paiement, Set<Integer> removedIds, Set<Integer> removedAgents) {
+        return removedIds.contains(paiement.getIdPaiement()) || removedAgents.contains(paiement.getAgentId());
+    }
+
+    //takes what has been reported so far, later reports stay for the next refresh
+    private static Set<Integer> drain(Set<Integer> pending) {
+        Set<Integer> drained = new HashSet<>(pending);
+        pending.removeAll(drained);
+        return drained;
+    }
+
+    //appends every row past the last known id, page by page
+    private Columns load(Columns target) {
+        List<Paiement> page;
+        do {
+            page = paiementDAO.findPage(target.maxId(), pageSize);
+            target.ensureCapacity(target.size + page.size());
+            for (Paiement paiement : page) {
+                target.set(target.size++, paiement);
+            }
+        } while (page.size() == pageSize);
+        return target;
+    }
+
+    private int[] loadDepartements() {
+        List<Agent> agents = agentDAO.findAll();
+        int maxAgentId = 0;
+        for (Agent agent : agents) {
+            maxAgentId = Math.max(maxAgentId, agent.getIdAgent());
+        }
+        int[] departementByAgent = new int[maxAgentId + 1];
+        for (Agent agent : agents) {
+            if (agent.getDepartement() != null) {
+                departementByAgent[agent.getIdAgent()] = agent.getDepartement().getIdDepartement();
+            }
+        }
+        return departementByAgent;
+    }
+
+    public static final class Columns {
+        private int size;
+        private int[] ids;
+        private int[] agentIds;
+        private long[] amountCents;
+        private int[] epochDays;
+        private byte[] types;
+        private int[] departementByAgent = new int[0];
+
+        private Columns(int capacity) {
+            ids = new int[capacity];
+            agentIds = new int[capacity];
+            amountCents = new long[capacity];
+            epochDays = new int[capacity];
+            types = new byte[capacity];
+        }
+
+        private static Columns empty() {
+            return new Columns(1024);
+        }
+
+        //same arrays: the new instance only ever writes past this one's size
+        private Columns share() {
+            Columns shared = new Columns(0);
+            shared.size = size;
+            shared.ids = ids;
+            shared.agentIds = agentIds;
+            shared.amountCents = amountCents;
+            shared.epochDays = epochDays;
+            shared.types = types;
+            return shared;
+        }
+
+        private Columns copyWithout(Set<Integer> removedIds, Set<Integer> removedAgents) {
+            Columns copy = new Columns(ids.length);
+            for (int row = 0; row < size; row++) {
+                if (removedIds.contains(ids[row]) || removedAgents.contains(agentIds[row])) {
+                    continue;
+                }
+                int target = copy.size++;
+                copy.ids[target] = ids[row];
+                copy.agentIds[target] = agentIds[row];
+                copy.amountCents[target] = amountCents[row];
+                copy.epochDays[target] = epochDays[row];
+                copy.types[target] = types[row];
+            }
+            return copy;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int grown = Math.max(capacity, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, grown);
+            agentIds = Arrays.copyOf(agentIds, grown);
+            amountCents = Arrays.copyOf(amountCents, grown);
+            epochDays = Arrays.copyOf(epochDays, grown);
+            types = Arrays.copyOf(types, grown);
+        }
+
+        private void set(int row, Paiement paiement) {
+            ids[row] = paiement.getIdPaiement();
+            agentIds[row] = paiement.getAgentId();
+            amountCents[row] = Math.round(paiement.getMontant() * 100);
+            epochDays[row] = (int) paiement.getDate().toEpochDay();
+            types[row] = (byte) paiement.getType().ordinal();
+        }
+
+        private boolean holds(int row, Paiement paiement) {
+            return agentIds[row] == paiement.getAgentId()
+                    && amountCents[row] == Math.round(paiement.getMontant() * 100)
+                    && epochDays[row] == (int) paiement.getDate().toEpochDay()
+                    && types[row] == (byte) paiement.getType().ordinal();
+        }
+
+        private int maxId() {
+            return size == 0 ? 0 : ids[size - 1];
+        }
+
+        //the arrays are shared, not copied: callers only read them, and only up to size()
+        public int size() { return size; }
+        public int[] getIds() { return ids; }
+        public int[] getAgentIds() { return agentIds; }
+        public long[] getAmountCents() { return amountCents; }
+        public int[] getEpochDays() { return epochDays; }
+        public byte[] getTypes() { return types; }
+
+        public int departementOf(int agentId) {
+            return agentId < departementByAgent.length ? departementByAgent[agentId] : 0;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package src.services;
+
+import src.dao.interfaces.IPaiement;
+import src.models.Paiement;
+
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+//splits the paiement id range into chunks, each streamed on its own pooled connection,
+//and folds the partial results together in a dedicated fork-join pool.
+//a chunk that cannot be read fails the whole scan, a partial result is never returned
+public class ParallelPaiementScanner {
+    private final IPaiement paiementDAO;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelPaiementScanner(IPaiement paiementDAO, int parallelism, int chunkSize) {
+        if (parallelism <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("parallelism and chunk size must be positive");
+        }
+        this.paiementDAO = paiementDAO;
+        this.pool = new ForkJoinPool(parallelism);
+        this.chunkSize = chunkSize;
+    }
+
+    //the combiner receives the lower id range first
+    public <A> A scan(Supplier<A> identity, BiConsumer<A, Paiement> accumulator, BinaryOperator<A> combiner) {
+        return scan(identity, accumulator, combiner, fromId -> false);
+    }
+
+    //payment with the lowest id matching the predicate
+    public Optional<Paiement> findFirst(Predicate<Paiement> predicate) {
+        AtomicInteger bestId = new AtomicInteger(Integer.MAX_VALUE);
+        Paiement[] found = scan(() -> new Paiement[1], (holder, paiement) -> {
+            if (holder[0] == null && predicate.test(paiement)) {
+                holder[0] = paiement;
+                bestId.accumulateAndGet(paiement.getIdPaiement(), Math::min);
+            }
+        }, (left, right) -> left[0] != null ? left : right,
+                //chunks entirely above an already found match cannot improve it
+                fromId -> fromId > bestId.get());
+        return Optional.ofNullable(found[0]);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private <A> A scan(Supplier<A> identity, BiConsumer<A, Paiement> accumulator, BinaryOperator<A> combiner, IntPredicate skipFrom) {
+        int maxId = paiementDAO.findMaxId();
+        if (maxId <= 0) {
+            return identity.get();
+        }
+        int minId = paiementDAO.findMinId();
+        return pool.invoke(new ScanTask<>(paiementDAO, chunkSize, minId, maxId + 1, identity, accumulator, combiner, skipFrom));
+    }
+
+    //ForkJoinTask is Serializable but a scan only ever runs inside this process, none of its state is serialized
+    private static final class ScanTask<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient IPaiement paiementDAO;
+        private final int chunkSize;
+        private final int fromId;
+        private final int toIdExclusive;
+        private final transient Supplier<A> identity;
+        private final transient BiConsumer<A, Paiement> accumulator;
+        private final transient BinaryOperator<A> combiner;
+        private final transient IntPredicate skipFrom;
+
+        private ScanTask(IPaiement paiementDAO, int chunkSize, int fromId, int toIdExclusive, Supplier<A> identity,
+                         BiConsumer<A, Paiement> accumulator, BinaryOperator<A> combiner, IntPredicate skipFrom) {
+            this.paiementDAO = paiementDAO;
+            this.chunkSize = chunkSize;
+            this.fromId = fromId;
+            this.toIdExclusive = toIdExclusive;
+            this.identity = identity;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+            this.skipFrom = skipFrom;
+        }
+
+        @Override
+        protected A compute() {
+            if ((long) toIdExclusive - fromId > chunkSize) {
+                int middle = (int) (((long) fromId + toIdExclusive) >>> 1);
+                ScanTask<A> left = new ScanTask<>(paiementDAO, chunkSize, fromId, middle, identity, accumulator, combiner, skipFrom);
+                ScanTask<A> right = new ScanTask<>(paiementDAO, chunkSize, middle, toIdExclusive, identity, accumulator, combiner, skipFrom);
+                left.fork();
+                A rightResult = right.compute();
+                return combiner.apply(left.join(), rightResult);
+            }
+            A result = identity.get();
+            if (skipFrom.test(fromId)) {
+                return result;
+            }
+            try (Stream<Paiement> paiements = paiementDAO.streamByIdRange(fromId, toIdExclusive)) {
+                paiements.forEach(paiement -> accumulator.accept(result, paiement));
+            }
+            return result;
+        }
+    }
+}
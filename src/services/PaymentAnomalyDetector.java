@@ -0,0 +1,254 @@
+package src.services;
+
+import src.dao.interfaces.IPaiement;
+import src.models.Agent;
+import src.models.Paiement;
+import src.models.PaymentAnomaly;
+import src.services.interfaces.IDataChangeListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+//flags payments far from the running mean of the same agent and payment type.
+//each payment is judged against the baseline built from the payments before it (in id order),
+//so a batch scan and the incremental updates from createPaiement give the same answer.
+//start() primes the baselines in the background, the incremental mode then works without a manual scan
+public class PaymentAnomalyDetector implements IDataChangeListener {
+    private static final Logger logger = Logger.getLogger(PaymentAnomalyDetector.class.getName());
+    private static final Comparator<PaymentAnomaly> RANKING =
+            Comparator.comparingDouble((PaymentAnomaly anomaly) -> Math.abs(anomaly.getScore())).reversed()
+                    .thenComparingInt(anomaly -> anomaly.getPaiement().getIdPaiement());
+
+    private final IPaiement paiementDAO;
+    private final double sigmas;
+    private final int minSamples;
+    private final int recentLimit;
+
+    private Map<Long, Baseline> baselines = new HashMap<>();
+    private final Deque<PaymentAnomaly> recent = new ArrayDeque<>();
+    //events received while a scan is streaming, replayed in order on the new baselines once it ends
+    private final List<Consumer<Map<Long, Baseline>>> pending = new ArrayList<>();
+    private boolean primed;
+    private boolean scanning;
+    //ids up to this one are read by the running scan, as they were when its query started
+    private int scannedUpTo;
+    private Thread primer;
+    //one scan at a time, events only take the monitor
+    private final Object scanLock = new Object();
+
+    public PaymentAnomalyDetector(IPaiement paiementDAO, double sigmas, int minSamples, int recentLimit) {
+        this.paiementDAO = paiementDAO;
+        this.sigmas = sigmas;
+        this.minSamples = minSamples;
+        this.recentLimit = recentLimit;
+    }
+
+    //builds the baselines once at startup, without waiting for the first detectAnomalies scan
+    public synchronized void start() {
+        if (primer != null || primed) {
+            return;
+        }
+        primer = new Thread(() -> {
+            try {
+                scan(sigmas);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Anomaly baselines could not be built, run a scan from the statistics menu", e);
+            }
+        }, "flowpay-anomaly-primer");
+        primer.setDaemon(true);
+        primer.start();
+    }
+
+    //single pass over the whole history, rebuilds the baselines used by the incremental mode
+    //and starts a new list of recent anomalies
+    public List<PaymentAnomaly> scan(double threshold) {
+        synchronized (scanLock) {
+            return rescan(threshold);
+        }
+    }
+
+    private List<PaymentAnomaly> rescan(double threshold) {
+        Map<Long, Baseline> fresh = new HashMap<>();
+        List<PaymentAnomaly> anomalies = new ArrayList<>();
+        int upTo = paiementDAO.findMaxId();
+        synchronized (this) {
+            scanning = true;
+            scannedUpTo = upTo;
+            recent.clear();
+        }
+        boolean complete = false;
+        try (Stream<Paiement> paiements = paiementDAO.streamByIdRange(0, upTo + 1)) {
+            paiements.forEach(paiement -> {
+                PaymentAnomaly anomaly = observe(fresh, paiement, threshold);
+                if (anomaly != null) {
+                    anomalies.add(anomaly);
+                }
+            });
+            complete = true;
+        } finally {
+            synchronized (this) {
+                //a scan that failed halfway leaves the previous baselines in place
+                if (complete) {
+                    pending.forEach(change -> change.accept(fresh));
+                    baselines = fresh;
+                    primed = true;
+                }
+                pending.clear();
+                scanning = false;
+            }
+        }
+        anomalies.sort(RANKING);
+        return anomalies;
+    }
+
+    public synchronized List<PaymentAnomaly> getRecentAnomalies() {
+        List<PaymentAnomaly> anomalies = new ArrayList<>(recent);
+        anomalies.sort(RANKING);
+        return anomalies;
+    }
+
+    public synchronized boolean isPrimed() {
+        return primed;
+    }
+
+    //the scan reads a snapshot taken when its query starts: payments up to scannedUpTo are in it as they were
+    //then, later ones are not. the changes received meanwhile are replayed on top of it, in order, except
+    //the creations the scan has already read. until the first scan ends nothing is compared
+    @Override
+    public synchronized void onPaiementCreated(Paiement paiement) {
+        if (scanning && paiement.getIdPaiement() > scannedUpTo) {
+            //already flagged against the old baselines when there were some
+            boolean flagged = primed;
+            pending.add(target -> {
+                if (flagged) {
+                    observe(target, paiement, sigmas);
+                } else {
+                    flag(target, paiement);
+                }
+            });
+        }
+        if (primed) {
+            flag(baselines, paiement);
+        }
+    }
+
+    @Override
+    public synchronized void onPaiementUpdated(Paiement before, Paiement after) {
+        if (scanning) {
+            pending.add(target -> replace(target, before, after));
+        }
+        if (primed) {
+            replace(baselines, before, after);
+        }
+    }
+
+    @Override
+    public synchronized void onPaiementDeleted(Paiement paiement) {
+        if (scanning) {
+            pending.add(target -> remove(target, paiement));
+        }
+        if (primed) {
+            remove(baselines, paiement);
+        }
+    }
+
+    @Override
+    public synchronized void onAgentDeleted(Agent agent) {
+        if (scanning) {
+            pending.add(target -> removeAgent(target, agent.getIdAgent()));
+        }
+        if (primed) {
+            removeAgent(baselines, agent.getIdAgent());
+        }
+    }
+
+    private void flag(Map<Long, Baseline> target, Paiement paiement) {
+        PaymentAnomaly anomaly = observe(target, paiement, sigmas);
+        if (anomaly != null) {
+            recent.addLast(anomaly);
+            if (recent.size() > recentLimit) {
+                recent.removeFirst();
+            }
+        }
+    }
+
+    private PaymentAnomaly observe(Map<Long, Baseline> target, Paiement paiement, double threshold) {
+        Baseline baseline = baselineOf(target, paiement);
+        PaymentAnomaly anomaly = null;
+        if (baseline.count >= minSamples) {
+            double deviation = baseline.standardDeviation();
+            double distance = paiement.getMontant() - baseline.mean;
+            //a constant history has no spread, any different amount is then infinitely unusual
+            double score = deviation > 0 ? distance / deviation : (distance == 0 ? 0 : Math.copySign(Double.POSITIVE_INFINITY, distance));
+            if (Math.abs(score) >= threshold) {
+                anomaly = new PaymentAnomaly(paiement, baseline.mean, deviation, score);
+            }
+        }
+        baseline.add(paiement.getMontant());
+        return anomaly;
+    }
+
+    private static void replace(Map<Long, Baseline> target, Paiement before, Paiement after) {
+        remove(target, before);
+        baselineOf(target, after).add(after.getMontant());
+    }
+
+    private static void remove(Map<Long, Baseline> target, Paiement paiement) {
+        Baseline baseline = target.get(keyOf(paiement));
+        if (baseline != null) {
+            baseline.remove(paiement.getMontant());
+        }
+    }
+
+    private static void removeAgent(Map<Long, Baseline> target, int agentId) {
+        target.keySet().removeIf(key -> (int) (key >> 8) == agentId);
+    }
+
+    private static Baseline baselineOf(Map<Long, Baseline> target, Paiement paiement) {
+        return target.computeIfAbsent(keyOf(paiement), key -> new Baseline());
+    }
+
+    private static long keyOf(Paiement paiement) {
+        return ((long) paiement.getAgentId() << 8) | paiement.getType().ordinal();
+    }
+
+    //Welford running mean / variance
+    private static final class Baseline {
+        private long count;
+        private double mean;
+        private double m2;
+
+        private void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        }
+
+        private void remove(double value) {
+            if (count <= 1) {
+                count = 0;
+                mean = 0;
+                m2 = 0;
+                return;
+            }
+            double previousMean = (count * mean - value) / (count - 1);
+            m2 = Math.max(0, m2 - (value - mean) * (value - previousMean));
+            mean = previousMean;
+            count--;
+        }
+
+        private double standardDeviation() {
+            return count > 1 ? Math.sqrt(m2 / (count - 1)) : 0;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package src.services;
+
+import src.dao.interfaces.IAgent;
+import src.dao.interfaces.IPaiement;
+import src.models.AggregateDimension;
+import src.models.Agent;
+import src.models.Departement;
+import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
+import src.models.TypeAgent;
+import src.models.TypePaiement;
+import src.services.interfaces.IDataChangeListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//payment counts and totals per (departement, agent type, payment type, year, month), read from the
+//monthly rollup in one query and rolled up in memory to any subset of those dimensions.
+//payments created, updated or deleted through the services are applied to their cell as they happen;
+//changes that move whole agents between cells throw the cube away and the next query reloads it
+public class PaymentCube implements IDataChangeListener {
+    private static final Set<AggregateDimension> CELL_DIMENSIONS = EnumSet.of(AggregateDimension.DEPARTEMENT,
+            AggregateDimension.AGENT_TYPE, AggregateDimension.TYPE, AggregateDimension.YEAR, AggregateDimension.MONTH);
+    private static final TypeAgent[] AGENT_TYPES = TypeAgent.values();
+    private static final TypePaiement[] TYPES = TypePaiement.values();
+
+    private final IPaiement paiementDAO;
+    private final IAgent agentDAO;
+    private final DataChangeNotifier notifier;
+    private final long maxAgeMs;
+    //queries scan the cells under the read lock, events change them under the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Cells cells;
+
+    public PaymentCube(IPaiement paiementDAO, IAgent agentDAO, DataChangeNotifier notifier, long maxAgeMs) {
+        this.paiementDAO = paiementDAO;
+        this.agentDAO = agentDAO;
+        this.notifier = notifier;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    //rows come back ordered by the grouped dimensions, departement then agent type, type, year and month
+    public List<PaiementAggregate> query(PaiementCriteria criteria, Set<AggregateDimension> groupBy) {
+        if (criteria.getAgentId() != null || groupBy.contains(AggregateDimension.AGENT)) {
+            //the cells are not kept per agent
+            return paiementDAO.aggregate(criteria, groupBy);
+        }
+        Cells current = current();
+        Map<Long, long[]> rollup = new TreeMap<>();
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < current.size; i++) {
+                //cells emptied by deletions stay in place with a count of 0
+                if (current.counts[i] > 0 && current.matches(i, criteria)) {
+                    long[] totals = rollup.computeIfAbsent(current.key(i, groupBy), key -> new long[3]);
+                    totals[0] += current.counts[i];
+                    totals[1] += current.cents[i];
+                    totals[2] = Math.max(totals[2], current.maxCents[i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<PaiementAggregate> aggregates = new ArrayList<>(rollup.size());
+        rollup.forEach((key, totals) -> aggregates.add(toAggregate(key, groupBy, totals)));
+        return aggregates;
+    }
+
+    public void invalidate() {
+        cells = null;
+    }
+
+    @Override
+    public void onPaiementCreated(Paiement paiement) {
+        apply(current -> current.add(paiement));
+    }
+
+    @Override
+    public void onPaiementsCreated(List<Paiement> paiements) {
+        apply(current -> {
+            for (Paiement paiement : paiements) {
+                if (!current.add(paiement)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public void onPaiementUpdated(Paiement before, Paiement after) {
+        apply(current -> current.remove(before) && current.add(after));
+    }
+
+    @Override
+    public void onPaiementDeleted(Paiement paiement) {
+        apply(current -> current.remove(paiement));
+    }
+
+    @Override
+    public void onAgentCreated(Agent agent) {
+        apply(current -> {
+            current.profiles.put(agent.getIdAgent(), profileOf(agent));
+            return true;
+        });
+    }
+
+    @Override
+    public void onAgentUpdated(Agent agent) {
+        //only a new agent type moves the agent's payments to other cells
+        apply(current -> {
+            Integer profile = current.profiles.get(agent.getIdAgent());
+            return profile != null && (profile & 0xF) == agent.getTypeAgent().ordinal();
+        });
+    }
+
+    @Override
+    public void onAgentMoved(int agentId, int fromDepartementId, int toDepartementId) {
+        invalidate();
+    }
+
+    @Override
+    public void onAgentsMoved(List<Integer> agentIds, int fromDepartementId, int toDepartementId) {
+        invalidate();
+    }
+
+    @Override
+    public void onAgentDeleted(Agent agent) {
+        invalidate();
+    }
+
+    @Override
+    public void onDepartementDeleted(Departement departement) {
+        invalidate();
+    }
+
+    //a change the cells cannot absorb (unknown agent, maximum of a cell deleted) drops them, as does a failure
+    private void apply(Delta delta) {
+        lock.writeLock().lock();
+        try {
+            Cells current = cells;
+            if (current != null && !delta.applyTo(current)) {
+                cells = null;
+            }
+        } catch (RuntimeException e) {
+            cells = null;
+            throw e;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //maxAgeMs bounds how long the cells can miss writes made outside the application.
+    //a load stamped with the notifier version is kept only if no write was reported while it ran,
+    //otherwise it answers this query alone: the write may or may not be in what it read
+    private Cells current() {
+        Cells current = cells;
+        if (current == null || System.currentTimeMillis() - current.loadedAt >= maxAgeMs) {
+            synchronized (this) {
+                current = cells;
+                if (current == null || System.currentTimeMillis() - current.loadedAt >= maxAgeMs) {
+                    long version = notifier.getVersion();
+                    Cells loaded = new Cells(paiementDAO.aggregate(new PaiementCriteria(), CELL_DIMENSIONS), agentDAO.findAll());
+                    lock.writeLock().lock();
+                    try {
+                        if (notifier.getVersion() == version) {
+                            cells = loaded;
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    current = loaded;
+                }
+            }
+        }
+        return current;
+    }
+
+    //departement id in the high bits, agent type ordinal in the low 4
+    private static int profileOf(Agent agent) {
+        int departementId = agent.getDepartement() == null ? 0 : agent.getDepartement().getIdDepartement();
+        return departementId << 4 | agent.getTypeAgent().ordinal();
+    }
+
+    //departement in bits 28-59, then agent type, type, year and month; dimensions not grouped stay 0,
+    //so ascending keys give the report order
+    private static long key(int departementId, int agentType, int type, int year, int month) {
+        return (long) departementId << 28 | (long) agentType << 24 | (long) type << 20 | (long) year << 4 | month;
+    }
+
+    private static PaiementAggregate toAggregate(long key, Set<AggregateDimension> groupBy, long[] totals) {
+        PaiementAggregate aggregate = new PaiementAggregate();
+        if (groupBy.contains(AggregateDimension.DEPARTEMENT)) {
+            int departementId = (int) (key >>> 28);
+            aggregate.setDepartementId(departementId == 0 ? null : departementId);
+        }
+        if (groupBy.contains(AggregateDimension.AGENT_TYPE)) {
+            aggregate.setAgentType(AGENT_TYPES[(int) (key >>> 24) & 0xF]);
+        }
+        if (groupBy.contains(AggregateDimension.TYPE)) {
+            aggregate.setType(TYPES[(int) (key >>> 20) & 0xF]);
+        }
+        if (groupBy.contains(AggregateDimension.YEAR)) {
+            aggregate.setYear((int) (key >>> 4) & 0xFFFF);
+        }
+        if (groupBy.contains(AggregateDimension.MONTH)) {
+            aggregate.setMonth((int) key & 0xF);
+        }
+        aggregate.setCount(totals[0]);
+        aggregate.setTotal(totals[1] / 100.0);
+        aggregate.setMaximum(totals[2] / 100.0);
+        return aggregate;
+    }
+
+    @FunctionalInterface
+    private interface Delta {
+        //false when the change cannot be applied, the cells are then reloaded
+        boolean applyTo(Cells cells);
+    }
+
+    //one entry per cell in parallel arrays, changed only by the deltas under the write lock
+    private static final class Cells {
+        private final long loadedAt = System.currentTimeMillis();
+        private int size;
+        private int[] departementIds;
+        private byte[] agentTypes;
+        private byte[] types;
+        private int[] years;
+        private byte[] months;
+        private long[] counts;
+        private long[] cents;
+        private long[] maxCents;
+        private final Map<Long, Integer> index = new HashMap<>();
+        //agent id -> departement and agent type, to find the cell of a new payment
+        private final Map<Integer, Integer> profiles = new HashMap<>();
+
+        private Cells(List<PaiementAggregate> rows, List<Agent> agents) {
+            size = rows.size();
+            departementIds = new int[size];
+            agentTypes = new byte[size];
+            types = new byte[size];
+            years = new int[size];
+            months = new byte[size];
+            counts = new long[size];
+            cents = new long[size];
+            maxCents = new long[size];
+            for (int i = 0; i < size; i++) {
+                PaiementAggregate row = rows.get(i);
+                //agents without departement are kept under 0, ids start at 1
+                departementIds[i] = row.getDepartementId() == null ? 0 : row.getDepartementId();
+                agentTypes[i] = (byte) row.getAgentType().ordinal();
+                types[i] = (byte) row.getType().ordinal();
+                years[i] = row.getYear();
+                months[i] = (byte) (int) row.getMonth();
+                counts[i] = row.getCount();
+                cents[i] = Math.round(row.getTotal() * 100);
+                maxCents[i] = Math.round(row.getMaximum() * 100);
+                index.put(key(i, CELL_DIMENSIONS), i);
+            }
+            for (Agent agent : agents) {
+                profiles.put(agent.getIdAgent(), profileOf(agent));
+            }
+        }
+
+        private boolean add(Paiement paiement) {
+            int cell = cellOf(paiement, true);
+            if (cell < 0) {
+                return false;
+            }
+            long amount = Math.round(paiement.getMontant() * 100);
+            counts[cell]++;
+            cents[cell] += amount;
+            maxCents[cell] = counts[cell] == 1 ? amount : Math.max(maxCents[cell], amount);
+            return true;
+        }
+
+        //the maximum cannot be known again once the payment holding it is gone
+        private boolean remove(Paiement paiement) {
+            int cell = cellOf(paiement, false);
+            if (cell < 0 || counts[cell] == 0) {
+                return false;
+            }
+            long amount = Math.round(paiement.getMontant() * 100);
+            counts[cell]--;
+            cents[cell] -= amount;
+            return counts[cell] == 0 || amount < maxCents[cell];
+        }
+
+        //-1 when the agent or, unless create is set, the cell is not known
+        private int cellOf(Paiement paiement, boolean create) {
+            Integer profile = profiles.get(paiement.getAgentId());
+            if (profile == null) {
+                return -1;
+            }
+            int departementId = profile >>> 4;
+            int agentType = profile & 0xF;
+            int type = paiement.getType().ordinal();
+            int year = paiement.getDate().getYear();
+            int month = paiement.getDate().getMonthValue();
+            Integer cell = index.get(PaymentCube.key(departementId, agentType, type, year, month));
+            if (cell != null) {
+                return cell;
+            }
+            if (!create) {
+                return -1;
+            }
+            if (size == counts.length) {
+                grow();
+            }
+            departementIds[size] = departementId;
+            agentTypes[size] = (byte) agentType;
+            types[size] = (byte) type;
+            years[size] = year;
+            months[size] = (byte) month;
+            index.put(PaymentCube.key(departementId, agentType, type, year, month), size);
+            return size++;
+        }
+
+        private void grow() {
+            int capacity = Math.max(16, size + (size >> 1));
+            departementIds = Arrays.copyOf(departementIds, capacity);
+            agentTypes = Arrays.copyOf(agentTypes, capacity);
+            types = Arrays.copyOf(types, capacity);
+            years = Arrays.copyOf(years, capacity);
+            months = Arrays.copyOf(months, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            cents = Arrays.copyOf(cents, capacity);
+            maxCents = Arrays.copyOf(maxCents, capacity);
+        }
+
+        private boolean matches(int i, PaiementCriteria criteria) {
+            if (criteria.getDepartementId() != null && criteria.getDepartementId() != departementIds[i]) {
+                return false;
+            }
+            if (criteria.getType() != null && criteria.getType().ordinal() != types[i]) {
+                return false;
+            }
+            if (criteria.getYear() != null && criteria.getYear() != years[i]) {
+                return false;
+            }
+            return criteria.getMonth() == null || criteria.getMonth() == months[i];
+        }
+
+        //same layout as PaymentCube.key, with the dimensions not grouped left at 0
+        private long key(int i, Set<AggregateDimension> groupBy) {
+            long key = 0;
+            if (groupBy.contains(AggregateDimension.DEPARTEMENT)) {
+                key |= (long) departementIds[i] << 28;
+            }
+            if (groupBy.contains(AggregateDimension.AGENT_TYPE)) {
+                key |= (long) agentTypes[i] << 24;
+            }
+            if (groupBy.contains(AggregateDimension.TYPE)) {
+                key |= (long) types[i] << 20;
+            }
+            if (groupBy.contains(AggregateDimension.YEAR)) {
+                key |= (long) years[i] << 4;
+            }
+            if (groupBy.contains(AggregateDimension.MONTH)) {
+                key |= months[i];
+            }
+            return key;
+        }
+    }
+}
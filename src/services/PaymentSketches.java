@@ -0,0 +1,308 @@
+package src.services;
+
+import src.dao.interfaces.IAgent;
+import src.dao.interfaces.IPaiement;
+import src.models.Agent;
+import src.models.Paiement;
+import src.models.PaiementCriteria;
+import src.models.TypePaiement;
+import src.services.interfaces.IDataChangeListener;
+import src.services.sketch.DistinctCountSketch;
+import src.services.sketch.QuantileSketch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+//amount quantiles and distinct paid agents per (departement, type, month), merged on demand.
+//sketches cannot forget a value, so an update or delete marks its cells dirty and an agent move or delete
+//marks both departements; the next query rebuilds only those cells from the payments of their agents.
+//the rows are read without holding the monitor, so new payments are never blocked behind a scan, and the
+//rebuilt cells are swapped in afterwards. a cell touched again while it was being rebuilt stays dirty
+public class PaymentSketches implements IDataChangeListener {
+    private static final TypePaiement[] TYPES = TypePaiement.values();
+
+    private final IPaiement paiementDAO;
+    private final IAgent agentDAO;
+    private final int quantileK;
+    private final int distinctPrecision;
+    //one rebuild at a time; events and merges only take the monitor
+    private final Object rebuildLock = new Object();
+
+    private Map<Long, Cell> cells = new HashMap<>();
+    private Map<Integer, Integer> departementByAgent = new HashMap<>();
+    //cell key or departement -> stamp of the last change, a rebuild clears the ones it has read past
+    private final Map<Long, Long> dirtyCells = new HashMap<>();
+    private final Map<Integer, Long> dirtyDepartements = new HashMap<>();
+    //payments changed during the first build, keyed once the agents' departements are known
+    private final List<Paiement> changedDuringBuild = new ArrayList<>();
+    private long stamp;
+    //bumped by invalidate() so that a rebuild started before it is not swapped in
+    private long epoch;
+    private boolean built;
+    private boolean building;
+
+    public PaymentSketches(IPaiement paiementDAO, IAgent agentDAO, int quantileK, int distinctPrecision) {
+        this.paiementDAO = paiementDAO;
+        this.agentDAO = agentDAO;
+        this.quantileK = quantileK;
+        this.distinctPrecision = distinctPrecision;
+    }
+
+    //NaN when no payment matches
+    public double percentile(PaiementCriteria criteria, double percentile) {
+        refresh(criteria);
+        QuantileSketch merged = new QuantileSketch(quantileK);
+        synchronized (this) {
+            for (Cell cell : matching(criteria)) {
+                merged.merge(cell.amounts);
+            }
+        }
+        return merged.quantile(percentile);
+    }
+
+    public long countDistinctAgents(PaiementCriteria criteria) {
+        refresh(criteria);
+        DistinctCountSketch merged = new DistinctCountSketch(distinctPrecision);
+        synchronized (this) {
+            for (Cell cell : matching(criteria)) {
+                merged.merge(cell.agents);
+            }
+        }
+        return merged.estimate();
+    }
+
+    public synchronized void invalidate() {
+        epoch++;
+        built = false;
+        building = false;
+        cells = new HashMap<>();
+        departementByAgent = new HashMap<>();
+        dirtyCells.clear();
+        dirtyDepartements.clear();
+        changedDuringBuild.clear();
+    }
+
+    @Override
+    public synchronized void onPaiementCreated(Paiement paiement) {
+        //before the first query there is nothing to keep up to date, the build will read it
+        if (!tracking()) {
+            return;
+        }
+        if (!built) {
+            changedDuringBuild.add(paiement);
+            return;
+        }
+        long key = keyOf(paiement);
+        //a dirty cell may be being read right now: leave it to the next rebuild rather than count the payment twice
+        if (isDirty(key)) {
+            markCell(key);
+        } else {
+            add(cells, key, paiement);
+        }
+    }
+
+    @Override
+    public synchronized void onPaiementUpdated(Paiement before, Paiement after) {
+        if (tracking()) {
+            markPaiement(before);
+            markPaiement(after);
+        }
+    }
+
+    @Override
+    public synchronized void onPaiementDeleted(Paiement paiement) {
+        if (tracking()) {
+            markPaiement(paiement);
+        }
+    }
+
+    @Override
+    public synchronized void onAgentCreated(Agent agent) {
+        if (tracking()) {
+            departementByAgent.put(agent.getIdAgent(), DataChangeNotifier.departementIdOf(agent));
+        }
+    }
+
+    @Override
+    public synchronized void onAgentMoved(int agentId, int fromDepartementId, int toDepartementId) {
+        if (tracking()) {
+            departementByAgent.put(agentId, toDepartementId);
+            markDepartement(fromDepartementId);
+            markDepartement(toDepartementId);
+        }
+    }
+
+    @Override
+    public synchronized void onAgentsMoved(List<Integer> agentIds, int fromDepartementId, int toDepartementId) {
+        if (tracking()) {
+            agentIds.forEach(agentId -> departementByAgent.put(agentId, toDepartementId));
+            markDepartement(fromDepartementId);
+            markDepartement(toDepartementId);
+        }
+    }
+
+    @Override
+    public synchronized void onAgentDeleted(Agent agent) {
+        if (tracking()) {
+            Integer departementId = departementByAgent.remove(agent.getIdAgent());
+            markDepartement(departementId != null ? departementId : DataChangeNotifier.departementIdOf(agent));
+        }
+    }
+
+    private void refresh(PaiementCriteria criteria) {
+        if (criteria.getAgentId() != null) {
+            throw new IllegalArgumentException("les sketches sont agrégés par département, pas par agent");
+        }
+        synchronized (rebuildLock) {
+            boolean full;
+            long since;
+            long startEpoch;
+            Set<Long> cellKeys;
+            Set<Integer> departements;
+            Map<Integer, Integer> agents = new HashMap<>();
+            synchronized (this) {
+                if (built && dirtyCells.isEmpty() && dirtyDepartements.isEmpty()) {
+                    return;
+                }
+                full = !built;
+                building = full;
+                since = stamp;
+                startEpoch = epoch;
+                cellKeys = new HashSet<>(dirtyCells.keySet());
+                departements = new HashSet<>(dirtyDepartements.keySet());
+                if (!full) {
+                    Set<Integer> needed = new HashSet<>(departements);
+                    cellKeys.forEach(key -> needed.add(departementOf(key)));
+                    departementByAgent.forEach((agentId, departementId) -> {
+                        if (needed.contains(departementId)) {
+                            agents.put(agentId, departementId);
+                        }
+                    });
+                }
+            }
+
+            Map<Long, Cell> fresh = new HashMap<>();
+            if (full) {
+                for (Agent agent : agentDAO.findAll()) {
+                    agents.put(agent.getIdAgent(), DataChangeNotifier.departementIdOf(agent));
+                }
+                try (Stream<Paiement> paiements = paiementDAO.streamAll()) {
+                    paiements.forEach(paiement -> add(fresh, keyOf(agents, paiement), paiement));
+                }
+            } else if (!agents.isEmpty()) {
+                for (Paiement paiement : paiementDAO.findByAgentIds(agents.keySet())) {
+                    long key = keyOf(agents, paiement);
+                    if (departements.contains(departementOf(key)) || cellKeys.contains(key)) {
+                        add(fresh, key, paiement);
+                    }
+                }
+            }
+
+            synchronized (this) {
+                if (epoch != startEpoch) {
+                    return;
+                }
+                if (full) {
+                    //agents created or moved during the build are newer than what was read
+                    agents.putAll(departementByAgent);
+                    departementByAgent = agents;
+                    cells = fresh;
+                    built = true;
+                    building = false;
+                    changedDuringBuild.forEach(this::markPaiement);
+                    changedDuringBuild.clear();
+                } else {
+                    cells.keySet().removeIf(key -> departements.contains(departementOf(key)) || cellKeys.contains(key));
+                    cells.putAll(fresh);
+                }
+                dirtyCells.values().removeIf(changed -> changed <= since);
+                dirtyDepartements.values().removeIf(changed -> changed <= since);
+            }
+        }
+    }
+
+    private List<Cell> matching(PaiementCriteria criteria) {
+        List<Cell> matching = new ArrayList<>();
+        cells.forEach((key, cell) -> {
+            if (matches(key, criteria)) {
+                matching.add(cell);
+            }
+        });
+        return matching;
+    }
+
+    private boolean tracking() {
+        return built || building;
+    }
+
+    private boolean isDirty(long key) {
+        return dirtyCells.containsKey(key) || dirtyDepartements.containsKey(departementOf(key));
+    }
+
+    private void markPaiement(Paiement paiement) {
+        if (built) {
+            markCell(keyOf(paiement));
+        } else {
+            changedDuringBuild.add(paiement);
+        }
+    }
+
+    private void markCell(long key) {
+        dirtyCells.put(key, ++stamp);
+    }
+
+    private void markDepartement(int departementId) {
+        dirtyDepartements.put(departementId, ++stamp);
+    }
+
+    private long keyOf(Paiement paiement) {
+        return keyOf(departementByAgent, paiement);
+    }
+
+    private static long keyOf(Map<Integer, Integer> departementByAgent, Paiement paiement) {
+        int departementId = departementByAgent.getOrDefault(paiement.getAgentId(), 0);
+        int monthIndex = paiement.getDate().getYear() * 12 + paiement.getDate().getMonthValue() - 1;
+        return key(departementId, paiement.getType(), monthIndex);
+    }
+
+    private void add(Map<Long, Cell> target, long key, Paiement paiement) {
+        Cell cell = target.computeIfAbsent(key, k -> new Cell());
+        cell.amounts.add(paiement.getMontant());
+        cell.agents.add(paiement.getAgentId());
+    }
+
+    //departement in the high 32 bits, then type ordinal and year * 12 + month - 1
+    private static long key(int departementId, TypePaiement type, int monthIndex) {
+        return ((long) departementId << 32) | ((long) type.ordinal() << 24) | monthIndex;
+    }
+
+    private static int departementOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static boolean matches(long key, PaiementCriteria criteria) {
+        int departementId = departementOf(key);
+        TypePaiement type = TYPES[(int) (key >>> 24) & 0xFF];
+        int monthIndex = (int) (key & 0xFFFFFF);
+        if (criteria.getDepartementId() != null && criteria.getDepartementId() != departementId) {
+            return false;
+        }
+        if (criteria.getType() != null && criteria.getType() != type) {
+            return false;
+        }
+        if (criteria.getYear() != null && criteria.getYear() != monthIndex / 12) {
+            return false;
+        }
+        return criteria.getMonth() == null || criteria.getMonth() == monthIndex % 12 + 1;
+    }
+
+    private final class Cell {
+        private final QuantileSketch amounts = new QuantileSketch(quantileK);
+        private final DistinctCountSketch agents = new DistinctCountSketch(distinctPrecision);
+    }
+}
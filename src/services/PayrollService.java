@@ -0,0 +1,204 @@
+package src.services;
+
+import src.dao.interfaces.IAgent;
+import src.dao.interfaces.IPaiement;
+import src.dao.interfaces.IPayroll;
+import src.models.AggregateDimension;
+import src.models.Agent;
+import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
+import src.models.PayrollPartition;
+import src.models.PayrollRun;
+import src.models.PayrollStatus;
+import src.models.TypeAgent;
+import src.models.TypePaiement;
+import src.services.interfaces.IPayrollService;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+//monthly payroll: one salary per agent from the grid, plus the monthly indemnity for the agent types that have one.
+//agents are split into id ranges written in parallel, chunk by chunk, each chunk committed with its checkpoint
+public class PayrollService implements IPayrollService {
+    private static final Logger logger = Logger.getLogger(PayrollService.class.getName());
+
+    private final IPayroll payrollDAO;
+    private final IAgent agentDAO;
+    private final IPaiement paiementDAO;
+    private final DataChangeNotifier notifier;
+    private final Map<TypeAgent, Double> salaires;
+    private final Map<TypeAgent, Double> indemnites;
+    private final int partitions;
+    private final int chunkSize;
+
+    public PayrollService(IPayroll payrollDAO, IAgent agentDAO, IPaiement paiementDAO, DataChangeNotifier notifier,
+                          Map<TypeAgent, Double> salaires, Map<TypeAgent, Double> indemnites,
+                          int partitions, int chunkSize) {
+        if (partitions <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("partitions and chunkSize must be positive");
+        }
+        this.payrollDAO = payrollDAO;
+        this.agentDAO = agentDAO;
+        this.paiementDAO = paiementDAO;
+        this.notifier = notifier;
+        this.salaires = new EnumMap<>(salaires);
+        this.indemnites = new EnumMap<>(indemnites);
+        this.partitions = partitions;
+        this.chunkSize = chunkSize;
+    }
+
+    public PayrollRun runPayroll(int year, int month) {
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("month must be between 1 and 12");
+        }
+        YearMonth period = YearMonth.of(year, month);
+        PayrollRun run = payrollDAO.findRun(year, month).orElse(null);
+        if (run != null && run.getStatus() == PayrollStatus.TERMINE) {
+            throw new IllegalStateException("La paie de " + period + " a déjà été générée");
+        }
+
+        List<Agent> agents = new ArrayList<>(agentDAO.findAll());
+        agents.sort(Comparator.comparingInt(Agent::getIdAgent));
+        List<PayrollPartition> ranges;
+        if (run == null) {
+            run = payrollDAO.createRun(new PayrollRun(year, month), split(agents));
+            if (run.getIdPayrollRun() <= 0) {
+                throw new IllegalStateException("Impossible de démarrer la paie de " + period);
+            }
+            ranges = payrollDAO.findPartitions(run.getIdPayrollRun());
+        } else {
+            //resume with the ranges recorded at creation, the checkpoints only mean something against them
+            ranges = payrollDAO.findPartitions(run.getIdPayrollRun());
+            payrollDAO.updateStatus(run.getIdPayrollRun(), PayrollStatus.EN_COURS);
+            logger.info("Reprise de la paie de " + period);
+        }
+
+        //one query for the whole month: agents already holding a salary (paid by hand) are left out
+        Set<Integer> alreadyPaid = new HashSet<>();
+        for (PaiementAggregate aggregate : paiementDAO.aggregate(
+                new PaiementCriteria().month(year, month).type(TypePaiement.SALAIRE), EnumSet.of(AggregateDimension.AGENT))) {
+            alreadyPaid.add(aggregate.getAgentId());
+        }
+
+        List<PayrollPartition> pending = ranges.stream().filter(partition -> !partition.isDone()).toList();
+        LongAdder rejected = new LongAdder();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(partitions, pending.size())), runnable -> {
+            Thread thread = new Thread(runnable, "flowpay-payroll-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (PayrollPartition partition : pending) {
+                futures.add(executor.submit(() -> process(partition, agents, alreadyPaid, period, rejected)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            payrollDAO.updateStatus(run.getIdPayrollRun(), PayrollStatus.ECHEC);
+            throw new IllegalStateException("Paie de " + period + " interrompue, relancez-la pour la reprendre");
+        } catch (ExecutionException e) {
+            payrollDAO.updateStatus(run.getIdPayrollRun(), PayrollStatus.ECHEC);
+            throw new IllegalStateException("Échec de la paie de " + period + ", relancez-la pour la reprendre", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (rejected.sum() > 0) {
+            logger.warning(rejected.sum() + " paiement(s) non éligible(s) écarté(s) de la paie de " + period);
+        }
+        payrollDAO.updateStatus(run.getIdPayrollRun(), PayrollStatus.TERMINE);
+        return payrollDAO.findRun(year, month).orElse(run);
+    }
+
+    public List<PayrollRun> getRuns() {
+        return payrollDAO.findAllRuns();
+    }
+
+    private void process(PayrollPartition partition, List<Agent> agents, Set<Integer> alreadyPaid,
+                         YearMonth period, LongAdder rejected) {
+        List<Agent> remaining = agents.stream()
+                .filter(agent -> agent.getIdAgent() > partition.getLastAgentId())
+                .filter(agent -> agent.getIdAgent() >= partition.getFromAgentId() && agent.getIdAgent() < partition.getToAgentId())
+                .toList();
+        for (int start = 0; start < remaining.size(); start += chunkSize) {
+            List<Agent> chunk = remaining.subList(start, Math.min(start + chunkSize, remaining.size()));
+            List<Paiement> paiements = new ArrayList<>();
+            for (Agent agent : chunk) {
+                if (!alreadyPaid.contains(agent.getIdAgent())) {
+                    payslip(agent, period, paiements);
+                }
+            }
+            //the whole chunk is checked before writing: rows the payment rules would refuse are dropped
+            int before = paiements.size();
+            paiements.removeIf(paiement -> !paiement.isEligible() || paiement.getMontant() <= 0);
+            rejected.add(before - paiements.size());
+
+            int lastAgentId = chunk.get(chunk.size() - 1).getIdAgent();
+            if (!payrollDAO.saveChunk(partition, paiements, lastAgentId)) {
+                throw new IllegalStateException("Échec d'écriture de la tranche " + partition.getNumber()
+                        + " jusqu'à l'agent " + lastAgentId);
+            }
+            if (!paiements.isEmpty()) {
+                notifier.paiementsCreated(paiements);
+            }
+        }
+        payrollDAO.completePartition(partition);
+    }
+
+    private void payslip(Agent agent, YearMonth period, List<Paiement> paiements) {
+        LocalDate date = period.atEndOfMonth();
+        String motif = String.format("Paie %02d/%d", period.getMonthValue(), period.getYear());
+        double salaire = salaires.getOrDefault(agent.getTypeAgent(), 0.0);
+        if (salaire > 0) {
+            paiements.add(payment(TypePaiement.SALAIRE, salaire, motif, agent, date));
+        }
+        double indemnite = indemnites.getOrDefault(agent.getTypeAgent(), 0.0);
+        if (indemnite > 0) {
+            paiements.add(payment(TypePaiement.INDEMNITE, indemnite, motif, agent, date));
+        }
+    }
+
+    private static Paiement payment(TypePaiement type, double montant, String motif, Agent agent, LocalDate date) {
+        Paiement paiement = new Paiement(type, montant, motif, agent);
+        paiement.setDate(date);
+        //the monthly indemnity is granted by the grid itself
+        paiement.setConditionValidee(true);
+        return paiement;
+    }
+
+    //about the same number of agents per range; the last range is open-ended so agents created
+    //before a resume are still paid
+    private List<PayrollPartition> split(List<Agent> agents) {
+        List<PayrollPartition> ranges = new ArrayList<>();
+        int count = Math.max(1, Math.min(partitions, agents.size()));
+        int from = 0;
+        for (int i = 0; i < count; i++) {
+            int to = i == count - 1
+                    ? Integer.MAX_VALUE
+                    : agents.get((int) ((long) agents.size() * (i + 1) / count)).getIdAgent();
+            ranges.add(new PayrollPartition(i, from, to));
+            from = to;
+        }
+        return ranges;
+    }
+}
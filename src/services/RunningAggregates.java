@@ -0,0 +1,333 @@
+package src.services;
+
+import src.dao.interfaces.IAgent;
+import src.dao.interfaces.IDepartement;
+import src.dao.interfaces.IPaiement;
+import src.models.AggregateDimension;
+import src.models.Agent;
+import src.models.Departement;
+import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
+import src.models.TypePaiement;
+import src.services.interfaces.IDataChangeListener;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+//payment statistics kept up to date from the write events instead of being queried on each call.
+//amounts are accumulated in cents so concurrent additions stay exact
+public class RunningAggregates implements IDataChangeListener {
+    private static final Logger logger = Logger.getLogger(RunningAggregates.class.getName());
+    private static final TypePaiement[] TYPES = TypePaiement.values();
+    private static final int RECOUNT_ATTEMPTS = 3;
+
+    private final IPaiement paiementDAO;
+    private final IAgent agentDAO;
+    private final IDepartement departementDAO;
+    private ScheduledExecutorService reconciler;
+    private volatile State state;
+    //events apply under the read lock and count themselves, a recount is swapped in under the write lock
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final AtomicLong changes = new AtomicLong();
+
+    public RunningAggregates(IPaiement paiementDAO, IAgent agentDAO, IDepartement departementDAO) {
+        this.paiementDAO = paiementDAO;
+        this.agentDAO = agentDAO;
+        this.departementDAO = departementDAO;
+    }
+
+    //periodic full recount, catches writes made outside the application
+    public synchronized void start(long reconcileIntervalMs) {
+        if (reconciler != null) {
+            return;
+        }
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "flowpay-stats-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Statistics reconciliation failed", e);
+            }
+        }, reconcileIntervalMs, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void close() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+            reconciler = null;
+        }
+    }
+
+    //an event applied to the running state while the recount reads the database may or may not be in the
+    //recount, so the recount is only swapped in when no event landed meanwhile. after a few attempts the
+    //running state, which has seen every event, is kept until the next reconciliation
+    public synchronized void reconcile() {
+        for (int attempt = 1; ; attempt++) {
+            long seen = changes.get();
+            State fresh = recount();
+            swapLock.writeLock().lock();
+            try {
+                //with no state at all the recount is better than nothing, once the attempts run out
+                if (changes.get() == seen || (state == null && attempt == RECOUNT_ATTEMPTS)) {
+                    state = fresh;
+                    return;
+                }
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            if (attempt == RECOUNT_ATTEMPTS) {
+                logger.fine("Statistics kept changing during the recount, keeping the running totals");
+                return;
+            }
+        }
+    }
+
+    private State recount() {
+        State fresh = new State();
+        fresh.globalCents.add(toCents(paiementDAO.summarize(new PaiementCriteria()).getTotal()));
+        for (PaiementAggregate aggregate : paiementDAO.aggregate(new PaiementCriteria(), EnumSet.of(AggregateDimension.TYPE))) {
+            fresh.typeCounts[aggregate.getType().ordinal()].add(aggregate.getCount());
+        }
+        for (PaiementAggregate aggregate : paiementDAO.aggregate(new PaiementCriteria(), EnumSet.of(AggregateDimension.AGENT))) {
+            fresh.agentCents.computeIfAbsent(aggregate.getAgentId(), id -> new LongAdder()).add(toCents(aggregate.getTotal()));
+        }
+        List<Agent> agents = agentDAO.findAll();
+        for (Agent agent : agents) {
+            int departementId = departementIdOf(agent);
+            fresh.departementByAgent.put(agent.getIdAgent(), departementId);
+            LongAdder agentTotal = fresh.agentCents.get(agent.getIdAgent());
+            if (departementId != 0 && agentTotal != null) {
+                fresh.departementCents(departementId).add(agentTotal.sum());
+            }
+        }
+        fresh.agentCount.add(agents.size());
+        fresh.departementCount.add(departementDAO.count());
+        return fresh;
+    }
+
+    public double getGlobalTotal() {
+        return current().globalCents.sum() / 100.0;
+    }
+
+    public Map<TypePaiement, Long> getDistribution() {
+        State current = current();
+        Map<TypePaiement, Long> distribution = new EnumMap<>(TypePaiement.class);
+        for (TypePaiement type : TYPES) {
+            long count = current.typeCounts[type.ordinal()].sum();
+            if (count > 0) {
+                distribution.put(type, count);
+            }
+        }
+        return distribution;
+    }
+
+    public double getDepartementTotal(int departementId) {
+        LongAdder total = current().departementCents.get(departementId);
+        return total == null ? 0.0 : total.sum() / 100.0;
+    }
+
+    //agents with at least one payment
+    public Map<Integer, Double> getAgentTotals() {
+        Map<Integer, Double> totals = new HashMap<>();
+        current().agentCents.forEach((agentId, total) -> {
+            long cents = total.sum();
+            if (cents > 0) {
+                totals.put(agentId, cents / 100.0);
+            }
+        });
+        return totals;
+    }
+
+    //kept up to date by the events; deleting or lowering the highest payment drops it and it is reloaded here
+    public Optional<Paiement> getHighestPayment(int agentId) {
+        State current = current();
+        Optional<Paiement> cached = current.highestByAgent.get(agentId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = changes.get();
+        Optional<Paiement> highest = paiementDAO.findHighestByAgentId(agentId);
+        //a payment written during the lookup may beat what was read, it is then not cached
+        if (changes.get() == seen) {
+            current.highestByAgent.putIfAbsent(agentId, highest);
+        }
+        return highest;
+    }
+
+    public long getAgentCount() {
+        return current().agentCount.sum();
+    }
+
+    public long getDepartementCount() {
+        return current().departementCount.sum();
+    }
+
+    @Override
+    public void onPaiementCreated(Paiement paiement) {
+        record(current -> {
+            apply(current, paiement.getAgentId(), paiement.getType(), toCents(paiement.getMontant()), 1);
+            current.highestByAgent.computeIfPresent(paiement.getAgentId(),
+                    (id, highest) -> highest.isEmpty() || ranksAbove(paiement, highest.get()) ? Optional.of(paiement) : highest);
+        });
+    }
+
+    @Override
+    public void onPaiementUpdated(Paiement before, Paiement after) {
+        record(current -> {
+            apply(current, before.getAgentId(), before.getType(), -toCents(before.getMontant()), -1);
+            apply(current, after.getAgentId(), after.getType(), toCents(after.getMontant()), 1);
+            current.highestByAgent.computeIfPresent(after.getAgentId(), (id, highest) -> {
+                if (highest.isPresent() && highest.get().getIdPaiement() == after.getIdPaiement()) {
+                    //the highest payment went down: another one may be above it now, reload on next read
+                    return after.getMontant() >= before.getMontant() ? Optional.of(after) : null;
+                }
+                return highest.isEmpty() || ranksAbove(after, highest.get()) ? Optional.of(after) : highest;
+            });
+        });
+    }
+
+    @Override
+    public void onPaiementDeleted(Paiement paiement) {
+        record(current -> {
+            apply(current, paiement.getAgentId(), paiement.getType(), -toCents(paiement.getMontant()), -1);
+            current.highestByAgent.computeIfPresent(paiement.getAgentId(),
+                    (id, highest) -> highest.isPresent() && highest.get().getIdPaiement() == paiement.getIdPaiement() ? null : highest);
+        });
+    }
+
+    @Override
+    public void onAgentCreated(Agent agent) {
+        record(current -> {
+            current.agentCount.increment();
+            current.departementByAgent.put(agent.getIdAgent(), departementIdOf(agent));
+        });
+    }
+
+    @Override
+    public void onAgentMoved(int agentId, int fromDepartementId, int toDepartementId) {
+        record(current -> {
+            current.departementByAgent.put(agentId, toDepartementId);
+            LongAdder agentTotal = current.agentCents.get(agentId);
+            long cents = agentTotal == null ? 0 : agentTotal.sum();
+            if (fromDepartementId != 0) {
+                current.departementCents(fromDepartementId).add(-cents);
+            }
+            if (toDepartementId != 0) {
+                current.departementCents(toDepartementId).add(cents);
+            }
+        });
+    }
+
+    @Override
+    public void onAgentDeleted(Agent agent) {
+        //the cascade removed payments we only know in aggregate, recount everything on next read
+        record(current -> state = null);
+    }
+
+    @Override
+    public void onDepartementCreated(Departement departement) {
+        record(current -> current.departementCount.increment());
+    }
+
+    @Override
+    public void onDepartementDeleted(Departement departement) {
+        record(current -> {
+            current.departementCount.decrement();
+            current.departementCents.remove(departement.getIdDepartement());
+        });
+    }
+
+    //before the first read there is no state to keep up to date, the recount will read the change.
+    //the change is counted either way, so that a recount running meanwhile is not swapped in
+    private void record(Consumer<State> change) {
+        swapLock.readLock().lock();
+        try {
+            State current = state;
+            if (current != null) {
+                change.accept(current);
+            }
+            changes.incrementAndGet();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private State current() {
+        State current = state;
+        if (current == null) {
+            synchronized (this) {
+                if (state == null) {
+                    reconcile();
+                }
+                current = state;
+            }
+        }
+        return current;
+    }
+
+    private void apply(State current, int agentId, TypePaiement type, long cents, int count) {
+        current.globalCents.add(cents);
+        current.typeCounts[type.ordinal()].add(count);
+        current.agentCents.computeIfAbsent(agentId, id -> new LongAdder()).add(cents);
+        Integer departementId = current.departementByAgent.get(agentId);
+        if (departementId != null && departementId != 0) {
+            current.departementCents(departementId).add(cents);
+        }
+    }
+
+    //the order of findHighestByAgentId: larger amount first, then lower id
+    private static boolean ranksAbove(Paiement paiement, Paiement other) {
+        return paiement.getMontant() > other.getMontant()
+                || (paiement.getMontant() == other.getMontant() && paiement.getIdPaiement() < other.getIdPaiement());
+    }
+
+    private static int departementIdOf(Agent agent) {
+        return agent.getDepartement() != null ? agent.getDepartement().getIdDepartement() : 0;
+    }
+
+    private static long toCents(double montant) {
+        return Math.round(montant * 100);
+    }
+
+    private static final class State {
+        private final LongAdder globalCents = new LongAdder();
+        private final LongAdder[] typeCounts = new LongAdder[TYPES.length];
+        private final ConcurrentHashMap<Integer, LongAdder> agentCents = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Integer, LongAdder> departementCents = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Integer, Integer> departementByAgent = new ConcurrentHashMap<>();
+        //loaded on first read per agent, Optional.empty() for an agent without payments
+        private final ConcurrentHashMap<Integer, Optional<Paiement>> highestByAgent = new ConcurrentHashMap<>();
+        private final LongAdder agentCount = new LongAdder();
+        private final LongAdder departementCount = new LongAdder();
+
+        private State() {
+            for (int i = 0; i < typeCounts.length; i++) {
+                typeCounts[i] = new LongAdder();
+            }
+        }
+
+        private LongAdder departementCents(int departementId) {
+            return departementCents.computeIfAbsent(departementId, id -> new LongAdder());
+        }
+    }
+}
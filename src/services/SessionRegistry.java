@@ -0,0 +1,212 @@
+package src.services;
+
+import src.models.Agent;
+import src.models.Session;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+//open sessions by opaque token. a lookup is one map read plus a timestamp write, expiry (idle and absolute)
+//is checked on every lookup, and a hashed timer wheel swept in the background drops sessions nobody comes back for.
+//touching a session does not move it in the wheel: when its slot comes up the sweeper either expires it or
+//re-files it under its new deadline
+public class SessionRegistry {
+    private static final Logger logger = Logger.getLogger(SessionRegistry.class.getName());
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final long idleTimeoutMs;
+    private final long absoluteTimeoutMs;
+    private final int maxPerAgent;
+    private final long tickMs;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Deque<Session>> sessionsByAgent = new ConcurrentHashMap<>();
+    private final List<Queue<Session>> wheel;
+    //last tick swept, slots up to it are done
+    private volatile long currentTick;
+    private ScheduledExecutorService sweeper;
+
+    //maxPerAgent 0 means unlimited; the oldest session of an agent is closed when a new one exceeds the limit
+    public SessionRegistry(long idleTimeoutMs, long absoluteTimeoutMs, int maxPerAgent, long tickMs, int wheelSlots) {
+        if (idleTimeoutMs <= 0 || absoluteTimeoutMs <= 0 || tickMs <= 0 || wheelSlots <= 0 || maxPerAgent < 0) {
+            throw new IllegalArgumentException("session timeouts, tick and wheel size must be positive");
+        }
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.absoluteTimeoutMs = absoluteTimeoutMs;
+        this.maxPerAgent = maxPerAgent;
+        this.tickMs = tickMs;
+        this.wheel = new ArrayList<>(wheelSlots);
+        for (int i = 0; i < wheelSlots; i++) {
+            wheel.add(new ConcurrentLinkedQueue<>());
+        }
+        this.currentTick = System.currentTimeMillis() / tickMs;
+    }
+
+    public Session create(Agent agent) {
+        return create(agent, false);
+    }
+
+    //pinned sessions are exempt from expiry and from the per-agent limit, they end when removed
+    public Session create(Agent agent, boolean pinned) {
+        Session session = new Session(newToken(), agent, System.currentTimeMillis(), pinned);
+        sessions.put(session.getToken(), session);
+        Deque<Session> own = sessionsByAgent.computeIfAbsent(agent.getIdAgent(), id -> new ConcurrentLinkedDeque<>());
+        own.addLast(session);
+        if (maxPerAgent > 0) {
+            //countUnpinned walks the deque, which only ever holds the agent's few sessions
+            while (countUnpinned(own) > maxPerAgent) {
+                Session oldest = own.stream().filter(candidate -> !candidate.isPinned()).findFirst().orElse(null);
+                if (oldest == null || !own.remove(oldest)) {
+                    break;
+                }
+                sessions.remove(oldest.getToken(), oldest);
+            }
+        }
+        if (!pinned) {
+            schedule(session);
+        }
+        return session;
+    }
+
+    public Optional<Session> find(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        if (deadlineOf(session) <= now) {
+            remove(session);
+            return Optional.empty();
+        }
+        session.touch(now);
+        return Optional.of(session);
+    }
+
+    public boolean remove(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        return session != null && remove(session);
+    }
+
+    public int removeAgent(int agentId) {
+        Deque<Session> own = sessionsByAgent.remove(agentId);
+        if (own == null) {
+            return 0;
+        }
+        int removed = 0;
+        for (Session session : own) {
+            if (sessions.remove(session.getToken(), session)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public synchronized void start() {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "flowpay-session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Session sweep failed", e);
+            }
+        }, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    //visits the slots of every tick elapsed since the last sweep, each slot at most once per call; returns the sessions expired
+    int sweep() {
+        long now = System.currentTimeMillis();
+        long nowTick = now / tickMs;
+        int expired = 0;
+        long firstTick = Math.max(currentTick + 1, nowTick - wheel.size() + 1);
+        for (long tick = firstTick; tick <= nowTick; tick++) {
+            Queue<Session> slot = wheel.get((int) (tick % wheel.size()));
+            //drained first: sessions re-filed into this same slot wait for its next turn
+            List<Session> due = new ArrayList<>();
+            for (Session session = slot.poll(); session != null; session = slot.poll()) {
+                due.add(session);
+            }
+            currentTick = tick;
+            for (Session session : due) {
+                if (sessions.get(session.getToken()) != session) {
+                    continue;
+                }
+                if (deadlineOf(session) <= now) {
+                    if (remove(session)) {
+                        expired++;
+                    }
+                } else {
+                    schedule(session);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+        return expired;
+    }
+
+    private boolean remove(Session session) {
+        if (!sessions.remove(session.getToken(), session)) {
+            return false;
+        }
+        Deque<Session> own = sessionsByAgent.get(session.getAgent().getIdAgent());
+        if (own != null) {
+            own.remove(session);
+        }
+        return true;
+    }
+
+    //filed under the tick of its deadline, at the earliest the next one to be swept
+    private void schedule(Session session) {
+        long tick = Math.max(deadlineOf(session) / tickMs, currentTick + 1);
+        wheel.get((int) (tick % wheel.size())).add(session);
+    }
+
+    private static long countUnpinned(Deque<Session> own) {
+        return own.stream().filter(session -> !session.isPinned()).count();
+    }
+
+    private long deadlineOf(Session session) {
+        if (session.isPinned()) {
+            return Long.MAX_VALUE;
+        }
+        return Math.min(session.getLastAccessMs() + idleTimeoutMs, session.getCreatedAtMs() + absoluteTimeoutMs);
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
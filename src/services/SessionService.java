@@ -2,30 +2,59 @@ package src.services;
 
 import src.models.Agent;
 import src.models.Session;
+import src.services.interfaces.IDataChangeListener;
 import src.services.interfaces.ISessionService;
 
 import java.util.Optional;
 
-public class SessionService implements ISessionService {
-    private Session currentSession;
+//sessions live in the shared registry; the console, which has a single user, keeps the token of its own pinned one here
+public class SessionService implements ISessionService, IDataChangeListener {
+    private final SessionRegistry registry;
+    private volatile String currentToken;
+
+    public SessionService(SessionRegistry registry) {
+        this.registry = registry;
+    }
 
     public void startSession(Agent agent) {
-        currentSession = new Session(agent);
+        String previous = currentToken;
+        //the console keeps its session until logout, as it always did: no idle or absolute expiry
+        currentToken = registry.create(agent, true).getToken();
+        registry.remove(previous);
     }
 
     public void endSession() {
-        currentSession = null;
+        String token = currentToken;
+        currentToken = null;
+        registry.remove(token);
     }
 
     public boolean isAuthenticated() {
-        return currentSession != null;
+        return getCurrentSession().isPresent();
     }
 
     public Optional<Session> getCurrentSession() {
-        return Optional.ofNullable(currentSession);
+        return registry.find(currentToken);
     }
 
     public Optional<Agent> getCurrentAgent() {
         return getCurrentSession().map(Session::getAgent);
     }
+
+    public Session createSession(Agent agent) {
+        return registry.create(agent);
+    }
+
+    public Optional<Session> findSession(String token) {
+        return registry.find(token);
+    }
+
+    public void endSession(String token) {
+        registry.remove(token);
+    }
+
+    @Override
+    public void onAgentDeleted(Agent agent) {
+        registry.removeAgent(agent.getIdAgent());
+    }
 }
@@ -1,137 +1,130 @@
 package src.services;
 
-import src.dao.AgentDAO;
-import src.dao.DepartementDAO;
-import src.dao.PaiementDAO;
+import src.dao.interfaces.IAgent;
+import src.dao.interfaces.IDepartement;
+import src.dao.interfaces.IPaiement;
 import src.exceptions.AgentNotFoundException;
 import src.exceptions.DepartementNotFoundException;
-import src.models.Agent;
+import src.models.AggregateDimension;
+import src.models.AgentTotal;
 import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
 import src.models.TypePaiement;
-import src.services.interfaces.IStatisticsService;
 
-import java.time.LocalDate;
-import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-public class StatisticsService implements IStatisticsService {
-    private final PaiementDAO paiementDAO;
-    private final AgentDAO agentDAO;
-    private final DepartementDAO departementDAO;
+public class StatisticsService extends BaseStatisticsService {
+    //optional, when set the all-time totals and counts are answered from memory
+    private final RunningAggregates runningAggregates;
+    //optional, when set the scans over raw payments (unusual payment detection) run chunked in parallel;
+    //the aggregates keep reading the monthly summary
+    private final ParallelPaiementScanner parallelScanner;
 
-    public StatisticsService(PaiementDAO paiementDAO, AgentDAO agentDAO, DepartementDAO departementDAO) {
-        this.paiementDAO = paiementDAO;
-        this.agentDAO = agentDAO;
-        this.departementDAO = departementDAO;
+    public StatisticsService(IPaiement paiementDAO, IAgent agentDAO, IDepartement departementDAO,
+                             RunningAggregates runningAggregates, ParallelPaiementScanner parallelScanner,
+                             PaymentAnomalyDetector anomalyDetector, PaymentSketches paymentSketches,
+                             PaymentCube paymentCube) {
+        super(paiementDAO, agentDAO, departementDAO, anomalyDetector, paymentSketches, paymentCube);
+        this.runningAggregates = runningAggregates;
+        this.parallelScanner = parallelScanner;
     }
 
     public double getAnnualTotalForAgent(int agentId, int year) throws AgentNotFoundException {
         ensureAgentExists(agentId);
-        return paiementDAO.findByAgentId(agentId)
-                .stream()
-                .filter(p -> p.getDate() != null && p.getDate().getYear() == year)
-                .mapToDouble(Paiement::getMontant)
-                .sum();
+        return paiementDAO.summarize(new PaiementCriteria().agent(agentId).year(year)).getTotal();
     }
 
     public long countPaymentsByType(int agentId, TypePaiement type) throws AgentNotFoundException {
         ensureAgentExists(agentId);
-        return paiementDAO.findByAgentId(agentId)
-                .stream()
-                .filter(p -> p.getType() == type)
-                .count();
+        return paiementDAO.summarize(new PaiementCriteria().agent(agentId).type(type)).getCount();
     }
 
     public Optional<Paiement> getHighestPaymentForAgent(int agentId) throws AgentNotFoundException {
         ensureAgentExists(agentId);
-        return paiementDAO.findByAgentId(agentId)
-                .stream()
-                .max(Comparator.comparingDouble(Paiement::getMontant));
+        if (runningAggregates != null) {
+            return runningAggregates.getHighestPayment(agentId);
+        }
+        return paiementDAO.findHighestByAgentId(agentId);
     }
 
     public double getDepartmentTotal(int departementId) throws DepartementNotFoundException {
         ensureDepartementExists(departementId);
-        return agentDAO.findByDepartementId(departementId)
-                .stream()
-                .flatMap(agent -> paiementDAO.findByAgentId(agent.getIdAgent()).stream())
-                .mapToDouble(Paiement::getMontant)
-                .sum();
+        if (runningAggregates != null) {
+            return runningAggregates.getDepartementTotal(departementId);
+        }
+        return paiementDAO.summarize(new PaiementCriteria().departement(departementId)).getTotal();
     }
 
     public double getDepartmentAverageSalary(int departementId) throws DepartementNotFoundException {
         ensureDepartementExists(departementId);
-        List<Double> salaries = agentDAO.findByDepartementId(departementId)
-                .stream()
-                .flatMap(agent -> paiementDAO.findByAgentId(agent.getIdAgent()).stream())
-                .filter(p -> p.getType() == TypePaiement.SALAIRE)
-                .map(Paiement::getMontant)
-                .toList();
-
-        if (salaries.isEmpty()) {
-            return 0.0;
-        }
-        return salaries.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-    }
-
-    public List<Agent> rankAgentsByTotalPayments() {
-        return agentDAO.findAll()
-                .stream()
-                .sorted((a1, a2) -> Double.compare(totalPayments(a2.getIdAgent()), totalPayments(a1.getIdAgent())))
-                .toList();
+        return paiementDAO.summarize(new PaiementCriteria().departement(departementId).type(TypePaiement.SALAIRE))
+                .getAverage();
     }
 
     public Map<TypePaiement, Long> getPaymentDistribution() {
-        return paiementDAO.findAll()
-                .stream()
-                .collect(Collectors.groupingBy(Paiement::getType, Collectors.counting()));
+        if (runningAggregates != null) {
+            return runningAggregates.getDistribution();
+        }
+        Map<TypePaiement, Long> distribution = new EnumMap<>(TypePaiement.class);
+        for (PaiementAggregate aggregate : paiementDAO.aggregate(new PaiementCriteria(), EnumSet.of(AggregateDimension.TYPE))) {
+            distribution.put(aggregate.getType(), aggregate.getCount());
+        }
+        return distribution;
     }
 
     public double getGlobalPaymentsTotal() {
-        return paiementDAO.findAll()
-                .stream()
-                .mapToDouble(Paiement::getMontant)
-                .sum();
+        if (runningAggregates != null) {
+            return runningAggregates.getGlobalTotal();
+        }
+        return paiementDAO.summarize(new PaiementCriteria()).getTotal();
     }
 
     public long getTotalAgents() {
-        return agentDAO.findAll().size();
+        if (runningAggregates != null) {
+            return runningAggregates.getAgentCount();
+        }
+        return agentDAO.count();
     }
 
     public long getTotalDepartements() {
-        return departementDAO.findAll().size();
+        if (runningAggregates != null) {
+            return runningAggregates.getDepartementCount();
+        }
+        return departementDAO.count();
     }
 
     public Optional<Paiement> detectUnusualPayment(double threshold) {
-        return paiementDAO.findAll()
-                .stream()
-                .filter(p -> p.getMontant() > threshold)
-                .findFirst();
-    }
-
-    public List<Paiement> getPaymentsBetween(LocalDate start, LocalDate end) {
-        return paiementDAO.findByDateRange(start, end);
-    }
-
-    private void ensureAgentExists(int agentId) throws AgentNotFoundException {
-        if (agentDAO.findById(agentId).isEmpty()) {
-            throw new AgentNotFoundException("Agent introuvable (id=" + agentId + ")");
+        if (parallelScanner != null) {
+            return parallelScanner.findFirst(p -> p.getMontant() > threshold);
+        }
+        try (Stream<Paiement> paiements = paiementDAO.streamAll()) {
+            return paiements.filter(p -> p.getMontant() > threshold).findFirst();
         }
     }
 
-    private void ensureDepartementExists(int departementId) throws DepartementNotFoundException {
-        if (departementDAO.findById(departementId).isEmpty()) {
-            throw new DepartementNotFoundException("Département introuvable (id=" + departementId + ")");
+    @Override
+    public int rebuildMonthlySummary() {
+        int cells = super.rebuildMonthlySummary();
+        if (runningAggregates != null) {
+            runningAggregates.reconcile();
         }
+        return cells;
     }
 
-    private double totalPayments(int agentId) {
-        return paiementDAO.findByAgentId(agentId)
-                .stream()
-                .mapToDouble(Paiement::getMontant)
-                .sum();
+    //the in-memory totals go through a bounded heap, the database sorts and pages its own aggregate
+    @Override
+    protected List<AgentTotal> rankAgents(int offset, int limit) {
+        if (runningAggregates != null) {
+            List<AgentTotal> ranking = AgentRanking.rank(runningAggregates.getAgentTotals(),
+                    (int) Math.min((long) offset + limit, Integer.MAX_VALUE), agentDAO);
+            return ranking.subList(Math.min(offset, ranking.size()), ranking.size());
+        }
+        return AgentRanking.resolve(paiementDAO.rankAgentsByTotal(offset, limit), agentDAO);
     }
-    
 }
@@ -22,6 +22,8 @@ public interface IAgentService {
 
     List<Agent> getAllAgents();
 
+    List<Agent> getAgentsPage(int afterId, int limit);
+
     List<Agent> getAgentsByDepartment(int departementId) throws DepartementNotFoundException;
 
     List<Agent> getAgentsByType(TypeAgent typeAgent);
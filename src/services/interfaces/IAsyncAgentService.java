@@ -0,0 +1,39 @@
+package src.services.interfaces;
+
+import src.models.Agent;
+import src.models.Departement;
+import src.models.Paiement;
+import src.models.TypeAgent;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+//IAgentService calls run on the AsyncExecutor; a checked exception such as AgentNotFoundException
+//fails the returned future instead of being thrown
+public interface IAsyncAgentService {
+    CompletableFuture<Agent> createAgent(String nom, String prenom, String email, String motDePasse,
+                                         TypeAgent typeAgent, Integer departementId);
+
+    CompletableFuture<Agent> updateAgent(int agentId, String nom, String prenom, String email,
+                                         String motDePasse, TypeAgent typeAgent, Integer departementId);
+
+    CompletableFuture<Void> deleteAgent(int agentId);
+
+    CompletableFuture<Agent> getAgentById(int agentId);
+
+    CompletableFuture<List<Agent>> getAllAgents();
+
+    CompletableFuture<List<Agent>> getAgentsPage(int afterId, int limit);
+
+    CompletableFuture<List<Agent>> getAgentsByDepartment(int departementId);
+
+    CompletableFuture<List<Agent>> getAgentsByType(TypeAgent typeAgent);
+
+    CompletableFuture<Departement> assignResponsable(int departementId, int agentId);
+
+    CompletableFuture<List<Paiement>> getPaymentsForAgent(int agentId);
+
+    CompletableFuture<Double> calculateTotalPayments(int agentId);
+
+    CompletableFuture<Boolean> testDatabaseConnection();
+}
@@ -0,0 +1,42 @@
+package src.services.interfaces;
+
+import src.models.Paiement;
+import src.models.TypePaiement;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+//payment operations off the caller's thread, each write still commits in its own transaction
+public interface IAsyncPaiementService {
+    CompletableFuture<Paiement> createPaiement(int agentId, TypePaiement type, double montant, String motif,
+                                               boolean conditionValidee, LocalDate date);
+
+    CompletableFuture<List<Paiement>> createPaiements(List<Paiement> paiements);
+
+    CompletableFuture<Paiement> updatePaiement(int paiementId, TypePaiement type, double montant,
+                                               String motif, boolean conditionValidee, LocalDate date);
+
+    CompletableFuture<Void> deletePaiement(int paiementId);
+
+    CompletableFuture<Paiement> getPaiementById(int paiementId);
+
+    CompletableFuture<List<Paiement>> getAllPaiements();
+
+    CompletableFuture<List<Paiement>> getPaiementsByAgent(int agentId);
+
+    CompletableFuture<List<Paiement>> getPaiementsByType(TypePaiement type);
+
+    CompletableFuture<List<Paiement>> getPaiementsByDateRange(LocalDate start, LocalDate end);
+
+    CompletableFuture<List<Paiement>> getPaiementsPage(int afterId, int limit);
+
+    CompletableFuture<List<Paiement>> getPaiementsPageByType(TypePaiement type, int afterId, int limit);
+
+    CompletableFuture<List<Paiement>> getPaiementsPageByDateRange(LocalDate start, LocalDate end, int afterId,
+                                                                  int limit);
+
+    CompletableFuture<Double> calculateTotalByAgent(int agentId);
+
+    CompletableFuture<Double> calculateAverageByAgent(int agentId);
+}
@@ -0,0 +1,62 @@
+package src.services.interfaces;
+
+import src.models.Agent;
+import src.models.AgentTotal;
+import src.models.AggregateDimension;
+import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
+import src.models.PaymentAnomaly;
+import src.models.TypePaiement;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+//independent statistics can be started together and joined, the overview counters for example
+public interface IAsyncStatisticsService {
+    CompletableFuture<Double> getAnnualTotalForAgent(int agentId, int year);
+
+    CompletableFuture<Long> countPaymentsByType(int agentId, TypePaiement type);
+
+    CompletableFuture<Optional<Paiement>> getHighestPaymentForAgent(int agentId);
+
+    CompletableFuture<Double> getDepartmentTotal(int departementId);
+
+    CompletableFuture<Double> getDepartmentAverageSalary(int departementId);
+
+    CompletableFuture<Double> getDepartmentMedianSalary(int departementId);
+
+    CompletableFuture<Double> getPaymentPercentile(PaiementCriteria criteria, double percentile);
+
+    CompletableFuture<Long> countDistinctPaidAgents(PaiementCriteria criteria);
+
+    CompletableFuture<List<PaiementAggregate>> pivot(PaiementCriteria criteria, Set<AggregateDimension> groupBy);
+
+    CompletableFuture<List<Agent>> rankAgentsByTotalPayments();
+
+    CompletableFuture<List<AgentTotal>> topAgentsByTotalPayments(int k);
+
+    CompletableFuture<List<AgentTotal>> rankAgentsByTotalPayments(int page, int size);
+
+    CompletableFuture<Map<TypePaiement, Long>> getPaymentDistribution();
+
+    CompletableFuture<Double> getGlobalPaymentsTotal();
+
+    CompletableFuture<Long> getTotalAgents();
+
+    CompletableFuture<Long> getTotalDepartements();
+
+    CompletableFuture<Optional<Paiement>> detectUnusualPayment(double threshold);
+
+    CompletableFuture<List<PaymentAnomaly>> detectAnomalies(double sigmas);
+
+    CompletableFuture<List<PaymentAnomaly>> getRecentAnomalies();
+
+    CompletableFuture<List<Paiement>> getPaymentsBetween(LocalDate start, LocalDate end);
+
+    CompletableFuture<Integer> rebuildMonthlySummary();
+}
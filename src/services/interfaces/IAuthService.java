@@ -2,6 +2,7 @@ package src.services.interfaces;
 
 import src.exceptions.AuthenticationException;
 import src.models.Agent;
+import src.models.Session;
 
 import java.util.Optional;
 
@@ -9,6 +10,14 @@ public interface IAuthService {
     
     Agent login(String email, String password) throws AuthenticationException;
     
+    Agent authenticate(String email, String password, String source) throws AuthenticationException;
+    
+    Session openSession(String email, String password, String source) throws AuthenticationException;
+    
+    Agent authenticateToken(String token) throws AuthenticationException;
+    
+    void closeSession(String token);
+    
     void logout();
     
     boolean isAuthenticated();
@@ -0,0 +1,53 @@
+package src.services.interfaces;
+
+import src.models.Agent;
+import src.models.Departement;
+import src.models.Paiement;
+
+import java.util.List;
+
+//notified by the services after each successful write, implement only the events you need.
+//the objects passed in are shared with the caller and must not be modified
+public interface IDataChangeListener {
+    default void onPaiementCreated(Paiement paiement) {
+    }
+
+    default void onPaiementsCreated(List<Paiement> paiements) {
+        paiements.forEach(this::onPaiementCreated);
+    }
+
+    default void onPaiementUpdated(Paiement before, Paiement after) {
+    }
+
+    default void onPaiementDeleted(Paiement paiement) {
+    }
+
+    default void onAgentCreated(Agent agent) {
+    }
+
+    //any other change to the agent row (name, email, type...)
+    default void onAgentUpdated(Agent agent) {
+    }
+
+    //departement ids are 0 when the agent had / has no departement
+    default void onAgentMoved(int agentId, int fromDepartementId, int toDepartementId) {
+    }
+
+    //several agents moved by one set-based update
+    default void onAgentsMoved(List<Integer> agentIds, int fromDepartementId, int toDepartementId) {
+        agentIds.forEach(agentId -> onAgentMoved(agentId, fromDepartementId, toDepartementId));
+    }
+
+    //the agent's payments are deleted with it (ON DELETE CASCADE)
+    default void onAgentDeleted(Agent agent) {
+    }
+
+    default void onDepartementCreated(Departement departement) {
+    }
+
+    default void onDepartementUpdated(Departement departement) {
+    }
+
+    default void onDepartementDeleted(Departement departement) {
+    }
+}
@@ -6,6 +6,7 @@ import src.models.Agent;
 import src.models.Departement;
 import src.models.Paiement;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface IDepartmentService {
@@ -17,6 +18,12 @@ public interface IDepartmentService {
     
     void deleteDepartement(int departementId) throws DepartementNotFoundException;
     
+    void deleteDepartement(int departementId, int reassignToDepartementId) throws DepartementNotFoundException;
+    
+    int reassignAgents(int fromDepartementId, int toDepartementId) throws DepartementNotFoundException;
+    
+    int unassignAgents(int departementId) throws DepartementNotFoundException;
+    
     Departement getDepartementById(int departementId) throws DepartementNotFoundException;
     
     List<Departement> getAllDepartements();
@@ -29,6 +36,9 @@ public interface IDepartmentService {
     void addAgentToDepartement(int departementId, int agentId) 
             throws AgentNotFoundException, DepartementNotFoundException;
     
+    int addAgentsToDepartement(int departementId, Collection<Integer> agentIds) 
+            throws AgentNotFoundException, DepartementNotFoundException;
+    
     void removeAgentFromDepartement(int departementId, int agentId) 
             throws AgentNotFoundException, DepartementNotFoundException;
     
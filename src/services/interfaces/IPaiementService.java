@@ -16,6 +16,9 @@ public interface IPaiementService {
                             boolean conditionValidee, LocalDate date)
             throws AgentNotFoundException, NegativeAmountException, InvalidPaymentConditionException;
 
+    List<Paiement> createPaiements(List<Paiement> paiements)
+            throws AgentNotFoundException, NegativeAmountException, InvalidPaymentConditionException;
+
     Paiement updatePaiement(int paiementId, TypePaiement type, double montant, String motif,
                             boolean conditionValidee, LocalDate date)
             throws PaiementNotFoundException, AgentNotFoundException, NegativeAmountException, InvalidPaymentConditionException;
@@ -32,6 +35,12 @@ public interface IPaiementService {
 
     List<Paiement> getPaiementsByDateRange(LocalDate start, LocalDate end);
 
+    List<Paiement> getPaiementsPage(int afterId, int limit);
+
+    List<Paiement> getPaiementsPageByType(TypePaiement type, int afterId, int limit);
+
+    List<Paiement> getPaiementsPageByDateRange(LocalDate start, LocalDate end, int afterId, int limit);
+
     double calculateTotalByAgent(int agentId) throws AgentNotFoundException;
 
     double calculateAverageByAgent(int agentId) throws AgentNotFoundException;
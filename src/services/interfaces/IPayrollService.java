@@ -0,0 +1,13 @@
+package src.services.interfaces;
+
+import src.models.PayrollRun;
+
+import java.util.List;
+
+public interface IPayrollService {
+
+    //generates the month's payments for every agent, or resumes the month's interrupted run
+    PayrollRun runPayroll(int year, int month);
+
+    List<PayrollRun> getRuns();
+}
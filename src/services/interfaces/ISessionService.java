@@ -16,4 +16,11 @@ public interface ISessionService {
     Optional<Session> getCurrentSession();
     
     Optional<Agent> getCurrentAgent();
+    
+    //token-based sessions, several per agent, for clients other than the console
+    Session createSession(Agent agent);
+    
+    Optional<Session> findSession(String token);
+    
+    void endSession(String token);
 }
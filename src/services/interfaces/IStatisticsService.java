@@ -2,14 +2,20 @@ package src.services.interfaces;
 
 import src.exceptions.AgentNotFoundException;
 import src.exceptions.DepartementNotFoundException;
+import src.models.AggregateDimension;
 import src.models.Agent;
+import src.models.AgentTotal;
 import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
+import src.models.PaymentAnomaly;
 import src.models.TypePaiement;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public interface IStatisticsService {
     //agent stats
@@ -24,8 +30,23 @@ public interface IStatisticsService {
     
     double getDepartmentAverageSalary(int departementId) throws DepartementNotFoundException;
     
+    double getDepartmentMedianSalary(int departementId) throws DepartementNotFoundException;
+    
+    //approximate, from per departement/type/month sketches; percentile in [0, 100], NaN when nothing matches.
+    //criteria may filter on departement, type, year and month but not on agent
+    double getPaymentPercentile(PaiementCriteria criteria, double percentile) throws DepartementNotFoundException;
+    
+    long countDistinctPaidAgents(PaiementCriteria criteria) throws DepartementNotFoundException;
+    
+    //count, total, average and maximum per combination of the grouped dimensions, empty groupBy for one grand total
+    List<PaiementAggregate> pivot(PaiementCriteria criteria, Set<AggregateDimension> groupBy) throws DepartementNotFoundException;
+    
     List<Agent> rankAgentsByTotalPayments();
     
+    List<AgentTotal> topAgentsByTotalPayments(int k);
+    
+    List<AgentTotal> rankAgentsByTotalPayments(int page, int size);
+    
     Map<TypePaiement, Long> getPaymentDistribution();
     
     double getGlobalPaymentsTotal();
@@ -36,5 +57,13 @@ public interface IStatisticsService {
     
     Optional<Paiement> detectUnusualPayment(double threshold);
     
+    //payments at least `sigmas` standard deviations away from their agent/type baseline, most unusual first
+    List<PaymentAnomaly> detectAnomalies(double sigmas);
+    
+    //anomalies flagged on the payments created since the last detectAnomalies scan
+    List<PaymentAnomaly> getRecentAnomalies();
+    
     List<Paiement> getPaymentsBetween(LocalDate start, LocalDate end);
+    
+    int rebuildMonthlySummary();
 }
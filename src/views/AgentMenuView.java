@@ -51,21 +51,18 @@ public class AgentMenuView extends BaseMenuView {
 	}
 
 	private void listAgents() {
-		List<Agent> agents = agentController.listAgents();
-		if (agents.isEmpty()) {
-			logInfo("Aucun agent enregistré.");
-			return;
-		}
 		logSection("--- Agents ---");
-		for (Agent agent : agents) {
-			String dept = agent.getDepartement() != null ? agent.getDepartement().getNom() : "Sans département";
-			logInfo(String.format("[%d] %s %s - %s (%s)",
-					agent.getIdAgent(),
-					agent.getPrenom(),
-					agent.getNom(),
-					dept,
-					agent.getTypeAgent()));
-		}
+		browsePages(agentController::listAgentsPage, Agent::getIdAgent, this::printAgent, "Aucun agent enregistré.");
+	}
+
+	private void printAgent(Agent agent) {
+		String dept = agent.getDepartement() != null ? agent.getDepartement().getNom() : "Sans département";
+		logInfo(String.format("[%d] %s %s - %s (%s)",
+				agent.getIdAgent(),
+				agent.getPrenom(),
+				agent.getNom(),
+				dept,
+				agent.getTypeAgent()));
 	}
 
 	private void createAgent() {
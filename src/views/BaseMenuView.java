@@ -2,7 +2,11 @@ package src.views;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Scanner;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
@@ -13,6 +17,7 @@ public abstract class BaseMenuView {
 
     private static final String ERROR_PREFIX = "Erreur : ";
     private static final String LABEL_WITH_DEFAULT_FORMAT = "%s [%s] : ";
+    protected static final int PAGE_SIZE = 20;
 
     protected final Scanner scanner;
     protected final Logger logger;
@@ -145,6 +150,33 @@ public abstract class BaseMenuView {
         }
     }
 
+    protected <T> void browsePages(BiFunction<Integer, Integer, List<T>> pageLoader,
+                                   ToIntFunction<T> idOf,
+                                   Consumer<T> printer,
+                                   String emptyMessage) {
+        int afterId = 0;
+        boolean firstPage = true;
+        while (true) {
+            List<T> page = pageLoader.apply(afterId, PAGE_SIZE);
+            if (page.isEmpty()) {
+                if (firstPage) {
+                    logInfo(emptyMessage);
+                }
+                return;
+            }
+            page.forEach(printer);
+            if (page.size() < PAGE_SIZE) {
+                return;
+            }
+            firstPage = false;
+            afterId = idOf.applyAsInt(page.get(page.size() - 1));
+            String input = prompt("Entrée pour la page suivante, q pour arrêter : ").trim();
+            if (input.equalsIgnoreCase("q")) {
+                return;
+            }
+        }
+    }
+
     private static void configureLogger(Logger logger) {
         logger.setUseParentHandlers(false);
         if (logger.getHandlers().length == 0) {
@@ -7,6 +7,7 @@ import src.models.Agent;
 import src.models.Departement;
 import src.models.Paiement;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 import java.util.logging.Logger;
@@ -34,6 +35,8 @@ public class DepartementMenuView extends BaseMenuView {
 			logInfo("5. Assigner un responsable");
 			logInfo("6. Lister les agents d'un département");
 			logInfo("7. Voir les paiements d'un département");
+			logInfo("8. Déplacer tous les agents vers un autre département");
+			logInfo("9. Affecter plusieurs agents à un département");
 			logInfo("0. Retour");
 			String choice = prompt("Choix : ");
 
@@ -45,6 +48,8 @@ public class DepartementMenuView extends BaseMenuView {
 				case "5" -> assignResponsable();
 				case "6" -> listAgents();
 				case "7" -> listPayments();
+				case "8" -> reassignAgents();
+				case "9" -> addAgents();
 				case "0" -> running = false;
 				default -> logInfo("Choix invalide");
 			}
@@ -110,9 +115,16 @@ public class DepartementMenuView extends BaseMenuView {
 	private void deleteDepartement() {
 		try {
 			int departementId = promptInt("ID du département à supprimer : ");
-			departementController.deleteDepartement(departementId);
+			String value = prompt("ID du département qui reprend ses agents (laisser vide pour aucun) : ").trim();
+			if (value.isEmpty()) {
+				departementController.deleteDepartement(departementId);
+			} else {
+				departementController.deleteDepartement(departementId, Integer.parseInt(value));
+			}
 			logInfo("Département supprimé.");
-		} catch (DepartementNotFoundException e) {
+		} catch (NumberFormatException e) {
+			logInfo("Valeur invalide.");
+		} catch (IllegalArgumentException | DepartementNotFoundException e) {
 			logError(e.getMessage());
 		}
 	}
@@ -128,6 +140,35 @@ public class DepartementMenuView extends BaseMenuView {
 		}
 	}
 
+	private void reassignAgents() {
+		try {
+			int fromDepartementId = promptInt("ID du département d'origine : ");
+			int toDepartementId = promptInt("ID du département de destination : ");
+			int moved = departementController.reassignAgents(fromDepartementId, toDepartementId);
+			logInfo(moved + " agent(s) déplacé(s).");
+		} catch (DepartementNotFoundException e) {
+			logError(e.getMessage());
+		}
+	}
+
+	private void addAgents() {
+		try {
+			int departementId = promptInt(DEPARTMENT_ID_PROMPT);
+			List<Integer> agentIds = new ArrayList<>();
+			for (String value : prompt("IDs des agents (séparés par des virgules) : ").split(",")) {
+				if (!value.isBlank()) {
+					agentIds.add(Integer.parseInt(value.trim()));
+				}
+			}
+			int moved = departementController.addAgents(departementId, agentIds);
+			logInfo(moved + " agent(s) affecté(s).");
+		} catch (DepartementNotFoundException | AgentNotFoundException e) {
+			logError(e.getMessage());
+		} catch (NumberFormatException e) {
+			logInfo("Valeur invalide.");
+		}
+	}
+
 	private void listAgents() {
 		try {
 			int departementId = promptInt(DEPARTMENT_ID_PROMPT);
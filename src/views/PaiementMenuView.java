@@ -2,12 +2,14 @@ package src.views;
 
 import src.controllers.AgentController;
 import src.controllers.PaiementController;
+import src.controllers.PayrollController;
 import src.exceptions.AgentNotFoundException;
 import src.exceptions.InvalidPaymentConditionException;
 import src.exceptions.NegativeAmountException;
 import src.exceptions.PaiementNotFoundException;
 import src.models.Agent;
 import src.models.Paiement;
+import src.models.PayrollRun;
 import src.models.TypePaiement;
 
 import java.time.LocalDate;
@@ -20,13 +22,16 @@ public class PaiementMenuView extends BaseMenuView {
 
 	private final PaiementController paiementController;
 	private final AgentController agentController;
+	private final PayrollController payrollController;
 
 	public PaiementMenuView(Scanner scanner,
 							PaiementController paiementController,
-							AgentController agentController) {
+							AgentController agentController,
+							PayrollController payrollController) {
 		super(scanner, Logger.getLogger(PaiementMenuView.class.getName()));
 		this.paiementController = paiementController;
 		this.agentController = agentController;
+		this.payrollController = payrollController;
 	}
 
 	public void start() {
@@ -40,6 +45,8 @@ public class PaiementMenuView extends BaseMenuView {
 			logInfo("5. Voir les paiements d'un agent");
 			logInfo("6. Filtrer par type");
 			logInfo("7. Filtrer par période");
+			logInfo("8. Générer la paie d'un mois");
+			logInfo("9. Historique des paies");
 			logInfo("0. Retour");
 			String choice = prompt("Choix : ");
 
@@ -51,6 +58,8 @@ public class PaiementMenuView extends BaseMenuView {
 				case "5" -> listPaiementsByAgent();
 				case "6" -> listPaiementsByType();
 				case "7" -> listPaiementsByPeriod();
+				case "8" -> runPayroll();
+				case "9" -> listPayrollRuns();
 				case "0" -> running = false;
 				default -> logInfo("Choix invalide");
 			}
@@ -58,12 +67,8 @@ public class PaiementMenuView extends BaseMenuView {
 	}
 
 	private void listPaiements() {
-		List<Paiement> paiements = paiementController.listPaiements();
-		if (paiements.isEmpty()) {
-			logInfo("Aucun paiement enregistré.");
-			return;
-		}
-		paiements.forEach(this::printPaiement);
+		browsePages(paiementController::listPaiementsPage, Paiement::getIdPaiement, this::printPaiement,
+				"Aucun paiement enregistré.");
 	}
 
 	private void createPaiement() {
@@ -134,29 +139,44 @@ public class PaiementMenuView extends BaseMenuView {
 
 	private void listPaiementsByType() {
 		TypePaiement type = promptTypePaiement();
-		List<Paiement> paiements = paiementController.listPaiementsByType(type);
-		if (paiements.isEmpty()) {
-			logInfo("Aucun paiement de ce type.");
-			return;
-		}
-		paiements.forEach(this::printPaiement);
+		browsePages((afterId, limit) -> paiementController.listPaiementsPageByType(type, afterId, limit),
+				Paiement::getIdPaiement, this::printPaiement, "Aucun paiement de ce type.");
 	}
 
 	private void listPaiementsByPeriod() {
 		try {
 			LocalDate start = promptDate("Date de début (yyyy-MM-dd) : ");
 			LocalDate end = promptDate("Date de fin (yyyy-MM-dd) : ");
-			List<Paiement> paiements = paiementController.listPaiementsByDateRange(start, end);
-			if (paiements.isEmpty()) {
-				logInfo("Aucun paiement sur cette période.");
-				return;
-			}
-			paiements.forEach(this::printPaiement);
+			browsePages((afterId, limit) -> paiementController.listPaiementsPageByDateRange(start, end, afterId, limit),
+					Paiement::getIdPaiement, this::printPaiement, "Aucun paiement sur cette période.");
 		} catch (IllegalArgumentException e) {
 			logError(e.getMessage());
 		}
 	}
 
+	private void runPayroll() {
+		int year = promptInt("Année : ");
+		int month = promptInt("Mois (1-12) : ");
+		try {
+			PayrollRun run = payrollController.runPayroll(year, month);
+			logInfo(String.format("Paie %02d/%d terminée : %d paiement(s), total %.2f",
+					run.getMonth(), run.getYear(), run.getPaymentCount(), run.getTotal()));
+		} catch (IllegalArgumentException | IllegalStateException e) {
+			logError(e.getMessage());
+		}
+	}
+
+	private void listPayrollRuns() {
+		List<PayrollRun> runs = payrollController.listRuns();
+		if (runs.isEmpty()) {
+			logInfo("Aucune paie générée.");
+			return;
+		}
+		logSection("Historique des paies");
+		runs.forEach(run -> logInfo(String.format("%02d/%d - %s - %d paiement(s) - %.2f",
+				run.getMonth(), run.getYear(), run.getStatus(), run.getPaymentCount(), run.getTotal())));
+	}
+
 	private void printPaiement(Paiement paiement) {
 		logInfo(String.format("[%d] Agent %d - %s - %.2f - %s (%s)",
 				paiement.getIdPaiement(),
@@ -3,15 +3,23 @@ package src.views;
 import src.controllers.StatisticsController;
 import src.exceptions.AgentNotFoundException;
 import src.exceptions.DepartementNotFoundException;
+import src.models.AggregateDimension;
 import src.models.Agent;
+import src.models.AgentTotal;
 import src.models.Paiement;
+import src.models.PaiementAggregate;
+import src.models.PaiementCriteria;
+import src.models.PaymentAnomaly;
 import src.models.TypePaiement;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 public class StatisticsMenuView extends BaseMenuView {
@@ -40,7 +48,11 @@ public class StatisticsMenuView extends BaseMenuView {
             logInfo("6. Classement des agents");
             logInfo("7. Distribution des paiements par type");
             logInfo("8. Paiements entre deux dates");
-            logInfo("9. Détection paiement inhabituel");
+            logInfo("9. Détection d'anomalies (par agent et type)");
+            logInfo("10. Reconstruire le résumé mensuel");
+            logInfo("11. Anomalies récentes");
+            logInfo("12. Agents distincts payés sur un mois");
+            logInfo("13. Tableau croisé des paiements");
             logInfo("0. Retour");
             String choice = prompt("Choix : ");
 
@@ -53,7 +65,11 @@ public class StatisticsMenuView extends BaseMenuView {
                 case "6" -> listAgentRanking();
                 case "7" -> showPaymentDistribution();
                 case "8" -> listPaymentsBetween();
-                case "9" -> detectUnusualPayment();
+                case "9" -> detectAnomalies();
+                case "10" -> rebuildMonthlySummary();
+                case "11" -> listAnomalies(statisticsController.recentAnomalies());
+                case "12" -> showDistinctPaidAgents();
+                case "13" -> showPivot();
                 case "0" -> running = false;
                 default -> logInfo("Choix invalide");
             }
@@ -61,14 +77,15 @@ public class StatisticsMenuView extends BaseMenuView {
     }
 
     private void showOverview() {
-        double total = statisticsController.globalPaymentsTotal();
-        long agents = statisticsController.totalAgents();
-        long departements = statisticsController.totalDepartements();
+        CompletableFuture<Double> total = statisticsController.globalPaymentsTotalAsync();
+        CompletableFuture<Long> agents = statisticsController.totalAgentsAsync();
+        CompletableFuture<Long> departements = statisticsController.totalDepartementsAsync();
+        CompletableFuture<Map<TypePaiement, Long>> distribution = statisticsController.paymentDistributionAsync();
         logSection("--- Vue d'ensemble ---");
-        logInfo(String.format("Total global des paiements : %.2f", total));
-        logInfo("Nombre d'agents : " + agents);
-        logInfo("Nombre de départements : " + departements);
-        showPaymentDistribution();
+        logInfo(String.format("Total global des paiements : %.2f", total.join()));
+        logInfo("Nombre d'agents : " + agents.join());
+        logInfo("Nombre de départements : " + departements.join());
+        logDistribution(distribution.join());
     }
 
     private void showAnnualTotalForAgent() {
@@ -111,28 +128,44 @@ public class StatisticsMenuView extends BaseMenuView {
             int departementId = promptInt(DEPARTMENT_ID_PROMPT);
             double total = statisticsController.departmentTotal(departementId);
             double moyenneSalaire = statisticsController.departmentAverageSalary(departementId);
+            double medianeSalaire = statisticsController.departmentMedianSalary(departementId);
+            double p90Salaire = statisticsController.paymentPercentile(
+                    new PaiementCriteria().departement(departementId).type(TypePaiement.SALAIRE), 90);
             logInfo(String.format("Total département : %.2f", total));
             logInfo(String.format("Salaire moyen : %.2f", moyenneSalaire));
+            if (!Double.isNaN(medianeSalaire)) {
+                logInfo(String.format("Salaire médian (approx.) : %.2f", medianeSalaire));
+                logInfo(String.format("90e percentile des salaires (approx.) : %.2f", p90Salaire));
+            }
         } catch (DepartementNotFoundException e) {
             logError(e.getMessage());
         }
     }
 
     private void listAgentRanking() {
-        List<Agent> agents = statisticsController.rankAgentsByTotalPayments();
-        if (agents.isEmpty()) {
+        int top = promptInt("Nombre d'agents à afficher : ");
+        if (top <= 0) {
+            logInfo("Veuillez saisir un nombre positif.");
+            return;
+        }
+        List<AgentTotal> ranking = statisticsController.topAgentsByTotalPayments(top);
+        if (ranking.isEmpty()) {
             logInfo("Aucun agent enregistré.");
             return;
         }
         logSection("Classement des agents (total décroissant)");
         int position = 1;
-        for (Agent agent : agents) {
-            logInfo(String.format("%d. %s (%s)", position++, agent.getNomComplet(), agent.getTypeAgent()));
+        for (AgentTotal entry : ranking) {
+            Agent agent = entry.getAgent();
+            logInfo(String.format("%d. %s (%s) - %.2f", position++, agent.getNomComplet(), agent.getTypeAgent(), entry.getTotal()));
         }
     }
 
     private void showPaymentDistribution() {
-        Map<TypePaiement, Long> distribution = statisticsController.paymentDistribution();
+        logDistribution(statisticsController.paymentDistribution());
+    }
+
+    private void logDistribution(Map<TypePaiement, Long> distribution) {
         if (distribution.isEmpty()) {
             logInfo("Aucun paiement enregistré.");
             return;
@@ -141,6 +174,83 @@ public class StatisticsMenuView extends BaseMenuView {
         distribution.forEach((type, count) -> logInfo(String.format("%s : %d", type, count)));
     }
 
+    private void showDistinctPaidAgents() {
+        int year = promptInt("Année : ");
+        int month = promptInt("Mois (1-12) : ");
+        if (month < 1 || month > 12) {
+            logInfo("Mois invalide.");
+            return;
+        }
+        TypePaiement type = promptTypePaiement();
+        try {
+            long agents = statisticsController.distinctPaidAgents(new PaiementCriteria().month(year, month).type(type));
+            logInfo(String.format("%d agent(s) distinct(s) payé(s) en %s pour %02d/%d (approx.)", agents, type, month, year));
+        } catch (DepartementNotFoundException e) {
+            logError(e.getMessage());
+        }
+    }
+
+    private void showPivot() {
+        logInfo("Dimensions : D = département, A = type d'agent, T = type de paiement, Y = année, M = mois");
+        String letters = prompt("Regrouper par (ex. DT, vide pour le total) : ").trim().toUpperCase();
+        Set<AggregateDimension> groupBy = EnumSet.noneOf(AggregateDimension.class);
+        for (char letter : letters.toCharArray()) {
+            switch (letter) {
+                case 'D' -> groupBy.add(AggregateDimension.DEPARTEMENT);
+                case 'A' -> groupBy.add(AggregateDimension.AGENT_TYPE);
+                case 'T' -> groupBy.add(AggregateDimension.TYPE);
+                case 'Y' -> groupBy.add(AggregateDimension.YEAR);
+                case 'M' -> groupBy.add(AggregateDimension.MONTH);
+                default -> {
+                    logInfo("Dimension inconnue : " + letter);
+                    return;
+                }
+            }
+        }
+        PaiementCriteria criteria = new PaiementCriteria();
+        String year = prompt("Année (vide pour toutes) : ").trim();
+        if (!year.isEmpty()) {
+            try {
+                criteria.year(Integer.parseInt(year));
+            } catch (NumberFormatException e) {
+                logInfo("Année invalide.");
+                return;
+            }
+        }
+        try {
+            List<PaiementAggregate> rows = statisticsController.pivot(criteria, groupBy);
+            if (rows.isEmpty()) {
+                logInfo("Aucun paiement enregistré.");
+                return;
+            }
+            logSection("Tableau croisé des paiements");
+            rows.forEach(row -> logInfo(String.format("%s%d paiement(s) - total %.2f - moyenne %.2f - max %.2f",
+                    pivotLabel(row, groupBy), row.getCount(), row.getTotal(), row.getAverage(), row.getMaximum())));
+        } catch (DepartementNotFoundException e) {
+            logError(e.getMessage());
+        }
+    }
+
+    private String pivotLabel(PaiementAggregate row, Set<AggregateDimension> groupBy) {
+        StringBuilder label = new StringBuilder();
+        if (groupBy.contains(AggregateDimension.DEPARTEMENT)) {
+            label.append(row.getDepartementId() == null ? "Sans département" : "Département " + row.getDepartementId()).append(" | ");
+        }
+        if (groupBy.contains(AggregateDimension.AGENT_TYPE)) {
+            label.append(row.getAgentType()).append(" | ");
+        }
+        if (groupBy.contains(AggregateDimension.TYPE)) {
+            label.append(row.getType()).append(" | ");
+        }
+        if (groupBy.contains(AggregateDimension.YEAR)) {
+            label.append(row.getYear()).append(" | ");
+        }
+        if (groupBy.contains(AggregateDimension.MONTH)) {
+            label.append(String.format("mois %02d", row.getMonth())).append(" | ");
+        }
+        return label.toString();
+    }
+
     private void listPaymentsBetween() {
         LocalDate start = promptDate("Date de début (yyyy-MM-dd) : ");
         LocalDate end = promptDate("Date de fin (yyyy-MM-dd) : ");
@@ -157,13 +267,36 @@ public class StatisticsMenuView extends BaseMenuView {
                 paiement.getDate())));
     }
 
-    private void detectUnusualPayment() {
-        double threshold = promptDouble("Seuil à surveiller : ");
-        statisticsController.detectUnusualPayment(threshold)
-                .ifPresentOrElse(
-                        paiement -> logInfo(String.format("Paiement suspect : %.2f (agent %d, %s)",
-                                paiement.getMontant(), paiement.getAgentId(), paiement.getDate())),
-                        () -> logInfo("Aucun paiement au-dessus du seuil."));
+    private void detectAnomalies() {
+        double sigmas = promptDouble("Écart minimal (en écarts-types, ex. 3) : ");
+        if (sigmas <= 0) {
+            logInfo("Veuillez saisir un nombre positif.");
+            return;
+        }
+        listAnomalies(statisticsController.detectAnomalies(sigmas));
+    }
+
+    private void listAnomalies(List<PaymentAnomaly> anomalies) {
+        if (anomalies.isEmpty()) {
+            logInfo("Aucune anomalie détectée.");
+            return;
+        }
+        logSection("Anomalies (les plus marquées d'abord)");
+        anomalies.forEach(anomaly -> {
+            Paiement paiement = anomaly.getPaiement();
+            logInfo(String.format("[%d] agent %d - %s - %.2f le %s (moyenne %.2f, écart %+.1f σ)",
+                    paiement.getIdPaiement(), paiement.getAgentId(), paiement.getType(), paiement.getMontant(),
+                    paiement.getDate(), anomaly.getExpectedAmount(), anomaly.getScore()));
+        });
+    }
+
+    private void rebuildMonthlySummary() {
+        try {
+            int cells = statisticsController.rebuildMonthlySummary();
+            logInfo(String.format("Résumé mensuel reconstruit (%d ligne(s)).", cells));
+        } catch (IllegalStateException e) {
+            logError(e.getMessage());
+        }
     }
 
     private TypePaiement promptTypePaiement() {